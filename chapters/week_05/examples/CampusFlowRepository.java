@@ -2,8 +2,7 @@
  * CampusFlow 超级线：Repository 层实现。
  *
  * <p>本周任务：使用集合框架重构数据存储层
- * - 用 ArrayList 存储实体对象
- * - 用 HashMap 建立 ID 到对象的快速查找索引
+ * - 用 LinkedHashMap 存储实体对象：既能按 ID 快速查找，又保留插入顺序
  * - 添加基本的增删改查方法
  *
  * 运行方式：javac chapters/week_05/examples/CampusFlowRepository.java && \
@@ -14,11 +13,21 @@
  * - 展示内存存储层的实现模式
  */
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 // ========== 实体类（简化版 Task） ==========
@@ -79,6 +88,135 @@ class Task {
     }
 }
 
+// ========== 标题索引 ==========
+
+/**
+ * 任务标题的三元组（trigram）倒排索引，支持不区分大小写的子串搜索。
+ *
+ * <p>标题先统一转成小写，再切成所有长度为 3 的片段，例如 "review" 切成 rev、evi、vie、iew。
+ * 每个片段对应一个倒排表：包含这个片段的任务 ID 集合。
+ *
+ * <p>查询关键词时（长度 >= 3）：
+ * <ol>
+ *   <li>把关键词也切成三元组，取出各自的倒排表</li>
+ *   <li>从最短的倒排表出发，只保留在其他倒排表里也出现的 ID（求交集）</li>
+ *   <li>候选任务的标题包含全部三元组不代表一定包含整个关键词（"abcXbcd" 含 abc 和 bcd，却不含 "abcd"），
+ *       所以再用 contains 核对一遍</li>
+ * </ol>
+ * 查询的代价取决于最短倒排表的长度，而不是任务总数。关键词不足 3 个字符时切不出三元组，由调用方退回扫描。
+ *
+ * <p>每个任务记录小写后的标题和首次保存的序号：更新标题时据此删除旧片段，
+ * 查询结果按序号排序，与 findAll 的顺序一致。
+ */
+class TitleTrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final HashMap<String, HashSet<String>> postings = new HashMap<>();
+    private final HashMap<String, IndexedTitle> titlesById = new HashMap<>();
+
+    private record IndexedTitle(long sequence, String folded) {
+    }
+
+    static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 加入或更新一个任务的标题。标题没变时什么也不做。
+     */
+    void put(String id, long sequence, String title) {
+        String folded = fold(title);
+        IndexedTitle old = titlesById.get(id);
+        if (old != null) {
+            if (old.folded().equals(folded)) {
+                return;
+            }
+            removeGrams(id, old.folded());
+            sequence = old.sequence();
+        }
+        titlesById.put(id, new IndexedTitle(sequence, folded));
+        for (String gram : grams(folded)) {
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    void remove(String id) {
+        IndexedTitle old = titlesById.remove(id);
+        if (old != null) {
+            removeGrams(id, old.folded());
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        titlesById.clear();
+    }
+
+    /**
+     * 小写后的标题是否包含（已小写的）关键词；用于短关键词的扫描，避免每次查询都重新转换所有标题。
+     */
+    boolean titleContains(String id, String foldedKeyword) {
+        IndexedTitle indexed = titlesById.get(id);
+        return indexed != null && indexed.folded().contains(foldedKeyword);
+    }
+
+    /**
+     * 返回标题包含关键词的任务 ID，按首次保存的顺序。关键词须已小写且长度 >= GRAM_LENGTH。
+     */
+    List<String> search(String foldedKeyword) {
+        Set<String> grams = grams(foldedKeyword);
+        List<HashSet<String>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            HashSet<String> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(HashSet::size));
+
+        List<String> matches = new ArrayList<>();
+        HashSet<String> shortest = lists.get(0);
+        for (String id : shortest) {
+            if (inAll(id, lists) && titlesById.get(id).folded().contains(foldedKeyword)) {
+                matches.add(id);
+            }
+        }
+        matches.sort(Comparator.comparingLong(id -> titlesById.get(id).sequence()));
+        return matches;
+    }
+
+    private static boolean inAll(String id, List<HashSet<String>> lists) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeGrams(String id, String folded) {
+        for (String gram : grams(folded)) {
+            HashSet<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                // 不留空集合，否则删过的标题片段会一直占着内存
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
+
 // ========== Repository 层 ==========
 
 /**
@@ -86,43 +224,79 @@ class Task {
  *
  * <p>设计要点：
  * <ul>
- *   <li>使用 HashMap 实现 O(1) 的 ID 查找</li>
- *   <li>使用 ArrayList 支持遍历和排序</li>
+ *   <li>使用 LinkedHashMap 同时提供 O(1) 的 ID 查找和按插入顺序的遍历</li>
+ *   <li>未完成和已完成的任务再各放一个分区，按状态查询、计数和清理只碰相应分区</li>
+ *   <li>标题搜索走 {@link TitleTrigramIndex}，随 save / delete 增量维护</li>
  *   <li>返回副本保护内部数据</li>
  *   <li>使用 Optional 避免 null</li>
  * </ul>
  *
+ * <p>为什么不用 HashMap + ArrayList 两份存储：列表里按 ID 找元素只能从头扫描，
+ * 每次 save / delete 都要 removeIf 整个列表，连续保存 N 个任务就是 O(N²)。
+ * LinkedHashMap 在哈希表的每个节点上再串一条双向链表，插入、删除都是 O(1)，
+ * 遍历顺序就是首次插入的顺序；对已存在的 ID 再次 put 只替换值，任务保持原来的位置。
+ *
+ * <p>状态分区：pendingById 和 completedById 也是 LinkedHashMap，任务完成时从前者移到后者的末尾。
+ * countPending 是 O(1)，findPending / findCompleted 与结果数成正比，deleteCompleted 只遍历已完成分区。
+ * 分区在 save 和 {@link #setCompleted} 时调整，所以直接调用 Task.setCompleted 后要再 save。
+ *
+ * <p>后台清理：{@link #startBackgroundPurge} 启动一个线程，每隔一段时间删除一小批已完成任务。
+ * 因为可能有两个线程同时访问，公开方法都是 synchronized 的；每批只持锁删除 chunkSize 个任务，
+ * 其他线程最多等这一小批，而不是等 deleteCompleted 一次删完几十万个任务。
+ *
  * <p>这是生产环境中 Repository 层的简化版，
  * 后续周次会添加持久化支持。
  */
 class TaskRepository {
-    // 主索引：ID -> Task，O(1) 查找
-    private final HashMap<String, Task> tasksById;
-    // 辅助存储：支持遍历和排序
-    private final ArrayList<Task> taskList;
+    // ID -> Task，O(1) 查找；遍历顺序为首次保存的顺序
+    private final LinkedHashMap<String, Task> tasksById;
+    // 按完成状态划分的两个分区，遍历顺序为进入分区的顺序
+    private final LinkedHashMap<String, Task> pendingById;
+    private final LinkedHashMap<String, Task> completedById;
+    private final TitleTrigramIndex titleIndex;
+    // 新任务的保存序号，用来让索引查询结果与 findAll 顺序一致
+    private long nextSequence;
+    private ScheduledExecutorService purger;
 
     public TaskRepository() {
-        this.tasksById = new HashMap<>();
-        this.taskList = new ArrayList<>();
+        this.tasksById = new LinkedHashMap<>();
+        this.pendingById = new LinkedHashMap<>();
+        this.completedById = new LinkedHashMap<>();
+        this.titleIndex = new TitleTrigramIndex();
     }
 
     /**
      * 保存任务（新增或更新）。
      *
+     * <p>新任务追加到末尾；更新已有任务时原地替换，不改变它在 findAll 中的位置。
+     * 除标题索引外是 O(1)；标题索引的维护与标题长度成正比。
+     * 通过 setTitle 修改标题后需要再次 save，标题搜索才能找到新标题。
+     *
      * @param task 要保存的任务
      * @throws IllegalArgumentException 如果 task 或 id 为 null
      */
-    public void save(Task task) {
+    public synchronized void save(Task task) {
         if (task == null || task.getId() == null) {
             throw new IllegalArgumentException("Task 或 ID 不能为空");
         }
-
-        // 更新 HashMap
         tasksById.put(task.getId(), task);
+        place(task);
+        titleIndex.put(task.getId(), nextSequence++, task.getTitle());
+    }
 
-        // 更新列表：如果已存在则替换
-        taskList.removeIf(t -> t.getId().equals(task.getId()));
-        taskList.add(task);
+    /**
+     * 修改任务的完成状态，并把它移到对应的分区。O(1)。
+     *
+     * @return true 如果任务存在
+     */
+    public synchronized boolean setCompleted(String id, boolean completed) {
+        Task task = tasksById.get(id);
+        if (task == null) {
+            return false;
+        }
+        task.setCompleted(completed);
+        place(task);
+        return true;
     }
 
     /**
@@ -131,105 +305,180 @@ class TaskRepository {
      * @param id 任务 ID
      * @return Optional<Task> 可能包含任务
      */
-    public Optional<Task> findById(String id) {
+    public synchronized Optional<Task> findById(String id) {
         return Optional.ofNullable(tasksById.get(id));
     }
 
     /**
-     * 获取所有任务（返回副本）。
+     * 获取所有任务（返回副本），按首次保存的顺序。
      *
      * @return 任务列表的副本
      */
-    public List<Task> findAll() {
-        return new ArrayList<>(taskList);
+    public synchronized List<Task> findAll() {
+        return new ArrayList<>(tasksById.values());
     }
 
     /**
-     * 查找未完成的任务。
+     * 查找未完成的任务，按进入未完成分区的顺序。
      */
-    public List<Task> findPending() {
-        return taskList.stream()
-            .filter(t -> !t.isCompleted())
-            .collect(Collectors.toList());
+    public synchronized List<Task> findPending() {
+        return new ArrayList<>(pendingById.values());
     }
 
     /**
-     * 查找已完成的任务。
+     * 查找已完成的任务，按完成的先后顺序。
      */
-    public List<Task> findCompleted() {
-        return taskList.stream()
-            .filter(Task::isCompleted)
-            .collect(Collectors.toList());
+    public synchronized List<Task> findCompleted() {
+        return new ArrayList<>(completedById.values());
     }
 
     /**
-     * 根据标题模糊搜索。
+     * 根据标题模糊搜索（不区分大小写），按首次保存的顺序返回。
+     *
+     * <p>关键词至少 3 个字符时查三元组索引，耗时取决于匹配的任务数；
+     * 更短的关键词切不出三元组，只能扫描所有任务，但用的是索引里已经小写的标题。
      */
-    public List<Task> findByTitleContaining(String keyword) {
-        return taskList.stream()
-            .filter(t -> t.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-            .collect(Collectors.toList());
+    public synchronized List<Task> findByTitleContaining(String keyword) {
+        if (keyword == null) {
+            throw new IllegalArgumentException("关键词不能为空");
+        }
+        String folded = TitleTrigramIndex.fold(keyword);
+        if (folded.length() < TitleTrigramIndex.GRAM_LENGTH) {
+            return tasksById.values().stream()
+                .filter(t -> titleIndex.titleContains(t.getId(), folded))
+                .collect(Collectors.toList());
+        }
+        List<Task> result = new ArrayList<>();
+        for (String id : titleIndex.search(folded)) {
+            result.add(tasksById.get(id));
+        }
+        return result;
     }
 
     /**
-     * 删除任务。
+     * 删除任务。O(1)。
      *
      * @param id 任务 ID
      * @return true 如果删除成功
      */
-    public boolean delete(String id) {
-        Task removed = tasksById.remove(id);
-        if (removed != null) {
-            taskList.removeIf(t -> t.getId().equals(id));
-            return true;
+    public synchronized boolean delete(String id) {
+        if (tasksById.remove(id) == null) {
+            return false;
         }
-        return false;
+        pendingById.remove(id);
+        completedById.remove(id);
+        titleIndex.remove(id);
+        return true;
     }
 
     /**
-     * 批量删除已完成的任务。
-     *
-     * <p>使用 removeIf（Java 8+），内部使用 Iterator 安全删除。
+     * 批量删除已完成的任务。O(已完成任务数)，不遍历未完成的任务。
      */
-    public int deleteCompleted() {
-        int before = taskList.size();
+    public synchronized int deleteCompleted() {
+        return purgeCompleted(Integer.MAX_VALUE);
+    }
 
-        // 从列表中删除
-        taskList.removeIf(Task::isCompleted);
+    /**
+     * 最多删除 maxTasks 个已完成的任务（最早完成的先删），返回实际删除的个数。
+     */
+    public synchronized int purgeCompleted(int maxTasks) {
+        int deleted = 0;
+        Iterator<Task> iterator = completedById.values().iterator();
+        while (deleted < maxTasks && iterator.hasNext()) {
+            Task task = iterator.next();
+            iterator.remove();
+            if (!task.isCompleted()) {
+                // 直接改了 Task 的状态却没有 save，这里顺便纠正分区
+                pendingById.put(task.getId(), task);
+                continue;
+            }
+            tasksById.remove(task.getId());
+            titleIndex.remove(task.getId());
+            deleted++;
+        }
+        return deleted;
+    }
 
-        // 同步更新 Map
-        tasksById.entrySet().removeIf(entry -> entry.getValue().isCompleted());
+    /**
+     * 启动后台清理：每隔 interval 删除最多 chunkSize 个已完成任务。已经启动时什么也不做。
+     */
+    public synchronized void startBackgroundPurge(int chunkSize, Duration interval) {
+        if (chunkSize < 1 || interval == null || interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("chunkSize 和 interval 必须大于 0");
+        }
+        if (purger != null) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = interval.toNanos();
+        purger.scheduleWithFixedDelay(() -> purgeCompleted(chunkSize), nanos, nanos, TimeUnit.NANOSECONDS);
+    }
 
-        return before - taskList.size();
+    /**
+     * 停止后台清理，等待正在进行的一批删完。
+     */
+    public void stopBackgroundPurge() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = purger;
+            purger = null;
+        }
+        if (running == null) {
+            return;
+        }
+        // 不能持有锁等待：清理线程正在等这把锁
+        running.shutdown();
+        try {
+            running.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
      * 检查任务是否存在。
      */
-    public boolean exists(String id) {
+    public synchronized boolean exists(String id) {
         return tasksById.containsKey(id);
     }
 
     /**
      * 获取任务总数。
      */
-    public int count() {
+    public synchronized int count() {
         return tasksById.size();
     }
 
     /**
-     * 获取未完成任务数。
+     * 获取未完成任务数。O(1)。
      */
-    public int countPending() {
-        return (int) taskList.stream().filter(t -> !t.isCompleted()).count();
+    public synchronized int countPending() {
+        return pendingById.size();
     }
 
     /**
      * 清空所有任务。
      */
-    public void clear() {
+    public synchronized void clear() {
         tasksById.clear();
-        taskList.clear();
+        pendingById.clear();
+        completedById.clear();
+        titleIndex.clear();
+    }
+
+    private void place(Task task) {
+        String id = task.getId();
+        if (task.isCompleted()) {
+            pendingById.remove(id);
+            completedById.put(id, task);
+        } else {
+            completedById.remove(id);
+            pendingById.put(id, task);
+        }
     }
 }
 
@@ -269,10 +518,9 @@ class TaskService {
     }
 
     public void completeTask(String id) {
-        Task task = repository.findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("任务不存在: " + id));
-        task.setCompleted(true);
-        repository.save(task);
+        if (!repository.setCompleted(id, true)) {
+            throw new IllegalArgumentException("任务不存在: " + id);
+        }
     }
 
     public boolean deleteTask(String id) {
@@ -342,16 +590,17 @@ class CampusFlowRepositoryDemo {
 
         System.out.println("查找 ID=T006: " + repo.findById("T006").orElse(null));
         System.out.println("是否存在 T999: " + repo.exists("T999"));
+        // 3 个字符以上走三元组索引，更短的关键词扫描全部标题
+        System.out.println("标题包含 \"性能优化\": " + repo.findByTitleContaining("性能优化"));
+        System.out.println("标题包含 \"文档\": " + repo.findByTitleContaining("文档"));
 
         // 7. 批量删除演示
         System.out.println("\n【7. 批量删除已完成任务】");
         System.out.println("删除前数量: " + repo.count());
 
-        // 先标记一些为完成
-        repo.findById("T006").ifPresent(t -> {
-            t.setCompleted(true);
-            repo.save(t);
-        });
+        // 先标记一些为完成：setCompleted 会把任务移到已完成分区
+        repo.setCompleted("T006", true);
+        System.out.println("待完成: " + repo.findPending() + "，已完成: " + repo.findCompleted());
 
         int deleted = repo.deleteCompleted();
         System.out.println("已删除 " + deleted + " 个已完成的任务");
@@ -383,8 +632,8 @@ class CampusFlowRepositoryDemo {
         System.out.println("│  Service 层  - 业务逻辑             │");
         System.out.println("├─────────────────────────────────────┤");
         System.out.println("│ Repository 层 - 数据访问（本示例）  │");
-        System.out.println("│  - HashMap<String, Task> 快速查找   │");
-        System.out.println("│  - ArrayList<Task> 支持遍历         │");
+        System.out.println("│  - LinkedHashMap<String, Task>      │");
+        System.out.println("│    O(1) 查找 + 按插入顺序遍历         │");
         System.out.println("├─────────────────────────────────────┤");
         System.out.println("│   Entity 层  - Task 实体            │");
         System.out.println("└─────────────────────────────────────┘");
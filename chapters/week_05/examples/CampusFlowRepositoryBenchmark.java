@@ -0,0 +1,115 @@
+/**
+ * 示例：TaskRepository 批量加载基准。
+ *
+ * 运行方式：javac -d /tmp/week05 chapters/week_05/examples/CampusFlowRepository.java \
+ *              chapters/week_05/examples/CampusFlowRepositoryBenchmark.java && \
+ *          java -Xmx2g -cp /tmp/week05 CampusFlowRepositoryBenchmark
+ *
+ * 预期输出（数值因机器而异）：
+ * - LinkedHashMap 版本在 1 万、10 万、100 万个任务下，每个任务的加载耗时基本不变（线性）
+ * - 旧的 HashMap + ArrayList 版本每次 save 都扫描整个列表，数据量翻 10 倍耗时约翻 100 倍
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 旧实现：HashMap 查找 + ArrayList 保序，save / delete 都要 removeIf 整个列表。仅用于对比。
+ */
+class ListBackedTaskRepository {
+    private final HashMap<String, Task> tasksById = new HashMap<>();
+    private final ArrayList<Task> taskList = new ArrayList<>();
+
+    public void save(Task task) {
+        tasksById.put(task.getId(), task);
+        taskList.removeIf(t -> t.getId().equals(task.getId()));
+        taskList.add(task);
+    }
+
+    public int count() {
+        return tasksById.size();
+    }
+}
+
+class CampusFlowRepositoryBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+    // 旧实现是 O(N²)，10 万个任务已经要几十秒，更大的数据量不再测
+    private static final int LEGACY_MAX_SIZE = 100_000;
+
+    public static void main(String[] args) {
+        System.out.println("=== TaskRepository 批量加载基准 ===\n");
+
+        // 预热：让 JIT 编译热点代码，避免第一组数据吃亏
+        for (int i = 0; i < 5; i++) {
+            run(createTasks(10_000));
+        }
+
+        System.out.printf("%10s %12s %10s %12s %12s %12s %14s%n",
+            "任务数", "加载(ms)", "ns/个", "原地更新(ms)", "顺序遍历(ms)", "逐个删除(ms)", "旧实现加载(ms)");
+        for (int size : SIZES) {
+            List<Task> tasks = createTasks(size);
+            long[] result = run(tasks);
+            String legacy = size <= LEGACY_MAX_SIZE ? String.valueOf(loadLegacy(tasks)) : "跳过";
+            System.out.printf("%10d %12d %10d %12d %12d %12d %14s%n",
+                size, result[0] / 1_000_000, result[0] / size,
+                result[1] / 1_000_000, result[2] / 1_000_000, result[3] / 1_000_000, legacy);
+        }
+    }
+
+    private static List<Task> createTasks(int size) {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, null));
+        }
+        return tasks;
+    }
+
+    /**
+     * 返回 {加载, 原地更新, 顺序遍历, 逐个删除} 各自的纳秒数。
+     */
+    private static long[] run(List<Task> tasks) {
+        TaskRepository repository = new TaskRepository();
+        long[] nanos = new long[4];
+
+        long start = System.nanoTime();
+        for (Task task : tasks) {
+            repository.save(task);
+        }
+        nanos[0] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Task task : tasks) {
+            repository.save(task);
+        }
+        nanos[1] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<Task> all = repository.findAll();
+        // 顺序必须与首次保存一致，更新不会把任务移到末尾
+        if (!all.get(0).getId().equals(tasks.get(0).getId())
+                || !all.get(all.size() - 1).getId().equals(tasks.get(tasks.size() - 1).getId())) {
+            throw new IllegalStateException("findAll 的顺序与保存顺序不一致");
+        }
+        nanos[2] = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Task task : tasks) {
+            repository.delete(task.getId());
+        }
+        nanos[3] = System.nanoTime() - start;
+        if (repository.count() != 0) {
+            throw new IllegalStateException("删除后仍有 " + repository.count() + " 个任务");
+        }
+        return nanos;
+    }
+
+    private static long loadLegacy(List<Task> tasks) {
+        ListBackedTaskRepository repository = new ListBackedTaskRepository();
+        long start = System.nanoTime();
+        for (Task task : tasks) {
+            repository.save(task);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * 示例：状态分区与后台清理基准。
+ *
+ * 运行方式：javac -d /tmp/week05 chapters/week_05/examples/CampusFlowRepository.java \
+ *              chapters/week_05/examples/StatusPartitionBenchmark.java && \
+ *          java -Xmx2g -cp /tmp/week05 StatusPartitionBenchmark
+ *
+ * 预期输出（数值因机器而异；最长等待也包含 GC 停顿，可加 -Xlog:gc 对照）：
+ * - countPending 与任务总数无关；deleteCompleted 的耗时只与已完成任务数有关
+ * - 一次性 deleteCompleted 删除 50 万个任务时，另一个线程的查询要等整个删除结束；
+ *   后台分批清理时，查询最多只等一批
+ */
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+class StatusPartitionBenchmark {
+    private static final int TOTAL = 1_000_000;
+    private static final int COUNT_CALLS = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== 状态分区基准（" + TOTAL / 10_000 + " 万个任务）===\n");
+
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            load(100_000, 10_000).deleteCompleted();
+        }
+
+        System.out.printf("%12s %16s %16s %18s%n", "已完成数", "countPending(ns)", "findPending(ms)", "deleteCompleted(ms)");
+        for (int completed : new int[] {1_000, 10_000, 100_000, 500_000}) {
+            TaskRepository repository = load(TOTAL, completed);
+
+            // 分配和 GC 会干扰单次操作的计时，每组测量前先清理一次堆
+            System.gc();
+            int pending = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < COUNT_CALLS; i++) {
+                pending = repository.countPending();
+            }
+            long countNanos = (System.nanoTime() - start) / COUNT_CALLS;
+
+            start = System.nanoTime();
+            int found = repository.findPending().size();
+            long findMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            int deleted = repository.deleteCompleted();
+            long deleteMillis = (System.nanoTime() - start) / 1_000_000;
+
+            if (pending != TOTAL - completed || found != pending || deleted != completed) {
+                throw new IllegalStateException("计数不一致");
+            }
+            System.out.printf("%12d %16d %16d %18d%n", completed, countNanos, findMillis, deleteMillis);
+        }
+
+        System.out.println("\n删除 50 万个已完成任务时，另一个线程 findById 的最长等待：");
+        long[] onceResult = measurePauses(false);
+        System.out.printf("  一次性 deleteCompleted: 最长等待 %d ms，清理总耗时 %d ms%n",
+            onceResult[0], onceResult[1]);
+        long[] backgroundResult = measurePauses(true);
+        System.out.printf("  后台分批清理（每批 1000 个）: 最长等待 %d ms，清理总耗时 %d ms%n",
+            backgroundResult[0], backgroundResult[1]);
+    }
+
+    private static long[] measurePauses(boolean inBackground) throws InterruptedException {
+        TaskRepository repository = load(TOTAL, TOTAL / 2);
+        System.gc();
+        return measurePauses(repository, () -> {
+            if (!inBackground) {
+                repository.deleteCompleted();
+                return;
+            }
+            repository.startBackgroundPurge(1_000, Duration.ofMillis(1));
+            while (repository.count() > TOTAL / 2) {
+                sleep(1);
+            }
+            repository.stopBackgroundPurge();
+        });
+    }
+
+    /**
+     * 保存 size 个任务，其中前 completed 个标记为已完成。
+     */
+    private static TaskRepository load(int size, int completed) {
+        TaskRepository repository = new TaskRepository();
+        for (int i = 0; i < size; i++) {
+            repository.save(new Task("T" + i, "任务 " + i, null));
+        }
+        for (int i = 0; i < completed; i++) {
+            repository.setCompleted("T" + i, true);
+        }
+        return repository;
+    }
+
+    /**
+     * 执行 purge 的同时，另一个线程不停地 findById，返回 {单次查询最长耗时, purge 总耗时}（毫秒）。
+     */
+    private static long[] measurePauses(TaskRepository repository, Runnable purge) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong maxNanos = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (running.get()) {
+                long start = System.nanoTime();
+                repository.findById("T" + random.nextInt(TOTAL));
+                long elapsed = System.nanoTime() - start;
+                if (elapsed > maxNanos.get()) {
+                    maxNanos.set(elapsed);
+                }
+            }
+        });
+        reader.start();
+        sleep(200);
+
+        long start = System.nanoTime();
+        purge.run();
+        long purgeMillis = (System.nanoTime() - start) / 1_000_000;
+
+        running.set(false);
+        reader.join();
+        return new long[] {maxNanos.get() / 1_000_000, purgeMillis};
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
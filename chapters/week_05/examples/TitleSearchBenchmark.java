@@ -0,0 +1,120 @@
+/**
+ * 示例：标题搜索基准——三元组索引 vs 逐个扫描。
+ *
+ * 运行方式：javac -d /tmp/week05 chapters/week_05/examples/CampusFlowRepository.java \
+ *              chapters/week_05/examples/TitleSearchBenchmark.java && \
+ *          java -Xmx2g -cp /tmp/week05 TitleSearchBenchmark
+ *
+ * 预期输出（数值因机器而异）：
+ * - 先做一轮随机保存 / 改标题 / 删除，确认索引结果与扫描结果始终一致
+ * - 匹配数固定（约 100 个）时，索引查询耗时基本不随任务总数增长；扫描耗时与任务总数成正比
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+class TitleSearchBenchmark {
+    private static final String[] WORDS = {
+        "设计", "实现", "测试", "部署", "评审", "文档", "数据库", "接口", "登录", "注册",
+        "review", "refactor", "deploy", "cache", "query", "report", "Login", "Schema", "API", "Bug"
+    };
+    private static final String RARE_WORD = "Hotfix-紧急";
+    private static final int MATCHES = 100;
+    private static final int QUERIES = 50;
+
+    public static void main(String[] args) {
+        System.out.println("=== 标题搜索基准 ===\n");
+        checkConsistency();
+
+        System.out.printf("%10s %8s %16s %16s%n", "任务数", "匹配数", "索引查询(µs/次)", "扫描(µs/次)");
+        for (int size : new int[] {10_000, 100_000, 1_000_000}) {
+            TaskRepository repository = new TaskRepository();
+            List<Task> tasks = new ArrayList<>(size);
+            Random random = new Random(42);
+            // 每 size / MATCHES 个任务中有一个标题带稀有词
+            int every = size / MATCHES;
+            for (int i = 0; i < size; i++) {
+                String title = randomTitle(random) + (i % every == 0 ? " " + RARE_WORD : "") + " #" + i;
+                Task task = new Task("T" + i, title, null);
+                tasks.add(task);
+                repository.save(task);
+            }
+
+            String keyword = "hotfix";
+            int matches = repository.findByTitleContaining(keyword).size();
+            long indexed = timeMicros(() -> repository.findByTitleContaining(keyword));
+            long scanned = timeMicros(() -> scan(tasks, keyword));
+            System.out.printf("%10d %8d %16d %16d%n", size, matches, indexed, scanned);
+        }
+    }
+
+    /**
+     * 旧实现：每次查询都把所有标题和关键词转成小写再 contains。
+     */
+    private static List<Task> scan(List<Task> tasks, String keyword) {
+        return tasks.stream()
+            .filter(t -> t.getTitle().toLowerCase().contains(keyword.toLowerCase()))
+            .collect(Collectors.toList());
+    }
+
+    private static long timeMicros(Runnable query) {
+        // 预热
+        for (int i = 0; i < QUERIES / 4; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / QUERIES / 1_000;
+    }
+
+    private static String randomTitle(Random random) {
+        StringBuilder title = new StringBuilder();
+        for (int w = 0; w < 3; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    /**
+     * 随机保存、改标题、删除、批量删除已完成任务，每一步都用扫描结果核对索引结果。
+     */
+    private static void checkConsistency() {
+        TaskRepository repository = new TaskRepository();
+        Random random = new Random(7);
+        String[] keywords = {"rev", "REVIEW", "数据库", "api", "s", "登录 re", "ploy", "xyz"};
+        for (int step = 0; step < 20_000; step++) {
+            String id = "T" + random.nextInt(500);
+            int action = random.nextInt(10);
+            if (action < 5) {
+                repository.save(new Task(id, randomTitle(random), null));
+            } else if (action < 7) {
+                repository.findById(id).ifPresent(task -> {
+                    task.setTitle(randomTitle(random));
+                    task.setCompleted(random.nextBoolean());
+                    repository.save(task);
+                });
+            } else if (action < 9) {
+                repository.delete(id);
+            } else if (step % 50 == 0) {
+                repository.deleteCompleted();
+            }
+
+            String keyword = keywords[random.nextInt(keywords.length)];
+            List<Task> expected = scan(repository.findAll(), keyword.toLowerCase(Locale.ROOT));
+            List<Task> actual = repository.findByTitleContaining(keyword);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("第 " + step + " 步索引结果不一致: " + keyword
+                    + "\n扫描: " + expected + "\n索引: " + actual);
+            }
+        }
+        System.out.println("一致性检查通过：20000 次随机操作后索引与扫描结果相同\n");
+    }
+}
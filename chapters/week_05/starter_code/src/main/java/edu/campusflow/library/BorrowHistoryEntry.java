@@ -0,0 +1,9 @@
+package edu.campusflow.library;
+
+import java.time.LocalDate;
+
+/**
+ * 一条已归还的借阅记录。由 {@link BorrowRecordStore} 从压缩的历史段中解码出来。
+ */
+public record BorrowHistoryEntry(String isbn, String borrower, LocalDate borrowDate, LocalDate returnDate) {
+}
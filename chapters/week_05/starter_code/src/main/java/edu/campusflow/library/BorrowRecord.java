@@ -8,9 +8,13 @@ public class BorrowRecord {
     private final LocalDate borrowDate;
 
     public BorrowRecord(String isbn, String borrower) {
+        this(isbn, borrower, LocalDate.now());
+    }
+
+    public BorrowRecord(String isbn, String borrower, LocalDate borrowDate) {
         this.isbn = isbn;
         this.borrower = borrower;
-        this.borrowDate = LocalDate.now();
+        this.borrowDate = borrowDate;
     }
 
     public String getIsbn() {
@@ -24,4 +28,9 @@ public class BorrowRecord {
     public LocalDate getBorrowDate() {
         return borrowDate;
     }
+
+    @Override
+    public String toString() {
+        return borrower + " 借阅 " + isbn + "（" + borrowDate + "）";
+    }
 }
@@ -0,0 +1,152 @@
+package edu.campusflow.library;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 借阅记录存储。
+ *
+ * <p>未归还的借阅按 ISBN 和借阅人各建一个索引，查询、借出、归还都不需要扫描全部记录：
+ * <ul>
+ *   <li>{@code activeByIsbn}：ISBN → 借阅记录，一本书同时只能被借出一次</li>
+ *   <li>{@code activeByBorrower}：借阅人 → (ISBN → 借阅记录)，保持借出顺序</li>
+ * </ul>
+ * 这两个索引的大小只和当前借出的数量有关，归还后记录立即从中删除。
+ *
+ * <p>归还的记录不再保留 {@link BorrowRecord} 对象，而是追加到借阅人自己的历史段里：
+ * 每条历史是 3 个 int（ISBN 编号、借出日、归还日的 epochDay），ISBN 字符串
+ * 只在字典里存一份。一条历史约 12 字节，而一个 BorrowRecord 加上它的 LocalDate 约 50 字节。
+ */
+public class BorrowRecordStore {
+    private final LinkedHashMap<String, BorrowRecord> activeByIsbn = new LinkedHashMap<>();
+    private final HashMap<String, LinkedHashMap<String, BorrowRecord>> activeByBorrower = new HashMap<>();
+    private final HashMap<String, HistorySegment> historyByBorrower = new HashMap<>();
+    private final HashMap<String, Integer> isbnIds = new HashMap<>();
+    private final ArrayList<String> isbnsById = new ArrayList<>();
+    private int historySize;
+
+    public BorrowRecord borrow(String isbn, String borrower, LocalDate borrowDate) {
+        if (activeByIsbn.containsKey(isbn)) {
+            throw new IllegalStateException("图书已被借出: " + isbn);
+        }
+        BorrowRecord record = new BorrowRecord(isbn, borrower, borrowDate);
+        activeByIsbn.put(isbn, record);
+        activeByBorrower.computeIfAbsent(borrower, b -> new LinkedHashMap<>()).put(isbn, record);
+        return record;
+    }
+
+    /**
+     * 归还图书：把借阅记录从活动索引中删除，压缩后追加到借阅人的历史段。
+     */
+    public BorrowHistoryEntry giveBack(String isbn, String borrower, LocalDate returnDate) {
+        BorrowRecord record = activeByIsbn.get(isbn);
+        if (record == null || !record.getBorrower().equals(borrower)) {
+            throw new IllegalStateException("未找到 " + borrower + " 借阅 " + isbn + " 的记录");
+        }
+        removeActive(record);
+        historyByBorrower.computeIfAbsent(borrower, b -> new HistorySegment())
+            .append(isbnId(isbn), (int) record.getBorrowDate().toEpochDay(), (int) returnDate.toEpochDay());
+        historySize++;
+        return new BorrowHistoryEntry(isbn, borrower, record.getBorrowDate(), returnDate);
+    }
+
+    /**
+     * 删除某个 ISBN 未归还的借阅记录，不写入历史。用于图书下架。
+     *
+     * @return 被删除的记录，没有借出时返回 null
+     */
+    public BorrowRecord discard(String isbn) {
+        BorrowRecord record = activeByIsbn.get(isbn);
+        if (record != null) {
+            removeActive(record);
+        }
+        return record;
+    }
+
+    public BorrowRecord findActive(String isbn) {
+        return activeByIsbn.get(isbn);
+    }
+
+    public List<BorrowRecord> findActiveByBorrower(String borrower) {
+        Map<String, BorrowRecord> records = activeByBorrower.get(borrower);
+        return records == null ? new ArrayList<>() : new ArrayList<>(records.values());
+    }
+
+    public List<BorrowRecord> findAllActive() {
+        return new ArrayList<>(activeByIsbn.values());
+    }
+
+    /**
+     * 借阅人已归还的记录，按归还顺序排列。
+     */
+    public List<BorrowHistoryEntry> findHistoryByBorrower(String borrower) {
+        HistorySegment segment = historyByBorrower.get(borrower);
+        if (segment == null) {
+            return new ArrayList<>();
+        }
+        List<BorrowHistoryEntry> history = new ArrayList<>(segment.size);
+        int[] data = segment.data;
+        for (int i = 0; i < segment.size * HistorySegment.FIELDS; i += HistorySegment.FIELDS) {
+            history.add(new BorrowHistoryEntry(
+                isbnsById.get(data[i]),
+                borrower,
+                LocalDate.ofEpochDay(data[i + 1]),
+                LocalDate.ofEpochDay(data[i + 2])));
+        }
+        return history;
+    }
+
+    public int activeCount() {
+        return activeByIsbn.size();
+    }
+
+    public int historySize() {
+        return historySize;
+    }
+
+    private void removeActive(BorrowRecord record) {
+        activeByIsbn.remove(record.getIsbn());
+        Map<String, BorrowRecord> records = activeByBorrower.get(record.getBorrower());
+        records.remove(record.getIsbn());
+        // 借阅人没有未还的书时删掉整个条目，活动索引的大小始终跟着借出数量走
+        if (records.isEmpty()) {
+            activeByBorrower.remove(record.getBorrower());
+        }
+    }
+
+    private int isbnId(String isbn) {
+        Integer id = isbnIds.get(isbn);
+        if (id == null) {
+            id = isbnsById.size();
+            isbnIds.put(isbn, id);
+            isbnsById.add(isbn);
+        }
+        return id;
+    }
+
+    /**
+     * 一个借阅人的历史段：按 (ISBN 编号, 借出日, 归还日) 连续存放的 int 数组。
+     */
+    private static final class HistorySegment {
+        static final int FIELDS = 3;
+
+        int[] data = new int[FIELDS * 2];
+        int size;
+
+        void append(int isbnId, int borrowDay, int returnDay) {
+            int offset = size * FIELDS;
+            if (offset + FIELDS > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[offset] = isbnId;
+            data[offset + 1] = borrowDay;
+            data[offset + 2] = returnDay;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.campusflow.library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 按 ISBN 查找的目录索引，用来代替 {@code HashMap<String, V>}。
+ *
+ * <p>合法的 ISBN-13（允许连字符和空格）被规范化成一个 long，例如 "978-7-111-54742-6"
+ * 和 "9787111547426" 是同一个键。这些键存放在两层结构里：
+ * <ul>
+ *   <li>稠密数组 {@code keys} / {@code values}：第 i 个条目的键和值，没有空洞</li>
+ *   <li>开放寻址哈希表 {@code table}：线性探测，每格存条目下标 + 1，0 表示空</li>
+ * </ul>
+ * 每个条目在稠密数组里占 12 字节（不计扩容余量），在哈希表里占 5～11 字节，没有 HashMap.Node 那样的对象。
+ * 校验位不对或格式不是 ISBN-13 的字符串（例如测试里的 "978-111"）放进一个普通 HashMap，
+ * 行为与原来相同。
+ *
+ * <p>不是线程安全的。
+ */
+public class IsbnCatalog<V> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final long MIN_KEY = 9_780_000_000_000L;
+    private static final long MAX_KEY = 9_800_000_000_000L;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    private int shift = 64 - Integer.numberOfTrailingZeros(table.length);
+
+    private final HashMap<String, V> irregular = new HashMap<>();
+
+    /**
+     * 把 ISBN-13 规范化成 long 键。
+     *
+     * @return 13 位数字、978/979 开头且校验位正确时返回这个 13 位数，否则返回 -1
+     */
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return -1;
+        }
+        long key = 0;
+        int digits = 0;
+        int checksum = 0;
+        for (int i = 0, length = isbn.length(); i < length; i++) {
+            char c = isbn.charAt(i);
+            int digit = c - '0';
+            if (digit >= 0 && digit <= 9) {
+                key = key * 10 + digit;
+                // 权重依次为 1, 3, 1, 3 ...，加上校验位后总和应是 10 的倍数
+                checksum += digit + ((digits & 1) * 2) * digit;
+                digits++;
+            } else if (c != '-' && c != ' ') {
+                return -1;
+            }
+        }
+        // 用范围比较检查 978/979 前缀，避免除法
+        if (digits != 13 || key < MIN_KEY || key >= MAX_KEY || checksum % 10 != 0) {
+            return -1;
+        }
+        return key;
+    }
+
+    public V get(String isbn) {
+        long key = toKey(isbn);
+        if (key < 0) {
+            return isbn == null ? null : irregular.get(isbn);
+        }
+        int index = indexOf(key);
+        return index < 0 ? null : value(index);
+    }
+
+    public boolean containsKey(String isbn) {
+        long key = toKey(isbn);
+        if (key < 0) {
+            return isbn != null && irregular.containsKey(isbn);
+        }
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return 该 ISBN 原来对应的值，没有时返回 null
+     */
+    public V put(String isbn, V value) {
+        long key = toKey(isbn);
+        if (key < 0) {
+            return irregular.put(isbn, value);
+        }
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = value(index);
+            values[index] = value;
+            return previous;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        // 装载因子超过 3/4 时扩容，探测链保持很短
+        if (size * 4L > table.length * 3L) {
+            rehash(table.length * 2);
+        } else {
+            insert(key, size);
+        }
+        return null;
+    }
+
+    /**
+     * @return 被删除的值，没有时返回 null
+     */
+    public V remove(String isbn) {
+        long key = toKey(isbn);
+        if (key < 0) {
+            return isbn == null ? null : irregular.remove(isbn);
+        }
+        int slot = slotOf(key);
+        if (slot < 0) {
+            return null;
+        }
+        int index = table[slot] - 1;
+        V removed = value(index);
+        deleteSlot(slot);
+
+        // 用最后一个条目填补空位，稠密数组保持连续
+        int last = size - 1;
+        if (index != last) {
+            keys[index] = keys[last];
+            values[index] = values[last];
+            table[slotOf(keys[index])] = index + 1;
+        }
+        keys[last] = 0;
+        values[last] = null;
+        size = last;
+        return removed;
+    }
+
+    public int size() {
+        return size + irregular.size();
+    }
+
+    /**
+     * 返回所有值的副本：先是规范化的 ISBN-13 条目，再是其他条目。
+     */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size());
+        for (int i = 0; i < size; i++) {
+            result.add(value(i));
+        }
+        result.addAll(irregular.values());
+        return result;
+    }
+
+    private int indexOf(long key) {
+        int slot = slotOf(key);
+        return slot < 0 ? -1 : table[slot] - 1;
+    }
+
+    private int slotOf(long key) {
+        int mask = table.length - 1;
+        for (int slot = home(key); ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (keys[entry - 1] == key) {
+                return slot;
+            }
+        }
+    }
+
+    private void insert(long key, int entry) {
+        int mask = table.length - 1;
+        int slot = home(key);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    /**
+     * 线性探测的删除：把后面本该更靠前的条目往回挪，不留墓碑。
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = home(keys[table[next] - 1]);
+            // next 的理想位置不在 (hole, next] 区间内时，可以挪到 hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        for (int i = 0; i < size; i++) {
+            insert(keys[i], i + 1);
+        }
+    }
+
+    private int home(long key) {
+        // Fibonacci 哈希：取乘积的高位，连续的 ISBN 也能均匀分布
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index) {
+        return (V) values[index];
+    }
+}
@@ -1,32 +1,34 @@
 package edu.campusflow.library;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.time.LocalDate;
 import java.util.List;
 
 public class LibraryTracker {
-    private final HashMap<String, Book> booksByIsbn;
-    private final ArrayList<BorrowRecord> borrowRecords;
+    private final IsbnCatalog<Book> booksByIsbn;
+    private final BorrowRecordStore borrowRecords;
 
     public LibraryTracker() {
-        booksByIsbn = new HashMap<>();
-        borrowRecords = new ArrayList<>();
+        booksByIsbn = new IsbnCatalog<>();
+        borrowRecords = new BorrowRecordStore();
     }
 
     public void addBook(Book book) {
-        // 待办：检查 null、空 ISBN、重复 ISBN，然后放入 booksByIsbn。
-        throw new UnsupportedOperationException("待办：实现 addBook");
+        if (book == null) {
+            throw new IllegalArgumentException("图书不能为空");
+        }
+        requireIsbn(book.getIsbn());
+        if (booksByIsbn.containsKey(book.getIsbn())) {
+            throw new IllegalArgumentException("ISBN 已存在: " + book.getIsbn());
+        }
+        booksByIsbn.put(book.getIsbn(), book);
     }
 
     public Book findBook(String isbn) {
-        // 待办：使用 HashMap 按 ISBN 做 O(1) 查询。
-        throw new UnsupportedOperationException("待办：实现 findBook");
+        return booksByIsbn.get(isbn);
     }
 
     public List<Book> listAllBooks() {
-        // 待办：返回副本，避免外部代码修改内部 Map。
-        throw new UnsupportedOperationException("待办：实现 listAllBooks");
+        return booksByIsbn.values();
     }
 
     public boolean hasBook(String isbn) {
@@ -34,27 +36,46 @@ public class LibraryTracker {
     }
 
     public void removeBook(String isbn) {
-        // 待办：删除图书，并清理该 ISBN 对应的借阅记录。
-        throw new UnsupportedOperationException("待办：实现 removeBook");
+        Book removed = booksByIsbn.remove(isbn);
+        if (removed != null) {
+            borrowRecords.discard(removed.getIsbn());
+        }
     }
 
     public void borrowBook(String isbn, String borrower) {
-        // 待办：校验参数、确认图书存在，然后新增 BorrowRecord。
-        throw new UnsupportedOperationException("待办：实现 borrowBook");
+        requireIsbn(isbn);
+        requireBorrower(borrower);
+        Book book = booksByIsbn.get(isbn);
+        if (book == null) {
+            throw new IllegalArgumentException("图书不存在: " + isbn);
+        }
+        // 借阅记录统一用图书登记时的 ISBN 写法，"978-7-..." 和 "9787..." 不会变成两条记录
+        borrowRecords.borrow(book.getIsbn(), borrower, LocalDate.now());
     }
 
+    /**
+     * 借阅人当前未归还的记录。只读该借阅人的索引，耗时与结果数量成正比。
+     */
     public List<BorrowRecord> getBorrowRecordsByUser(String borrower) {
-        // 待办：遍历 borrowRecords，返回指定借阅人的记录副本。
-        throw new UnsupportedOperationException("待办：实现 getBorrowRecordsByUser");
+        return borrowRecords.findActiveByBorrower(borrower);
+    }
+
+    /**
+     * 借阅人已归还的记录，按归还顺序排列。
+     */
+    public List<BorrowHistoryEntry> getBorrowHistory(String borrower) {
+        return borrowRecords.findHistoryByBorrower(borrower);
     }
 
     public List<BorrowRecord> getAllBorrowRecords() {
-        return new ArrayList<>(borrowRecords);
+        return borrowRecords.findAllActive();
     }
 
     public void returnBook(String isbn, String borrower) {
-        // 待办：使用 Iterator 安全删除匹配的借阅记录。
-        throw new UnsupportedOperationException("待办：实现 returnBook");
+        requireIsbn(isbn);
+        requireBorrower(borrower);
+        Book book = booksByIsbn.get(isbn);
+        borrowRecords.giveBack(book == null ? isbn : book.getIsbn(), borrower, LocalDate.now());
     }
 
     public int getBookCount() {
@@ -62,6 +83,18 @@ public class LibraryTracker {
     }
 
     public int getBorrowRecordCount() {
-        return borrowRecords.size();
+        return borrowRecords.activeCount();
+    }
+
+    private static void requireIsbn(String isbn) {
+        if (isbn == null || isbn.isBlank()) {
+            throw new IllegalArgumentException("ISBN 不能为空");
+        }
+    }
+
+    private static void requireBorrower(String borrower) {
+        if (borrower == null || borrower.isBlank()) {
+            throw new IllegalArgumentException("借阅人不能为空");
+        }
     }
 }
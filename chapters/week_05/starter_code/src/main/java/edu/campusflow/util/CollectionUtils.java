@@ -1,25 +1,275 @@
 package edu.campusflow.util;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 集合工具方法。
+ *
+ * <p>parallelXxx 版本用 fork/join 把列表按下标切成若干块并行处理，结果与顺序版本完全相同
+ * （包括元素顺序）。列表少于 {@link #PARALLEL_THRESHOLD} 个元素、或者不支持随机访问
+ * （例如 LinkedList）时直接走顺序版本，拆分任务的开销不值得。
+ */
 public class CollectionUtils {
+    /** 元素数低于这个值时，并行版本直接按顺序处理 */
+    public static final int PARALLEL_THRESHOLD = 8_192;
+    /** 每个叶子任务至少处理的元素数 */
+    static final int MIN_CHUNK_SIZE = 1_024;
+    /** 每个工作线程平均分到的块数，块多一些能让先做完的线程窃取别人的任务 */
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** parallelFindFirst 扫描时每隔多少个元素检查一次是否已被取消 */
+    static final int CANCEL_CHECK_INTERVAL = 256;
+
     private CollectionUtils() {
     }
 
     public static <T, K> Map<K, List<T>> groupBy(List<T> list, KeyExtractor<T, K> extractor) {
-        // 待办：遍历 list，用 extractor 提取 key，并把相同 key 的元素放到同一个 List。
-        throw new UnsupportedOperationException("待办：实现 groupBy");
+        Map<K, List<T>> groups = new LinkedHashMap<>();
+        if (list == null) {
+            return groups;
+        }
+        for (T item : list) {
+            groups.computeIfAbsent(extractor.extract(item), k -> new ArrayList<>()).add(item);
+        }
+        return groups;
     }
 
     public static <T> List<T> filter(List<T> list, Predicate<T> predicate) {
-        // 待办：返回所有满足 predicate 的元素；null list 应返回空列表。
-        throw new UnsupportedOperationException("待办：实现 filter");
+        List<T> result = new ArrayList<>();
+        if (list == null) {
+            return result;
+        }
+        for (T item : list) {
+            if (predicate.test(item)) {
+                result.add(item);
+            }
+        }
+        return result;
     }
 
     public static <T> T findFirst(List<T> list, Predicate<T> predicate) {
-        // 待办：返回第一个满足 predicate 的元素；找不到或 list 为 null 时返回 null。
-        throw new UnsupportedOperationException("待办：实现 findFirst");
+        if (list == null) {
+            return null;
+        }
+        for (T item : list) {
+            if (predicate.test(item)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public static <T, K> Map<K, List<T>> parallelGroupBy(List<T> list, KeyExtractor<T, K> extractor) {
+        return parallelGroupBy(list, extractor, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行分组：每个叶子任务在自己的块上建一个局部 Map，最后按块的顺序合并，
+     * 所以每组内的元素顺序与 {@link #groupBy} 相同。
+     */
+    public static <T, K> Map<K, List<T>> parallelGroupBy(List<T> list, KeyExtractor<T, K> extractor,
+                                                         ForkJoinPool pool) {
+        if (!worthSplitting(list)) {
+            return groupBy(list, extractor);
+        }
+        Chunks chunks = Chunks.of(list.size(), pool);
+        @SuppressWarnings("unchecked")
+        Map<K, List<T>>[] partials = new Map[chunks.count];
+        pool.invoke(new ChunkTask(0, chunks.count, chunk -> {
+            Map<K, List<T>> partial = new LinkedHashMap<>();
+            groupRange(list, chunks.from(chunk), chunks.to(chunk), extractor, partial);
+            partials[chunk] = partial;
+        }));
+
+        Map<K, List<T>> groups = partials[0];
+        for (int chunk = 1; chunk < partials.length; chunk++) {
+            for (Map.Entry<K, List<T>> entry : partials[chunk].entrySet()) {
+                List<T> group = groups.get(entry.getKey());
+                if (group == null) {
+                    groups.put(entry.getKey(), entry.getValue());
+                } else {
+                    group.addAll(entry.getValue());
+                }
+            }
+        }
+        return groups;
+    }
+
+    public static <T> List<T> parallelFilter(List<T> list, Predicate<T> predicate) {
+        return parallelFilter(list, predicate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行过滤：每块的结果放进按块编号排列的数组，最后拼接一次，保持原有顺序。
+     */
+    public static <T> List<T> parallelFilter(List<T> list, Predicate<T> predicate, ForkJoinPool pool) {
+        if (!worthSplitting(list)) {
+            return filter(list, predicate);
+        }
+        Chunks chunks = Chunks.of(list.size(), pool);
+        @SuppressWarnings("unchecked")
+        List<T>[] partials = new List[chunks.count];
+        pool.invoke(new ChunkTask(0, chunks.count, chunk -> {
+            List<T> partial = new ArrayList<>();
+            for (int i = chunks.from(chunk), to = chunks.to(chunk); i < to; i++) {
+                T item = list.get(i);
+                if (predicate.test(item)) {
+                    partial.add(item);
+                }
+            }
+            partials[chunk] = partial;
+        }));
+
+        int total = 0;
+        for (List<T> partial : partials) {
+            total += partial.size();
+        }
+        List<T> result = new ArrayList<>(total);
+        for (List<T> partial : partials) {
+            result.addAll(partial);
+        }
+        return result;
+    }
+
+    public static <T> T parallelFindFirst(List<T> list, Predicate<T> predicate) {
+        return parallelFindFirst(list, predicate, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 并行查找下标最小的匹配元素，结果与 {@link #findFirst} 相同。
+     *
+     * <p>所有任务共享目前找到的最小下标。某个块找到匹配后，下标更大的块会被取消：
+     * 还没开始的直接从队列里撤回，正在扫描的每隔 {@link #CANCEL_CHECK_INTERVAL} 个元素
+     * 检查一次，发现自己已经不可能更靠前就停下。
+     */
+    public static <T> T parallelFindFirst(List<T> list, Predicate<T> predicate, ForkJoinPool pool) {
+        if (!worthSplitting(list)) {
+            return findFirst(list, predicate);
+        }
+        Chunks chunks = Chunks.of(list.size(), pool);
+        AtomicInteger firstMatch = new AtomicInteger(Integer.MAX_VALUE);
+        pool.invoke(new FindFirstTask<>(list, predicate, chunks, 0, chunks.count, firstMatch));
+        int index = firstMatch.get();
+        return index == Integer.MAX_VALUE ? null : list.get(index);
+    }
+
+    private static <T, K> void groupRange(List<T> list, int from, int to, KeyExtractor<T, K> extractor,
+                                          Map<K, List<T>> groups) {
+        for (int i = from; i < to; i++) {
+            T item = list.get(i);
+            groups.computeIfAbsent(extractor.extract(item), k -> new ArrayList<>()).add(item);
+        }
+    }
+
+    private static boolean worthSplitting(List<?> list) {
+        return list != null && list.size() >= PARALLEL_THRESHOLD && list instanceof RandomAccess;
+    }
+
+    /**
+     * 把 [0, size) 均匀切成 count 块，第 i 块是 [from(i), to(i))。
+     */
+    private record Chunks(int size, int count) {
+        static Chunks of(int size, ForkJoinPool pool) {
+            int target = Math.max(1, pool.getParallelism() * CHUNKS_PER_THREAD);
+            int count = Math.max(1, Math.min(target, size / MIN_CHUNK_SIZE));
+            return new Chunks(size, count);
+        }
+
+        int from(int chunk) {
+            return (int) ((long) size * chunk / count);
+        }
+
+        int to(int chunk) {
+            return (int) ((long) size * (chunk + 1) / count);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkWork {
+        void run(int chunk);
+    }
+
+    /**
+     * 把块编号区间对半拆分，直到只剩一块时执行 work。
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final ChunkWork work;
+
+        ChunkTask(int lo, int hi, ChunkWork work) {
+            this.lo = lo;
+            this.hi = hi;
+            this.work = work;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                work.run(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(lo, mid, work), new ChunkTask(mid, hi, work));
+        }
+    }
+
+    private static final class FindFirstTask<T> extends RecursiveAction {
+        private final List<T> list;
+        private final Predicate<T> predicate;
+        private final Chunks chunks;
+        private final int lo;
+        private final int hi;
+        private final AtomicInteger firstMatch;
+
+        FindFirstTask(List<T> list, Predicate<T> predicate, Chunks chunks, int lo, int hi,
+                      AtomicInteger firstMatch) {
+            this.list = list;
+            this.predicate = predicate;
+            this.chunks = chunks;
+            this.lo = lo;
+            this.hi = hi;
+            this.firstMatch = firstMatch;
+        }
+
+        @Override
+        protected void compute() {
+            if (chunks.from(lo) >= firstMatch.get()) {
+                return;
+            }
+            if (hi - lo == 1) {
+                scan(chunks.from(lo), chunks.to(lo));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            FindFirstTask<T> right = new FindFirstTask<>(list, predicate, chunks, mid, hi, firstMatch);
+            right.fork();
+            new FindFirstTask<>(list, predicate, chunks, lo, mid, firstMatch).compute();
+            // 左半边已经找到，右半边的结果不可能更靠前：还没被其他线程窃走就直接撤回
+            if (firstMatch.get() < chunks.from(mid) && right.tryUnfork()) {
+                return;
+            }
+            right.join();
+        }
+
+        private void scan(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if ((i - from) % CANCEL_CHECK_INTERVAL == 0 && i >= firstMatch.get()) {
+                    return;
+                }
+                if (predicate.test(list.get(i))) {
+                    // 只在更靠前时写入，多个块同时找到时保留下标最小的
+                    firstMatch.accumulateAndGet(i, Math::min);
+                    return;
+                }
+            }
+        }
     }
 
     @FunctionalInterface
@@ -0,0 +1,53 @@
+package edu.campusflow.library;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BorrowRecordStoreTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void historyShouldKeepDatesAndReturnOrder() {
+        BorrowRecordStore store = new BorrowRecordStore();
+        store.borrow("978-111", "小北", DAY);
+        store.borrow("978-222", "小北", DAY.plusDays(1));
+
+        store.giveBack("978-222", "小北", DAY.plusDays(5));
+        store.giveBack("978-111", "小北", DAY.plusDays(30));
+        store.borrow("978-111", "小北", DAY.plusDays(31));
+        store.giveBack("978-111", "小北", DAY.plusDays(32));
+
+        assertEquals(List.of(
+            new BorrowHistoryEntry("978-222", "小北", DAY.plusDays(1), DAY.plusDays(5)),
+            new BorrowHistoryEntry("978-111", "小北", DAY, DAY.plusDays(30)),
+            new BorrowHistoryEntry("978-111", "小北", DAY.plusDays(31), DAY.plusDays(32))
+        ), store.findHistoryByBorrower("小北"));
+        assertEquals(3, store.historySize());
+    }
+
+    @Test
+    void activeIndexesShouldOnlyHoldUnreturnedLoans() {
+        BorrowRecordStore store = new BorrowRecordStore();
+        for (int round = 0; round < 1_000; round++) {
+            for (int i = 0; i < 10; i++) {
+                store.borrow("978-" + i, "读者" + i, DAY);
+            }
+            for (int i = 0; i < 10; i++) {
+                store.giveBack("978-" + i, "读者" + i, DAY.plusDays(7));
+            }
+        }
+
+        assertEquals(0, store.activeCount());
+        assertTrue(store.findAllActive().isEmpty());
+        assertNull(store.findActive("978-3"));
+        assertTrue(store.findActiveByBorrower("读者3").isEmpty());
+        assertEquals(10_000, store.historySize());
+        assertEquals(1_000, store.findHistoryByBorrower("读者3").size());
+    }
+}
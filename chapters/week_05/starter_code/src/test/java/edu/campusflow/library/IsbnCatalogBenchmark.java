@@ -0,0 +1,110 @@
+package edu.campusflow.library;
+
+import java.lang.ref.Reference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * 目录索引基准：{@code HashMap<String, Book>} 与 {@link IsbnCatalog} 的内存占用和查找耗时。
+ *
+ * <p>文件名不以 Test 结尾，mvn test 不会运行它。运行方式：
+ * <pre>
+ * mvn -q test-compile
+ * java -Xmx3g -cp target/classes:target/test-classes edu.campusflow.library.IsbnCatalogBenchmark
+ * </pre>
+ *
+ * <p>Book 对象和 ISBN 字符串事先建好、两种索引共用，所以测到的只是索引本身的开销。
+ * 内存用 GC 前后的已用堆之差估算，只看数量级。查找用新复制的字符串，
+ * 模拟从请求参数里读到的 ISBN：String 的 hashCode 还没有缓存。
+ */
+public class IsbnCatalogBenchmark {
+    private static final int[] SIZES = {100_000, 1_000_000, 3_000_000};
+    private static final int LOOKUPS = 2_000_000;
+
+    public static void main(String[] args) {
+        System.out.println("=== ISBN 目录索引基准 ===\n");
+        System.out.printf("%10s %16s %16s %16s %16s%n",
+                "图书数", "HashMap(B/本)", "IsbnCatalog(B/本)", "HashMap(ns/次)", "IsbnCatalog(ns/次)");
+        for (int size : SIZES) {
+            Book[] books = new Book[size];
+            for (int i = 0; i < size; i++) {
+                books[i] = new Book("书 " + i, "作者", IsbnCatalogTest.isbn(i * 7L));
+            }
+
+            long mapBytes = footprint(() -> {
+                HashMap<String, Book> map = new HashMap<>();
+                for (Book book : books) {
+                    map.put(book.getIsbn(), book);
+                }
+                return map;
+            });
+            long catalogBytes = footprint(() -> {
+                IsbnCatalog<Book> catalog = new IsbnCatalog<>();
+                for (Book book : books) {
+                    catalog.put(book.getIsbn(), book);
+                }
+                return catalog;
+            });
+
+            HashMap<String, Book> map = new HashMap<>();
+            IsbnCatalog<Book> catalog = new IsbnCatalog<>();
+            for (Book book : books) {
+                map.put(book.getIsbn(), book);
+                catalog.put(book.getIsbn(), book);
+            }
+            double mapNanos = lookupNanos(books, map::get);
+            double catalogNanos = lookupNanos(books, catalog::get);
+
+            System.out.printf("%10d %16.1f %16.1f %16.1f %16.1f%n", size,
+                    (double) mapBytes / size, (double) catalogBytes / size, mapNanos, catalogNanos);
+        }
+    }
+
+    private interface IndexBuilder {
+        Object build();
+    }
+
+    private static long footprint(IndexBuilder builder) {
+        long before = usedHeap();
+        Object index = builder.build();
+        long after = usedHeap();
+        // 保证测量期间索引不会被回收
+        Reference.reachabilityFence(index);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double lookupNanos(Book[] books, Function<String, Book> lookup) {
+        Random random = new Random(42);
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            String[] queries = new String[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                // new String(String) 会复制缓存的 hash，这里从字符数组重新构造
+                queries[i] = new String(books[random.nextInt(books.length)].getIsbn().toCharArray());
+            }
+            int found = 0;
+            long start = System.nanoTime();
+            for (String query : queries) {
+                if (lookup.apply(query) != null) {
+                    found++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (found != LOOKUPS) {
+                throw new IllegalStateException("有 " + (LOOKUPS - found) + " 次没有查到");
+            }
+            best = Math.min(best, (double) elapsed / LOOKUPS);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,105 @@
+package edu.campusflow.library;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsbnCatalogTest {
+
+    @Test
+    void toKeyShouldAcceptValidIsbn13WithSeparators() {
+        assertEquals(9787111547426L, IsbnCatalog.toKey("978-7-111-54742-6"));
+        assertEquals(9787111547426L, IsbnCatalog.toKey("978 7 111 54742 6"));
+        assertEquals(9790260000438L, IsbnCatalog.toKey("9790260000438"));
+    }
+
+    @Test
+    void toKeyShouldRejectInvalidIsbn() {
+        assertEquals(-1, IsbnCatalog.toKey(null));
+        assertEquals(-1, IsbnCatalog.toKey("978-111"));
+        assertEquals(-1, IsbnCatalog.toKey("978-7-111-54742-7"), "校验位错误");
+        assertEquals(-1, IsbnCatalog.toKey("977-7-111-54742-7"), "前缀不是 978/979");
+        assertEquals(-1, IsbnCatalog.toKey("97871115474260"), "14 位");
+        assertEquals(-1, IsbnCatalog.toKey("978-7-111-5474X-6"));
+    }
+
+    @Test
+    void differentSpellingsOfSameIsbnShouldShareEntry() {
+        IsbnCatalog<String> catalog = new IsbnCatalog<>();
+        catalog.put("978-7-111-54742-6", "Java 核心技术");
+
+        assertEquals("Java 核心技术", catalog.get("9787111547426"));
+        assertEquals("Java 核心技术", catalog.put("9787111547426", "Java 核心技术（第 11 版）"));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    void irregularIsbnShouldFallBackToStringKeys() {
+        IsbnCatalog<String> catalog = new IsbnCatalog<>();
+        catalog.put("978-111", "练习用图书");
+
+        assertEquals("练习用图书", catalog.get("978-111"));
+        assertNull(catalog.get("978111"));
+        assertNull(catalog.get(null));
+        assertFalse(catalog.containsKey(null));
+        assertEquals("练习用图书", catalog.remove("978-111"));
+        assertEquals(0, catalog.size());
+    }
+
+    @Test
+    void randomOperationsShouldMatchHashMap() {
+        IsbnCatalog<Integer> catalog = new IsbnCatalog<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 200_000; step++) {
+            // 只用 2000 个 ISBN，保证增删反复命中同一批键，覆盖删除时的回移
+            String isbn = isbn(random.nextInt(2_000));
+            long key = IsbnCatalog.toKey(isbn);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), catalog.remove(isbn));
+            } else {
+                assertEquals(expected.put(key, step), catalog.put(isbn, step));
+            }
+            assertEquals(expected.size(), catalog.size());
+        }
+        for (int i = 0; i < 2_000; i++) {
+            String isbn = isbn(i);
+            assertEquals(expected.get(IsbnCatalog.toKey(isbn)), catalog.get(isbn));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(catalog.values()));
+    }
+
+    @Test
+    void valuesShouldReturnCopy() {
+        IsbnCatalog<String> catalog = new IsbnCatalog<>();
+        catalog.put(isbn(1), "a");
+        catalog.put("978-111", "b");
+
+        List<String> values = catalog.values();
+        values.clear();
+
+        assertEquals(List.of("a", "b"), catalog.values());
+    }
+
+    /**
+     * 生成第 n 个合法的 ISBN-13（978 前缀，自动计算校验位）。
+     */
+    static String isbn(long n) {
+        String body = "978" + String.format("%09d", n);
+        int checksum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = body.charAt(i) - '0';
+            checksum += i % 2 == 0 ? digit : digit * 3;
+        }
+        return body + (10 - checksum % 10) % 10;
+    }
+}
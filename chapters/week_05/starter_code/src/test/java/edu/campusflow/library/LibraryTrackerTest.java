@@ -0,0 +1,119 @@
+package edu.campusflow.library;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LibraryTrackerTest {
+    private LibraryTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new LibraryTracker();
+        tracker.addBook(new Book("Java 核心技术", "Cay Horstmann", "978-111"));
+        tracker.addBook(new Book("Effective Java", "Joshua Bloch", "978-222"));
+        tracker.addBook(new Book("重构", "Martin Fowler", "978-333"));
+    }
+
+    @Test
+    void addBookShouldRejectInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> tracker.addBook(null));
+        assertThrows(IllegalArgumentException.class, () -> tracker.addBook(new Book("无 ISBN", "佚名", " ")));
+        assertThrows(IllegalArgumentException.class, () -> tracker.addBook(new Book("重复", "佚名", "978-111")));
+        assertEquals(3, tracker.getBookCount());
+    }
+
+    @Test
+    void listAllBooksShouldReturnCopy() {
+        List<Book> books = tracker.listAllBooks();
+        books.clear();
+
+        assertEquals(3, tracker.getBookCount());
+        assertEquals("Effective Java", tracker.findBook("978-222").getTitle());
+        assertNull(tracker.findBook("978-999"));
+    }
+
+    @Test
+    void borrowBookShouldIndexRecordByBorrower() {
+        tracker.borrowBook("978-111", "小北");
+        tracker.borrowBook("978-222", "小北");
+        tracker.borrowBook("978-333", "阿码");
+
+        List<BorrowRecord> records = tracker.getBorrowRecordsByUser("小北");
+        assertEquals(2, records.size());
+        assertEquals("978-111", records.get(0).getIsbn());
+        assertEquals("978-222", records.get(1).getIsbn());
+        assertTrue(tracker.getBorrowRecordsByUser("老潘").isEmpty());
+        assertEquals(3, tracker.getBorrowRecordCount());
+    }
+
+    @Test
+    void borrowBookShouldRejectMissingOrBorrowedBook() {
+        tracker.borrowBook("978-111", "小北");
+
+        assertThrows(IllegalArgumentException.class, () -> tracker.borrowBook("978-999", "小北"));
+        assertThrows(IllegalArgumentException.class, () -> tracker.borrowBook("978-222", ""));
+        assertThrows(IllegalStateException.class, () -> tracker.borrowBook("978-111", "阿码"));
+    }
+
+    @Test
+    void returnBookShouldMoveRecordToHistory() {
+        tracker.borrowBook("978-111", "小北");
+        tracker.borrowBook("978-222", "小北");
+
+        tracker.returnBook("978-111", "小北");
+
+        assertEquals(1, tracker.getBorrowRecordCount());
+        assertEquals("978-222", tracker.getBorrowRecordsByUser("小北").get(0).getIsbn());
+        List<BorrowHistoryEntry> history = tracker.getBorrowHistory("小北");
+        assertEquals(1, history.size());
+        assertEquals("978-111", history.get(0).isbn());
+        assertEquals("小北", history.get(0).borrower());
+
+        // 归还后可以被别人再借
+        tracker.borrowBook("978-111", "阿码");
+        assertEquals("阿码", tracker.getAllBorrowRecords().get(1).getBorrower());
+    }
+
+    @Test
+    void returnBookShouldRejectMissingRecord() {
+        tracker.borrowBook("978-111", "小北");
+
+        assertThrows(IllegalStateException.class, () -> tracker.returnBook("978-111", "阿码"));
+        assertThrows(IllegalStateException.class, () -> tracker.returnBook("978-222", "小北"));
+        assertEquals(1, tracker.getBorrowRecordCount());
+    }
+
+    @Test
+    void removeBookShouldDropActiveRecord() {
+        tracker.borrowBook("978-111", "小北");
+        tracker.borrowBook("978-222", "小北");
+
+        tracker.removeBook("978-111");
+
+        assertEquals(2, tracker.getBookCount());
+        assertEquals(1, tracker.getBorrowRecordCount());
+        assertEquals("978-222", tracker.getAllBorrowRecords().get(0).getIsbn());
+        assertTrue(tracker.getBorrowHistory("小北").isEmpty());
+    }
+
+    @Test
+    void isbn13SpellingsShouldReferToSameBook() {
+        tracker.addBook(new Book("Java 编程思想", "Bruce Eckel", "978-7-111-54742-6"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> tracker.addBook(new Book("重复登记", "佚名", "9787111547426")));
+        tracker.borrowBook("9787111547426", "小北");
+        assertEquals("978-7-111-54742-6", tracker.getBorrowRecordsByUser("小北").get(0).getIsbn());
+
+        tracker.returnBook("978 7 111 54742 6", "小北");
+        assertEquals(0, tracker.getBorrowRecordCount());
+        assertEquals("978-7-111-54742-6", tracker.getBorrowHistory("小北").get(0).isbn());
+    }
+}
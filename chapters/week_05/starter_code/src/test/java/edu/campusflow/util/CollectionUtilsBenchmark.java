@@ -0,0 +1,84 @@
+package edu.campusflow.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * 并行集合操作的加速比基准：同一份数据分别在 1、2、4、8、16 个工作线程的 ForkJoinPool 上运行。
+ *
+ * <p>文件名不以 Test 结尾，mvn test 不会运行它。运行方式：
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes edu.campusflow.util.CollectionUtilsBenchmark
+ * </pre>
+ *
+ * <p>加速比以顺序版本为基准。工作线程数超过 CPU 核数时加速比不会再涨，
+ * 多出来的线程只会增加调度开销。
+ */
+public class CollectionUtilsBenchmark {
+    private static final int SIZE = 2_000_000;
+    private static final int[] PARALLELISM = {1, 2, 4, 8, 16};
+    private static final int RUNS = 10;
+
+    /** 模拟报表里的任务：按负责人分组、筛选逾期、查找第一个紧急任务 */
+    private record Task(int id, String owner, int daysOverdue, String title) {
+    }
+
+    public static void main(String[] args) {
+        List<Task> tasks = createTasks();
+        // 紧急任务只出现在列表的最后 1%，findFirst 需要扫描绝大部分数据
+        CollectionUtils.Predicate<Task> urgent = t -> t.id() > SIZE * 99 / 100 && t.title().contains("紧急");
+        CollectionUtils.Predicate<Task> overdue = t -> t.daysOverdue() > 3 && t.title().hashCode() % 3 == 0;
+        CollectionUtils.KeyExtractor<Task, String> owner = Task::owner;
+
+        System.out.println("=== CollectionUtils 并行加速比（" + SIZE / 10_000 + " 万个任务，CPU 核数 "
+                + Runtime.getRuntime().availableProcessors() + "）===\n");
+        double groupBase = time(() -> CollectionUtils.groupBy(tasks, owner));
+        double filterBase = time(() -> CollectionUtils.filter(tasks, overdue));
+        double findBase = time(() -> CollectionUtils.findFirst(tasks, urgent));
+        System.out.printf("%8s %12s %8s %12s %8s %12s %8s%n",
+                "线程数", "groupBy(ms)", "加速比", "filter(ms)", "加速比", "findFirst(ms)", "加速比");
+        System.out.printf("%8s %12.1f %8s %12.1f %8s %12.1f %8s%n",
+                "顺序", groupBase, "1.00x", filterBase, "1.00x", findBase, "1.00x");
+
+        for (int parallelism : PARALLELISM) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                double group = time(() -> CollectionUtils.parallelGroupBy(tasks, owner, pool));
+                double filter = time(() -> CollectionUtils.parallelFilter(tasks, overdue, pool));
+                double find = time(() -> CollectionUtils.parallelFindFirst(tasks, urgent, pool));
+                System.out.printf("%8d %12.1f %7.2fx %12.1f %7.2fx %12.1f %7.2fx%n", parallelism,
+                        group, groupBase / group, filter, filterBase / filter, find, findBase / find);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static List<Task> createTasks() {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            String title = (random.nextInt(1_000) == 0 ? "紧急修复 " : "常规任务 ") + i;
+            tasks.add(new Task(i, "成员" + random.nextInt(500), random.nextInt(10), title));
+        }
+        return tasks;
+    }
+
+    /**
+     * 预热后运行 RUNS 次，返回平均毫秒数。
+     */
+    private static double time(Supplier<Object> operation) {
+        for (int i = 0; i < RUNS / 2; i++) {
+            operation.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            operation.get();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+}
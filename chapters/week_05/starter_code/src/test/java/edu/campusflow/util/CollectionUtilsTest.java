@@ -0,0 +1,120 @@
+package edu.campusflow.util;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionUtilsTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void sequentialOperationsShouldHandleSmallLists() {
+        List<String> words = List.of("apple", "avocado", "banana", "blueberry", "cherry");
+
+        assertEquals(Map.of('a', List.of("apple", "avocado"), 'b', List.of("banana", "blueberry"),
+                'c', List.of("cherry")), CollectionUtils.groupBy(words, w -> w.charAt(0)));
+        assertEquals(List.of("banana", "blueberry"), CollectionUtils.filter(words, w -> w.startsWith("b")));
+        assertEquals("blueberry", CollectionUtils.findFirst(words, w -> w.length() > 6 && w.startsWith("b")));
+        assertNull(CollectionUtils.findFirst(words, String::isEmpty));
+    }
+
+    @Test
+    void nullListShouldGiveEmptyResults() {
+        assertTrue(CollectionUtils.groupBy(null, Object::toString).isEmpty());
+        assertTrue(CollectionUtils.filter(null, item -> true).isEmpty());
+        assertNull(CollectionUtils.findFirst(null, item -> true));
+        assertTrue(CollectionUtils.parallelGroupBy(null, Object::toString, pool).isEmpty());
+        assertTrue(CollectionUtils.parallelFilter(null, item -> true, pool).isEmpty());
+        assertNull(CollectionUtils.parallelFindFirst(null, item -> true, pool));
+    }
+
+    @Test
+    void parallelVariantsShouldMatchSequentialResults() {
+        List<Integer> numbers = randomNumbers(200_000);
+
+        assertEquals(CollectionUtils.filter(numbers, n -> n % 7 == 0),
+                CollectionUtils.parallelFilter(numbers, n -> n % 7 == 0, pool));
+        // LinkedHashMap 的 equals 不比较键的顺序，这里单独比较
+        Map<Integer, List<Integer>> expected = CollectionUtils.groupBy(numbers, n -> n % 100);
+        Map<Integer, List<Integer>> actual = CollectionUtils.parallelGroupBy(numbers, n -> n % 100, pool);
+        assertEquals(expected, actual);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+    }
+
+    @Test
+    void parallelFindFirstShouldReturnLowestIndexMatch() {
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            numbers.add(i);
+        }
+
+        for (int target : new int[] {0, 1_023, 50_000, 99_999}) {
+            // 所有 >= target 的元素都匹配，只有最靠前的那个是正确答案
+            assertEquals(target, CollectionUtils.parallelFindFirst(numbers, n -> n >= target, pool));
+        }
+        assertNull(CollectionUtils.parallelFindFirst(numbers, n -> n < 0, pool));
+    }
+
+    @Test
+    void parallelFindFirstShouldStopOtherChunksAfterEarlyMatch() {
+        List<Integer> numbers = randomNumbers(1_000_000);
+        AtomicInteger tested = new AtomicInteger();
+
+        CollectionUtils.parallelFindFirst(numbers, n -> tested.incrementAndGet() > 0, pool);
+
+        // 第一个元素就匹配；其他块最多扫描到下一次检查取消标记
+        assertTrue(tested.get() <= 4 * CollectionUtils.CANCEL_CHECK_INTERVAL * pool.getParallelism(),
+                "测试了 " + tested.get() + " 个元素");
+    }
+
+    @Test
+    void nonRandomAccessListShouldFallBackToSequential() {
+        List<Integer> numbers = new LinkedList<>(randomNumbers(20_000));
+
+        assertEquals(CollectionUtils.filter(numbers, n -> n % 3 == 0),
+                CollectionUtils.parallelFilter(numbers, n -> n % 3 == 0, pool));
+        assertEquals(CollectionUtils.findFirst(numbers, n -> n > 900),
+                CollectionUtils.parallelFindFirst(numbers, n -> n > 900, pool));
+    }
+
+    @Test
+    void parallelVariantsShouldPropagatePredicateException() {
+        List<Integer> numbers = randomNumbers(50_000);
+
+        assertThrows(IllegalStateException.class, () -> CollectionUtils.parallelFilter(numbers, n -> {
+            throw new IllegalStateException("谓词失败");
+        }, pool));
+    }
+
+    private static List<Integer> randomNumbers(int size) {
+        Random random = new Random(42);
+        List<Integer> numbers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            numbers.add(random.nextInt(1_000));
+        }
+        return numbers;
+    }
+}
@@ -1,17 +1,64 @@
 package com.campusflow;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 图书借阅追踪器
  * 管理图书的添加、查询、借阅和归还操作
+ *
+ * <p>图书存放在 {@link IsbnCatalog} 中，合法的 ISBN-13 按规范化后的数值查找，
+ * 例如 "978-7-111-54742-6" 和 "9787111547426" 指同一本书。
+ *
+ * <p>默认构造的追踪器不是线程安全的。多线程共用时请用 {@link #concurrent()} 创建：
+ * 图书按 ISBN 分到若干分段，每个分段有自己的 IsbnCatalog，并由该分段的锁保护，
+ * 同一个 ISBN 上的查找、添加、移除、借阅、归还都串行执行，不同分段的图书互不等待。Book 对象本身没有加锁，并发模式下判断借阅状态请用
+ * {@link #hasBorrowRecord(String, String)}，不要直接读 findByIsbn 返回的 Book。
  */
 public class LibraryTracker {
+    /** 并发模式默认的锁分段数，ISBN 落到同一分段的概率约为 1/256 */
+    public static final int DEFAULT_LOCK_STRIPES = 256;
 
-    private final Map<String, Book> booksByIsbn;
+    /** 每个分段一个目录，分段的锁就是目录对象本身；非并发模式只有一个分段 */
+    private final IsbnCatalog<Book>[] stripes;
+    private final boolean concurrent;
 
     public LibraryTracker() {
-        this.booksByIsbn = new HashMap<>();
+        this(1, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private LibraryTracker(int lockStripes, boolean concurrent) {
+        // 取 2 的幂，定位分段时用位与代替取模
+        int count = 1;
+        while (count < lockStripes) {
+            count <<= 1;
+        }
+        this.stripes = new IsbnCatalog[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new IsbnCatalog<>();
+        }
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * 创建线程安全的追踪器，使用 {@link #DEFAULT_LOCK_STRIPES} 个锁分段。
+     */
+    public static LibraryTracker concurrent() {
+        return concurrent(DEFAULT_LOCK_STRIPES);
+    }
+
+    /**
+     * 创建线程安全的追踪器。
+     *
+     * @param lockStripes 锁分段数，向上取 2 的幂；1 表示所有图书共用一把锁
+     * @throws IllegalArgumentException 如果 lockStripes 小于 1
+     */
+    public static LibraryTracker concurrent(int lockStripes) {
+        if (lockStripes < 1) {
+            throw new IllegalArgumentException("锁分段数必须大于 0");
+        }
+        return new LibraryTracker(lockStripes, true);
     }
 
     /**
@@ -28,7 +75,7 @@ public class LibraryTracker {
             throw new IllegalArgumentException("ISBN 不能为空");
         }
         // 如果 ISBN 已存在，更新图书信息（覆盖）
-        booksByIsbn.put(book.getIsbn(), book);
+        withBooks(book.getIsbn(), (books, key) -> books.put(key, book.getIsbn(), book));
     }
 
     /**
@@ -42,7 +89,7 @@ public class LibraryTracker {
         if (isbn == null) {
             throw new IllegalArgumentException("ISBN 不能为 null");
         }
-        return booksByIsbn.get(isbn);
+        return withBooks(isbn, (books, key) -> books.get(key, isbn));
     }
 
     /**
@@ -60,15 +107,18 @@ public class LibraryTracker {
             throw new IllegalArgumentException("借阅人不能为空");
         }
 
-        Book book = booksByIsbn.get(isbn);
-        if (book == null) {
-            throw new IllegalArgumentException("图书不存在: " + isbn);
-        }
-        if (book.isBorrowed()) {
-            throw new IllegalArgumentException("图书已被借出: " + isbn);
-        }
-
-        book.markAsBorrowed(borrower);
+        // 检查和修改必须在同一把锁里完成，否则两个线程可能都看到"未借出"
+        withBooks(isbn, (books, key) -> {
+            Book book = books.get(key, isbn);
+            if (book == null) {
+                throw new IllegalArgumentException("图书不存在: " + isbn);
+            }
+            if (book.isBorrowed()) {
+                throw new IllegalArgumentException("图书已被借出: " + isbn);
+            }
+            book.markAsBorrowed(borrower);
+            return null;
+        });
     }
 
     /**
@@ -86,18 +136,20 @@ public class LibraryTracker {
             throw new IllegalArgumentException("借阅人不能为空");
         }
 
-        Book book = booksByIsbn.get(isbn);
-        if (book == null) {
-            throw new IllegalArgumentException("图书不存在: " + isbn);
-        }
-        if (!book.isBorrowed()) {
-            throw new IllegalArgumentException("图书未被借出: " + isbn);
-        }
-        if (!borrower.equals(book.getBorrower())) {
-            throw new IllegalArgumentException("归还人与借阅人不符，借阅人是: " + book.getBorrower());
-        }
-
-        book.markAsReturned();
+        withBooks(isbn, (books, key) -> {
+            Book book = books.get(key, isbn);
+            if (book == null) {
+                throw new IllegalArgumentException("图书不存在: " + isbn);
+            }
+            if (!book.isBorrowed()) {
+                throw new IllegalArgumentException("图书未被借出: " + isbn);
+            }
+            if (!borrower.equals(book.getBorrower())) {
+                throw new IllegalArgumentException("归还人与借阅人不符，借阅人是: " + book.getBorrower());
+            }
+            book.markAsReturned();
+            return null;
+        });
     }
 
     /**
@@ -111,11 +163,14 @@ public class LibraryTracker {
         if (isbn == null || borrower == null) {
             return false;
         }
-        Book book = booksByIsbn.get(isbn);
-        if (book == null) {
-            return false;
-        }
-        return book.isBorrowed() && borrower.equals(book.getBorrower());
+        // 借阅状态由两个字段组成，在锁内读取才能看到一致的值
+        return withBooks(isbn, (books, key) -> {
+            Book book = books.get(key, isbn);
+            if (book == null) {
+                return false;
+            }
+            return book.isBorrowed() && borrower.equals(book.getBorrower());
+        });
     }
 
     /**
@@ -124,7 +179,11 @@ public class LibraryTracker {
      * @return 所有图书的列表
      */
     public List<Book> listAllBooks() {
-        return new ArrayList<>(booksByIsbn.values());
+        List<Book> result = new ArrayList<>();
+        for (IsbnCatalog<Book> books : stripes) {
+            result.addAll(withStripe(books, IsbnCatalog::values));
+        }
+        return result;
     }
 
     /**
@@ -137,7 +196,7 @@ public class LibraryTracker {
         if (isbn == null || isbn.trim().isEmpty()) {
             return false;
         }
-        return booksByIsbn.remove(isbn) != null;
+        return withBooks(isbn, (books, key) -> books.remove(key, isbn) != null);
     }
 
     /**
@@ -146,6 +205,48 @@ public class LibraryTracker {
      * @return 图书总数
      */
     public int getBookCount() {
-        return booksByIsbn.size();
+        int count = 0;
+        for (IsbnCatalog<Book> books : stripes) {
+            count += withStripe(books, IsbnCatalog::size);
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface StripeAction<T> {
+        T apply(IsbnCatalog<Book> books, long key);
+    }
+
+    /**
+     * 在 ISBN 所在分段的目录上执行 action；并发模式下持有该分段的锁。
+     * ISBN 只在这里规范化一次，key 同时用来选分段和在目录里查找。
+     */
+    private <T> T withBooks(String isbn, StripeAction<T> action) {
+        long key = IsbnCatalog.toKey(isbn);
+        IsbnCatalog<Book> books = stripes[stripeOf(key, isbn)];
+        if (!concurrent) {
+            return action.apply(books, key);
+        }
+        synchronized (books) {
+            return action.apply(books, key);
+        }
+    }
+
+    private <T> T withStripe(IsbnCatalog<Book> books, Function<IsbnCatalog<Book>, T> action) {
+        if (!concurrent) {
+            return action.apply(books);
+        }
+        synchronized (books) {
+            return action.apply(books);
+        }
+    }
+
+    private int stripeOf(long key, String isbn) {
+        if (stripes.length == 1) {
+            return 0;
+        }
+        // 按规范化后的键分段，同一 ISBN 的不同写法必须落在同一个分段
+        int hash = key >= 0 ? Long.hashCode(key) : isbn.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
     }
 }
@@ -0,0 +1,72 @@
+package com.campusflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsbnCatalogTest {
+
+    @Test
+    void shouldNormalizeValidIsbn13AndRejectOthers() {
+        assertEquals(9787111547426L, IsbnCatalog.toKey("978-7-111-54742-6"));
+        assertEquals(9787111547426L, IsbnCatalog.toKey("9787111547426"));
+        assertEquals(-1, IsbnCatalog.toKey("978-7-111-54742-7"));
+        assertEquals(-1, IsbnCatalog.toKey("978-111"));
+        assertEquals(-1, IsbnCatalog.toKey(null));
+    }
+
+    @Test
+    void randomOperationsShouldMatchHashMap() {
+        IsbnCatalog<Integer> catalog = new IsbnCatalog<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int step = 0; step < 100_000; step++) {
+            String isbn = isbn(random.nextInt(1_000));
+            long key = IsbnCatalog.toKey(isbn);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), catalog.remove(isbn));
+            } else {
+                assertEquals(expected.put(key, step), catalog.put(isbn, step));
+            }
+        }
+        assertEquals(expected.size(), catalog.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(expected.get(IsbnCatalog.toKey(isbn(i))), catalog.get(isbn(i)));
+        }
+    }
+
+    @Test
+    void trackerShouldTreatIsbnSpellingsAsSameBookInBothModes() {
+        for (LibraryTracker tracker : new LibraryTracker[] {new LibraryTracker(), LibraryTracker.concurrent()}) {
+            tracker.addBook(new Book("Java 编程思想", "Bruce Eckel", "978-7-111-54742-6"));
+            tracker.addBook(new Book("Java 核心技术", "Cay Horstmann", "978-111"));
+
+            tracker.borrowBook("9787111547426", "小北");
+
+            assertTrue(tracker.hasBorrowRecord("978 7 111 54742 6", "小北"));
+            assertEquals("Java 核心技术", tracker.findByIsbn("978-111").getTitle());
+            assertNull(tracker.findByIsbn("978111"));
+            assertTrue(tracker.removeBook("9787111547426"));
+            assertEquals(1, tracker.getBookCount());
+        }
+    }
+
+    /**
+     * 生成第 n 个合法的 ISBN-13（978 前缀，自动计算校验位）。
+     */
+    private static String isbn(long n) {
+        String body = "978" + String.format("%09d", n);
+        int checksum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = body.charAt(i) - '0';
+            checksum += i % 2 == 0 ? digit : digit * 3;
+        }
+        return body + (10 - checksum % 10) % 10;
+    }
+}
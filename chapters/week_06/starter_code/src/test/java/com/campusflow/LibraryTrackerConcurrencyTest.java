@@ -0,0 +1,260 @@
+package com.campusflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 并发模式的压力测试：多个线程同时借同一批书，每本书只能借出一次。
+ */
+class LibraryTrackerConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int BOOKS = 200;
+    private static final int ROUNDS = 50;
+
+    @Test
+    void eachBookShouldBeBorrowedExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            LibraryTracker tracker = LibraryTracker.concurrent();
+            for (int i = 0; i < BOOKS; i++) {
+                tracker.addBook(new Book("书 " + i, "作者", "978-" + i));
+            }
+            AtomicIntegerArray winners = new AtomicIntegerArray(BOOKS);
+
+            runConcurrently(reader -> {
+                for (int i = 0; i < BOOKS; i++) {
+                    try {
+                        tracker.borrowBook("978-" + i, "读者" + reader);
+                        winners.incrementAndGet(i);
+                    } catch (IllegalArgumentException alreadyBorrowed) {
+                        // 别的线程先借到了
+                    }
+                }
+            });
+
+            for (int i = 0; i < BOOKS; i++) {
+                assertEquals(1, winners.get(i), "978-" + i + " 被借出的次数");
+                String borrower = tracker.findByIsbn("978-" + i).getBorrower();
+                assertTrue(tracker.hasBorrowRecord("978-" + i, borrower));
+            }
+        }
+    }
+
+    @Test
+    void borrowAndReturnCyclesShouldKeepStateConsistent() throws Exception {
+        LibraryTracker tracker = LibraryTracker.concurrent(4);
+        for (int i = 0; i < 16; i++) {
+            tracker.addBook(new Book("书 " + i, "作者", "978-" + i));
+        }
+        // 同一时刻每本书最多一个持有者；持有者一定能把书还回去
+        AtomicIntegerArray holders = new AtomicIntegerArray(16);
+
+        runConcurrently(reader -> {
+            String name = "读者" + reader;
+            for (int step = 0; step < 20_000; step++) {
+                int book = (step * 7 + reader) % 16;
+                String isbn = "978-" + book;
+                try {
+                    tracker.borrowBook(isbn, name);
+                } catch (IllegalArgumentException alreadyBorrowed) {
+                    continue;
+                }
+                if (holders.incrementAndGet(book) != 1) {
+                    throw new AssertionError(isbn + " 同时有两个借阅人");
+                }
+                if (!tracker.hasBorrowRecord(isbn, name)) {
+                    throw new AssertionError(isbn + " 借阅记录丢失");
+                }
+                holders.decrementAndGet(book);
+                tracker.returnBook(isbn, name);
+            }
+        });
+
+        for (int i = 0; i < 16; i++) {
+            assertFalse(tracker.findByIsbn("978-" + i).isBorrowed());
+        }
+    }
+
+    /**
+     * 合法的 ISBN-13 走 IsbnCatalog 的开放寻址表而不是 HashMap 后备。分段只有 2 个，
+     * 每段的表要在并发添加中多次扩容，探测链也更长；一半线程用带连字符的写法，另一半用纯数字。
+     */
+    @Test
+    void eachIsbn13BookShouldBeBorrowedExactlyOnceAcrossSpellings() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            LibraryTracker tracker = LibraryTracker.concurrent(2);
+            String[] isbns = new String[BOOKS];
+            for (int i = 0; i < BOOKS; i++) {
+                isbns[i] = isbn(round * BOOKS + i);
+            }
+
+            runConcurrently(writer -> {
+                for (int i = writer; i < BOOKS; i += THREADS) {
+                    String spelling = i % 2 == 0 ? hyphenated(isbns[i]) : isbns[i];
+                    tracker.addBook(new Book("书 " + i, "作者", spelling));
+                }
+            });
+            assertEquals(BOOKS, tracker.getBookCount());
+
+            AtomicIntegerArray winners = new AtomicIntegerArray(BOOKS);
+            runConcurrently(reader -> {
+                for (int i = 0; i < BOOKS; i++) {
+                    String spelling = (i + reader) % 2 == 0 ? hyphenated(isbns[i]) : isbns[i];
+                    try {
+                        tracker.borrowBook(spelling, "读者" + reader);
+                        winners.incrementAndGet(i);
+                    } catch (IllegalArgumentException e) {
+                        assertAlreadyBorrowed(e);
+                    }
+                }
+            });
+
+            for (int i = 0; i < BOOKS; i++) {
+                assertEquals(1, winners.get(i), isbns[i] + " 被借出的次数");
+                Book book = tracker.findByIsbn(isbns[i]);
+                assertSame(book, tracker.findByIsbn(hyphenated(isbns[i])));
+                assertTrue(tracker.hasBorrowRecord(hyphenated(isbns[i]), book.getBorrower()));
+            }
+        }
+    }
+
+    /**
+     * 借还循环的同时，每个线程在同样的分段里反复添加、删除自己的临时图书：
+     * 删除时的回移如果弄断了探测链，常驻图书就会查不到。
+     */
+    @Test
+    void isbn13BorrowReturnCyclesShouldSurviveConcurrentRemovals() throws Exception {
+        LibraryTracker tracker = LibraryTracker.concurrent(2);
+        String[] isbns = new String[16];
+        for (int i = 0; i < 16; i++) {
+            isbns[i] = isbn(i * 7_919L);
+            tracker.addBook(new Book("书 " + i, "作者", i % 2 == 0 ? isbns[i] : hyphenated(isbns[i])));
+        }
+        AtomicIntegerArray holders = new AtomicIntegerArray(16);
+
+        runConcurrently(reader -> {
+            String name = "读者" + reader;
+            // 步数是 128 的整数倍：最后一轮添加的临时图书都会被删掉
+            for (int step = 0; step < 160 * 128; step++) {
+                String temporary = isbn(1_000_000L + reader * 64L + step % 64);
+                if (step % 128 < 64) {
+                    tracker.addBook(new Book("临时", "作者", hyphenated(temporary)));
+                } else if (!tracker.removeBook(temporary)) {
+                    throw new AssertionError(temporary + " 删除失败");
+                }
+
+                int book = (step * 7 + reader) % 16;
+                String isbn = (step + reader) % 2 == 0 ? isbns[book] : hyphenated(isbns[book]);
+                try {
+                    tracker.borrowBook(isbn, name);
+                } catch (IllegalArgumentException e) {
+                    assertAlreadyBorrowed(e);
+                    continue;
+                }
+                if (holders.incrementAndGet(book) != 1) {
+                    throw new AssertionError(isbn + " 同时有两个借阅人");
+                }
+                if (!tracker.hasBorrowRecord(isbns[book], name)) {
+                    throw new AssertionError(isbn + " 借阅记录丢失");
+                }
+                holders.decrementAndGet(book);
+                tracker.returnBook(hyphenated(isbns[book]), name);
+            }
+        });
+
+        assertEquals(16, tracker.getBookCount());
+        for (String isbn : isbns) {
+            assertFalse(tracker.findByIsbn(isbn).isBorrowed());
+        }
+    }
+
+    @Test
+    void concurrentAddsShouldNotLoseBooks() throws Exception {
+        LibraryTracker tracker = LibraryTracker.concurrent();
+
+        runConcurrently(writer -> {
+            for (int i = 0; i < 5_000; i++) {
+                tracker.addBook(new Book("书", "作者", writer + "-" + i));
+            }
+        });
+
+        assertEquals(THREADS * 5_000, tracker.getBookCount());
+    }
+
+    @Test
+    void concurrentShouldRejectNonPositiveStripes() {
+        assertThrows(IllegalArgumentException.class, () -> LibraryTracker.concurrent(0));
+    }
+
+    private static void assertAlreadyBorrowed(IllegalArgumentException e) {
+        // 只允许"别的线程先借到了"；图书不存在说明目录丢了条目
+        if (!e.getMessage().startsWith("图书已被借出")) {
+            throw e;
+        }
+    }
+
+    /**
+     * 第 n 个 978 开头、校验位正确的 ISBN-13（纯数字写法）。
+     */
+    private static String isbn(long n) {
+        String body = "978" + String.format("%09d", n);
+        int checksum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = body.charAt(i) - '0';
+            checksum += i % 2 == 0 ? digit : digit * 3;
+        }
+        return body + (10 - checksum % 10) % 10;
+    }
+
+    /**
+     * 同一个 ISBN 带连字符的写法，例如 978-7-111-54742-6。
+     */
+    private static String hyphenated(String isbn) {
+        return isbn.substring(0, 3) + "-" + isbn.substring(3, 4) + "-" + isbn.substring(4, 7) + "-"
+            + isbn.substring(7, 12) + "-" + isbn.substring(12);
+    }
+
+    private interface Worker {
+        void run(int index) throws Exception;
+    }
+
+    /**
+     * 启动 THREADS 个线程，等全部就绪后同时放行，并把线程中的异常抛回测试线程。
+     */
+    private static void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch ready = new CountDownLatch(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int index = t;
+                futures.add(pool.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    worker.run(index);
+                    return null;
+                }));
+            }
+            ready.await();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.campusflow;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发模式吞吐量基准：1 到 32 个线程反复借书、查记录、还书。
+ *
+ * <p>对比两种配置：只有 1 个锁分段（相当于整个追踪器一把锁）和默认的 256 个分段。
+ * 文件名不以 Test 结尾，mvn test 不会运行它。运行方式：
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes com.campusflow.LibraryTrackerThroughputBenchmark
+ * </pre>
+ *
+ * <p>分段锁的收益取决于 CPU 核数：线程数超过核数后，两种配置都只是在轮流使用 CPU。
+ */
+public class LibraryTrackerThroughputBenchmark {
+    private static final int BOOKS = 10_000;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 2_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== LibraryTracker 并发吞吐量（CPU 核数 "
+                + Runtime.getRuntime().availableProcessors() + "）===\n");
+        System.out.printf("%6s %18s %18s %8s%n", "线程数", "1 个分段(万次/秒)", "256 个分段(万次/秒)", "提升");
+        for (int threads : THREAD_COUNTS) {
+            double global = run(LibraryTracker.concurrent(1), threads);
+            double striped = run(LibraryTracker.concurrent(), threads);
+            System.out.printf("%6d %18.1f %18.1f %7.2fx%n", threads, global / 10_000, striped / 10_000, striped / global);
+        }
+    }
+
+    /**
+     * 返回每秒完成的操作数（一次借书、查记录、还书算 3 次操作）。
+     */
+    private static double run(LibraryTracker tracker, int threads) throws InterruptedException {
+        String[] isbns = new String[BOOKS];
+        for (int i = 0; i < BOOKS; i++) {
+            isbns[i] = isbn(i);
+            tracker.addBook(new Book("书 " + i, "作者", isbns[i]));
+        }
+
+        AtomicBoolean measuring = new AtomicBoolean(false);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String name = "读者" + t;
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    String isbn = isbns[random.nextInt(BOOKS)];
+                    try {
+                        tracker.borrowBook(isbn, name);
+                    } catch (IllegalArgumentException alreadyBorrowed) {
+                        continue;
+                    }
+                    tracker.hasBorrowRecord(isbn, name);
+                    tracker.returnBook(isbn, name);
+                    if (measuring.get()) {
+                        operations.add(3);
+                    }
+                }
+                done.countDown();
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        Thread.sleep(WARMUP_MILLIS);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(MEASURE_MILLIS);
+        long count = operations.sum();
+        long elapsed = System.nanoTime() - start;
+        running.set(false);
+        done.await();
+        return count * 1e9 / elapsed;
+    }
+
+    /**
+     * 生成第 n 个合法的 ISBN-13（978 前缀，自动计算校验位）。
+     */
+    private static String isbn(int n) {
+        String body = "978" + String.format("%09d", n);
+        int checksum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = body.charAt(i) - '0';
+            checksum += i % 2 == 0 ? digit : digit * 3;
+        }
+        return body + (10 - checksum % 10) % 10;
+    }
+}
@@ -2,20 +2,34 @@
  * 示例：数据库 Schema 设计和初始化脚本
  * 运行方式：mvn -q -f chapters/week_07/starter_code/pom.xml exec:java \
  *          -Dexec.mainClass="examples._05_schema_migration"
- * 预期输出：
- *   初始化数据库 schema...
- *   插入初始数据...
- *   数据库初始化完成
+ * 预期输出（第一次运行）：
+ *   应用迁移 V1 create_tables
+ *   应用迁移 V2 seed_data
+ *   应用迁移 V3 active_loan_indexes
+ *   ✓ 数据库初始化完成，当前版本 V3
  *   图书数量: 3
  *   借阅者数量: 2
+ * 再次运行时所有迁移都会被跳过，直接输出"当前版本 V3"。
  */
 package examples;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * 演示数据库 Schema 设计和初始化脚本执行
@@ -41,6 +55,9 @@ public class _05_schema_migration {
         // 验证数据
         verifyData();
 
+        // 校验已应用迁移的脚本没有被改过（会重新读取脚本，只在需要时调用）
+        initializer.validate();
+
         System.out.println("\n=== Schema 版本管理建议 ===");
         System.out.println("生产环境使用 Flyway 或 Liquibase 管理迁移：");
         System.out.println("  db/migration/");
@@ -78,28 +95,32 @@ public class _05_schema_migration {
 /**
  * 数据库初始化器
  *
- * <p>执行 schema.sql 和 data.sql 初始化数据库
+ * <p>把 schema 和初始数据登记为两个有版本号的迁移，交给 MigrationRunner 执行。
+ * 脚本用 Supplier 提供：已经应用过的迁移不会再读取脚本。
  */
 class DatabaseInitializer {
-    private final String url;
+    private final MigrationRunner runner;
 
     public DatabaseInitializer(String url) {
-        this.url = url;
+        this.runner = new MigrationRunner(url, List.of(
+            new Migration(1, "create_tables", DatabaseInitializer::schemaScript),
+            new Migration(2, "seed_data", DatabaseInitializer::dataScript),
+            new Migration(3, "active_loan_indexes", DatabaseInitializer::activeLoanIndexScript)
+        ));
     }
 
     public void initialize() {
-        System.out.println("初始化数据库 schema...");
-        executeSchema();
-
-        System.out.println("插入初始数据...");
-        executeData();
+        int version = runner.migrate();
+        System.out.println("✓ 数据库初始化完成，当前版本 V" + version + "\n");
+    }
 
-        System.out.println("✓ 数据库初始化完成\n");
+    public void validate() {
+        runner.validate();
     }
 
-    private void executeSchema() {
+    private static String schemaScript() {
         // Schema 定义：表结构
-        String schemaSql = """
+        return """
             -- 图书表
             CREATE TABLE IF NOT EXISTS books (
                 isbn TEXT PRIMARY KEY,
@@ -130,13 +151,11 @@ class DatabaseInitializer {
             CREATE INDEX IF NOT EXISTS idx_loans_book ON loans(book_isbn);
             CREATE INDEX IF NOT EXISTS idx_loans_borrower ON loans(borrower_id);
             """;
-
-        executeScript(schemaSql);
     }
 
-    private void executeData() {
+    private static String dataScript() {
         // 初始数据
-        String dataSql = """
+        return """
             -- 初始图书数据
             INSERT OR IGNORE INTO books (isbn, title, author) VALUES
                 ('978-0134685991', 'Effective Java', 'Joshua Bloch'),
@@ -148,25 +167,245 @@ class DatabaseInitializer {
                 (1, '张三', 'zhangsan@example.com'),
                 (2, '李四', 'lisi@example.com');
             """;
+    }
+
+    private static String activeLoanIndexScript() {
+        // 部分索引（partial index）只包含 return_date IS NULL 的行，也就是未归还的借阅：
+        // 历史记录再多，索引大小也只和当前借出的数量有关
+        return """
+            -- 同一本书最多一条未归还记录：数据库层面杜绝重复借出
+            CREATE UNIQUE INDEX IF NOT EXISTS idx_loans_active_book
+                ON loans(book_isbn) WHERE return_date IS NULL;
 
-        executeScript(dataSql);
+            -- "某借阅者当前借了哪些书"：WHERE、ORDER BY 和 SELECT 的列都在索引里，不用回表。
+            -- return_date 在这些行里恒为 NULL，但查询条件引用了它，SQLite 要求它也在索引中才算覆盖
+            CREATE INDEX IF NOT EXISTS idx_loans_active_borrower
+                ON loans(borrower_id, borrow_date, book_isbn, return_date) WHERE return_date IS NULL;
+            """;
     }
+}
 
-    private void executeScript(String sql) {
-        try (Connection conn = DriverManager.getConnection(url);
-             Statement stmt = conn.createStatement()) {
+/**
+ * 一个有版本号的迁移。脚本延迟读取，已应用的迁移不需要加载脚本内容。
+ */
+record Migration(int version, String description, Supplier<String> script) {
+    Migration {
+        if (version < 1) {
+            throw new IllegalArgumentException("迁移版本号必须大于 0: " + version);
+        }
+        if (description == null || description.isBlank()) {
+            throw new IllegalArgumentException("迁移描述不能为空");
+        }
+    }
+}
+
+/**
+ * 迁移执行器（Flyway 的极简版本）
+ *
+ * <p>原来的 executeScript 按 ";" 切分、每条语句各自自动提交：字符串里的分号会切坏语句，
+ * 中途失败会留下半套 schema，大量 INSERT 时每条语句都是一次提交。这里改为：
+ * <ul>
+ *   <li>SqlScriptParser 正确跳过字符串、引号标识符和注释里的分号</li>
+ *   <li>每个迁移在一个事务里用 addBatch/executeBatch 执行，失败整体回滚</li>
+ *   <li>版本号、描述和脚本的 SHA-256 校验和写入 schema_version 表，与迁移在同一事务提交</li>
+ *   <li>migrate 只读 schema_version 判断哪些迁移已应用，不重新读取脚本</li>
+ * </ul>
+ */
+class MigrationRunner {
+    private static final String CREATE_METADATA_TABLE = """
+        CREATE TABLE IF NOT EXISTS schema_version (
+            version INTEGER PRIMARY KEY,
+            description TEXT NOT NULL,
+            checksum TEXT NOT NULL,
+            applied_at TEXT NOT NULL
+        )""";
+
+    private final String url;
+    private final List<Migration> migrations;
 
-            // 分割并执行每条语句
-            for (String statement : sql.split(";")) {
-                String trimmed = statement.trim();
-                if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
-                    stmt.execute(trimmed);
+    public MigrationRunner(String url, List<Migration> migrations) {
+        this.url = url;
+        this.migrations = migrations.stream()
+            .sorted(Comparator.comparingInt(Migration::version))
+            .toList();
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i).version() == this.migrations.get(i - 1).version()) {
+                throw new IllegalArgumentException("迁移版本号重复: V" + this.migrations.get(i).version());
+            }
+        }
+    }
+
+    /**
+     * 按版本号顺序应用尚未执行的迁移，返回当前 schema 版本（没有任何迁移时为 0）。
+     */
+    public int migrate() {
+        try (Connection conn = DriverManager.getConnection(url)) {
+            TreeMap<Integer, String> applied = loadApplied(conn);
+            int current = applied.isEmpty() ? 0 : applied.lastKey();
+
+            for (Migration migration : migrations) {
+                if (applied.containsKey(migration.version())) {
+                    continue;
+                }
+                if (migration.version() < current) {
+                    throw new IllegalStateException("迁移 V" + migration.version()
+                        + " 早于已应用的 V" + current + "，请改用新的版本号");
                 }
+                apply(conn, migration);
+                current = migration.version();
             }
+            return current;
+        } catch (SQLException e) {
+            throw new RuntimeException("执行数据库迁移失败: " + e.getMessage(), e);
+        }
+    }
 
+    /**
+     * 重新读取已应用迁移的脚本，检查校验和是否与记录一致。已应用的脚本不应再修改，
+     * 需要改 schema 时应该新增迁移。
+     */
+    public void validate() {
+        try (Connection conn = DriverManager.getConnection(url)) {
+            Map<Integer, String> applied = loadApplied(conn);
+            for (Migration migration : migrations) {
+                String recorded = applied.get(migration.version());
+                if (recorded != null && !recorded.equals(checksum(migration.script().get()))) {
+                    throw new IllegalStateException("迁移 V" + migration.version()
+                        + " 的脚本在应用后被修改过（校验和不一致）");
+                }
+            }
         } catch (SQLException e) {
-            throw new RuntimeException("执行 SQL 脚本失败: " + e.getMessage(), e);
+            throw new RuntimeException("校验数据库迁移失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static TreeMap<Integer, String> loadApplied(Connection conn) throws SQLException {
+        TreeMap<Integer, String> applied = new TreeMap<>();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_METADATA_TABLE);
+            try (ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version")) {
+                while (rs.next()) {
+                    applied.put(rs.getInt("version"), rs.getString("checksum"));
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        System.out.println("应用迁移 V" + migration.version() + " " + migration.description());
+        String script = migration.script().get();
+        List<String> statements = SqlScriptParser.split(script);
+
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement();
+             PreparedStatement record = conn.prepareStatement(
+                 "INSERT INTO schema_version (version, description, checksum, applied_at) VALUES (?, ?, ?, ?)")) {
+            for (String sql : statements) {
+                stmt.addBatch(sql);
+            }
+            stmt.executeBatch();
+
+            record.setInt(1, migration.version());
+            record.setString(2, migration.description());
+            record.setString(3, checksum(script));
+            record.setString(4, Instant.now().toString());
+            record.executeUpdate();
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("迁移 V" + migration.version() + " 失败，已回滚: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    static String checksum(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JDK 缺少 SHA-256", e);
+        }
+    }
+}
+
+/**
+ * SQL 脚本切分器
+ *
+ * <p>逐字符扫描，只有不在字符串（'...'）、引号标识符（"..."）和注释（-- 与 /* *&#47;）里的分号
+ * 才是语句分隔符。注释不会出现在结果中；'' 是字符串内转义的单引号。
+ */
+final class SqlScriptParser {
+    private SqlScriptParser() {
+    }
+
+    static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int length = script.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = script.charAt(i);
+            char next = i + 1 < length ? script.charAt(i + 1) : '\0';
+
+            if (c == '-' && next == '-') {
+                // 行注释：跳到行尾，保留换行
+                while (i < length && script.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int close = script.indexOf("*/", i + 2);
+                if (close < 0) {
+                    throw new IllegalArgumentException("块注释没有结束: 位置 " + i);
+                }
+                current.append(' ');
+                i = close + 2;
+            } else if (c == '\'' || c == '"') {
+                i = copyQuoted(script, i, current);
+            } else if (c == ';') {
+                addIfNotBlank(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addIfNotBlank(statements, current);
+        return statements;
+    }
+
+    /**
+     * 原样复制一段引号内容（含引号），返回结束引号之后的位置。连续两个引号表示转义。
+     */
+    private static int copyQuoted(String script, int start, StringBuilder out) {
+        char quote = script.charAt(start);
+        out.append(quote);
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            out.append(c);
+            i++;
+            if (c == quote) {
+                if (i < script.length() && script.charAt(i) == quote) {
+                    out.append(quote);
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("引号没有结束: 位置 " + start);
+    }
+
+    private static void addIfNotBlank(List<String> statements, StringBuilder current) {
+        String sql = current.toString().strip();
+        if (!sql.isEmpty()) {
+            statements.add(sql);
         }
+        current.setLength(0);
     }
 }
 
@@ -184,6 +423,7 @@ class DatabaseInitializer {
  *
  * 3. 索引设计
  *    - 外键字段自动查询频繁，加索引
+ *    - 只查一部分行的条件（如未归还的借阅）用部分索引，索引更小
  *    - 避免过度索引（写操作变慢）
  *
  * 4. 规范化（Normalization）
@@ -193,5 +433,6 @@ class DatabaseInitializer {
  * 5. Schema 迁移策略
  *    - 开发环境：删除重建（简单）
  *    - 生产环境：增量迁移（安全）
- *    - 使用 Flyway/Liquibase 管理版本
+ *    - 每个迁移一个事务，版本和校验和记在 schema_version 表（本例的 MigrationRunner）
+ *    - 真实项目使用 Flyway/Liquibase 管理版本
  */
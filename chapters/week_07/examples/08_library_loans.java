@@ -0,0 +1,220 @@
+/*
+ * 示例：原子化的借书 / 还书事务
+ * 运行方式：与 05_schema_migration.java 一起编译（复用其中的 DatabaseInitializer 建表），
+ *          mvn -q -f chapters/week_07/starter_code/pom.xml exec:java \
+ *          -Dexec.mainClass="examples._08_library_loans"
+ * 预期输出：
+ *   张三 借 Effective Java: 成功
+ *   李四 借 Effective Java: 已被借出
+ *   张三 当前借阅: [978-0134685991]
+ *   查询计划: SEARCH loans USING COVERING INDEX idx_loans_active_borrower (borrower_id=?)
+ *   张三 还 Effective Java: 成功
+ *   李四 借 Effective Java: 成功
+ */
+package examples;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 演示借书竞态及其修复
+ *
+ * <p>有竞态的写法是"先查再改"：
+ * <pre>
+ * SELECT available FROM books WHERE isbn = ?      -- 两个线程都读到 1
+ * INSERT INTO loans ...                           -- 两个线程都插入，同一本书被借出两次
+ * UPDATE books SET available = 0 WHERE isbn = ?
+ * </pre>
+ * LoanService 把判断放进 UPDATE 的 WHERE 条件里，由数据库保证只有一个事务能把 available 从 1 改成 0。
+ */
+public class _08_library_loans {
+
+    private static final String DB_URL = "jdbc:sqlite:library_schema.db";
+
+    public static void main(String[] args) throws SQLException {
+        new DatabaseInitializer(DB_URL).initialize();
+        LoanService loans = new LoanService(DB_URL);
+        String isbn = "978-0134685991";
+
+        // 演示可以重复运行：先把这本书还回去
+        loans.returnBook(isbn);
+
+        System.out.println("张三 借 Effective Java: " + describe(loans.borrow(isbn, 1)));
+        System.out.println("李四 借 Effective Java: " + describe(loans.borrow(isbn, 2)));
+        System.out.println("张三 当前借阅: " + loans.activeLoans(1).stream().map(ActiveLoan::bookIsbn).toList());
+        System.out.println("查询计划: " + loans.explainActiveLoans());
+        System.out.println("张三 还 Effective Java: " + describe(loans.returnBook(isbn)));
+        System.out.println("李四 借 Effective Java: " + describe(loans.borrow(isbn, 2)));
+        loans.returnBook(isbn);
+    }
+
+    private static String describe(boolean success) {
+        return success ? "成功" : "已被借出";
+    }
+}
+
+/**
+ * 一条未归还的借阅。
+ */
+record ActiveLoan(String bookIsbn, String borrowDate) {
+}
+
+/**
+ * 借书 / 还书服务
+ *
+ * <p>每个操作是一个事务：
+ * <ul>
+ *   <li>借书：{@code UPDATE books SET available = 0 WHERE isbn = ? AND available = 1}，
+ *       影响 0 行说明已被借出，直接回滚；影响 1 行再 INSERT 借阅记录</li>
+ *   <li>还书：先把未归还记录的 return_date 填上，影响 0 行说明没有借出；再把 available 改回 1</li>
+ * </ul>
+ * 条件 UPDATE 是原子的，并发借同一本书时只有一个事务能成功。idx_loans_active_book
+ * （V3 迁移中 return_date IS NULL 的唯一部分索引）是第二道防线：即使有代码绕过本服务
+ * 直接插入借阅记录，同一本书也不会出现两条未归还记录。
+ *
+ * <p>SQLite 的事务用 BEGIN IMMEDIATE 开始：一开始就拿写锁，避免两个事务都先读、
+ * 再同时升级为写锁而互相等待；拿不到锁时最多等 busy_timeout。
+ */
+class LoanService {
+    private static final String MARK_BORROWED =
+        "UPDATE books SET available = 0 WHERE isbn = ? AND available = 1";
+    private static final String INSERT_LOAN =
+        "INSERT INTO loans (book_isbn, borrower_id, borrow_date) VALUES (?, ?, ?)";
+    private static final String CLOSE_LOAN =
+        "UPDATE loans SET return_date = ? WHERE book_isbn = ? AND return_date IS NULL";
+    private static final String MARK_AVAILABLE = "UPDATE books SET available = 1 WHERE isbn = ?";
+    private static final String ACTIVE_LOANS = """
+        SELECT book_isbn, borrow_date FROM loans
+        WHERE borrower_id = ? AND return_date IS NULL
+        ORDER BY borrow_date""";
+
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+
+    public LoanService(String url) {
+        this.url = url;
+        connectionProperties.setProperty("transaction_mode", "IMMEDIATE");
+        connectionProperties.setProperty("busy_timeout", "5000");
+        // SQLite 默认不检查外键，借阅者不存在时要让 INSERT 失败
+        connectionProperties.setProperty("foreign_keys", "true");
+    }
+
+    /**
+     * 借书。成功返回 true；书已被借出返回 false；书或借阅者不存在时抛出 IllegalArgumentException。
+     */
+    public boolean borrow(String isbn, int borrowerId) throws SQLException {
+        try (Connection conn = connect()) {
+            conn.setAutoCommit(false);
+            try {
+                boolean borrowed = updateOne(conn, MARK_BORROWED, isbn);
+                if (borrowed) {
+                    try (PreparedStatement insert = conn.prepareStatement(INSERT_LOAN)) {
+                        insert.setString(1, isbn);
+                        insert.setInt(2, borrowerId);
+                        insert.setString(3, Instant.now().toString());
+                        insert.executeUpdate();
+                    }
+                } else if (!bookExists(conn, isbn)) {
+                    throw new IllegalArgumentException("图书不存在: " + isbn);
+                }
+                conn.commit();
+                return borrowed;
+            } catch (SQLException e) {
+                conn.rollback();
+                if (e.getMessage() != null && e.getMessage().contains("FOREIGN KEY")) {
+                    throw new IllegalArgumentException("借阅者不存在: " + borrowerId, e);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 还书。成功返回 true；这本书当前没有被借出时返回 false。
+     */
+    public boolean returnBook(String isbn) throws SQLException {
+        try (Connection conn = connect()) {
+            conn.setAutoCommit(false);
+            try {
+                boolean returned;
+                try (PreparedStatement close = conn.prepareStatement(CLOSE_LOAN)) {
+                    close.setString(1, Instant.now().toString());
+                    close.setString(2, isbn);
+                    returned = close.executeUpdate() == 1;
+                }
+                if (returned) {
+                    updateOne(conn, MARK_AVAILABLE, isbn);
+                }
+                conn.commit();
+                return returned;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 借阅者当前未归还的书，按借出时间排序。走 idx_loans_active_borrower 覆盖索引。
+     */
+    public List<ActiveLoan> activeLoans(int borrowerId) throws SQLException {
+        try (Connection conn = connect();
+             PreparedStatement query = conn.prepareStatement(ACTIVE_LOANS)) {
+            query.setInt(1, borrowerId);
+            List<ActiveLoan> loans = new ArrayList<>();
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    loans.add(new ActiveLoan(rs.getString("book_isbn"), rs.getString("borrow_date")));
+                }
+            }
+            return loans;
+        }
+    }
+
+    /**
+     * 返回 activeLoans 查询的执行计划，用来确认它确实走了部分覆盖索引。
+     */
+    public String explainActiveLoans() throws SQLException {
+        try (Connection conn = connect();
+             PreparedStatement explain = conn.prepareStatement("EXPLAIN QUERY PLAN " + ACTIVE_LOANS)) {
+            explain.setInt(1, 0);
+            List<String> steps = new ArrayList<>();
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    steps.add(rs.getString("detail"));
+                }
+            }
+            return String.join("; ", steps);
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, connectionProperties);
+    }
+
+    private static boolean updateOne(Connection conn, String sql, String isbn) throws SQLException {
+        try (PreparedStatement update = conn.prepareStatement(sql)) {
+            update.setString(1, isbn);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    private static boolean bookExists(Connection conn, String isbn) throws SQLException {
+        try (PreparedStatement query = conn.prepareStatement("SELECT 1 FROM books WHERE isbn = ?")) {
+            query.setString(1, isbn);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
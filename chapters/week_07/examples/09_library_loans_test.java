@@ -0,0 +1,175 @@
+/*
+ * 示例：借书事务的并发压力测试
+ * 运行方式：与 05_schema_migration.java、08_library_loans.java 一起编译，
+ *          mvn -q -f chapters/week_07/starter_code/pom.xml test \
+ *          -Dtest=examples._09_library_loans_test
+ * 预期输出：
+ *   所有测试通过
+ */
+package examples;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LoanService 的并发测试
+ *
+ * <p>用真实的 SQLite 文件（而不是内存库），多个线程各自打开连接，
+ * 和生产环境一样通过文件锁竞争。
+ */
+public class _09_library_loans_test {
+
+    private static final int BOOKS = 20;
+
+    @TempDir
+    Path dir;
+
+    private String url;
+    private LoanService loans;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + dir.resolve("library.db");
+        new DatabaseInitializer(url).initialize();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < BOOKS; i++) {
+                stmt.execute("INSERT INTO books (isbn, title, author) VALUES ('isbn-" + i + "', '书 " + i + "', '作者')");
+            }
+        }
+        loans = new LoanService(url);
+    }
+
+    @Test
+    void concurrentBorrowOfSameBookShouldSucceedExactlyOnce() throws Exception {
+        int threads = 64;
+        List<Boolean> results = runConcurrently(threads, 1, (thread, i) -> loans.borrow("isbn-0", 1 + thread % 2));
+
+        assertEquals(1, results.stream().filter(Boolean::booleanValue).count());
+        assertEquals(1, activeLoanCount("isbn-0"));
+        assertEquals(0, available("isbn-0"));
+    }
+
+    @Test
+    void randomBorrowAndReturnShouldKeepBooksAndLoansConsistent() throws Exception {
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger returned = new AtomicInteger();
+
+        runConcurrently(16, 200, (thread, i) -> {
+            String isbn = "isbn-" + ThreadLocalRandom.current().nextInt(BOOKS);
+            if (ThreadLocalRandom.current().nextBoolean()) {
+                if (loans.borrow(isbn, 1 + thread % 2)) {
+                    borrowed.incrementAndGet();
+                }
+            } else if (loans.returnBook(isbn)) {
+                returned.incrementAndGet();
+            }
+            return true;
+        });
+
+        int active = 0;
+        for (int i = 0; i < BOOKS; i++) {
+            String isbn = "isbn-" + i;
+            int count = activeLoanCount(isbn);
+            assertTrue(count <= 1, isbn + " 有 " + count + " 条未归还记录");
+            assertEquals(count == 1 ? 0 : 1, available(isbn), isbn + " 的 available 与借阅记录不一致");
+            active += count;
+        }
+        assertEquals(borrowed.get() - returned.get(), active);
+        assertEquals(active, loans.activeLoans(1).size() + loans.activeLoans(2).size());
+    }
+
+    @Test
+    void partialUniqueIndexShouldRejectSecondActiveLoan() throws SQLException {
+        assertTrue(loans.borrow("isbn-1", 1));
+
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            // 绕过 LoanService 直接插入，模拟有竞态的旧代码
+            assertThrows(SQLException.class, () -> stmt.execute(
+                "INSERT INTO loans (book_isbn, borrower_id, borrow_date) VALUES ('isbn-1', 2, '2026-03-01')"));
+        }
+
+        assertTrue(loans.returnBook("isbn-1"));
+        assertFalse(loans.returnBook("isbn-1"));
+        assertTrue(loans.borrow("isbn-1", 2));
+    }
+
+    @Test
+    void unknownBookOrBorrowerShouldRollBack() throws SQLException {
+        assertThrows(IllegalArgumentException.class, () -> loans.borrow("missing", 1));
+        assertThrows(IllegalArgumentException.class, () -> loans.borrow("isbn-2", 999));
+
+        // 借阅者不存在时 UPDATE 已经执行，必须随事务一起回滚
+        assertEquals(1, available("isbn-2"));
+        assertEquals(0, activeLoanCount("isbn-2"));
+    }
+
+    private interface Operation<T> {
+        T run(int thread, int iteration) throws Exception;
+    }
+
+    private static <T> List<T> runConcurrently(int threads, int iterations, Operation<T> operation)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<T>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<List<T>> worker = () -> {
+                    start.await();
+                    List<T> results = new ArrayList<>();
+                    for (int i = 0; i < iterations; i++) {
+                        results.add(operation.run(thread, i));
+                    }
+                    return results;
+                };
+                futures.add(executor.submit(worker));
+            }
+            start.countDown();
+            List<T> all = new ArrayList<>();
+            for (Future<List<T>> future : futures) {
+                all.addAll(future.get());
+            }
+            return all;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int activeLoanCount(String isbn) throws SQLException {
+        return queryInt("SELECT COUNT(*) FROM loans WHERE book_isbn = '" + isbn + "' AND return_date IS NULL");
+    }
+
+    private int available(String isbn) throws SQLException {
+        return queryInt("SELECT available FROM books WHERE isbn = '" + isbn + "'");
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * 示例：借书事务吞吐量与部分索引基准
+ * 运行方式：与 05_schema_migration.java、08_library_loans.java 一起编译，
+ *          mvn -q -f chapters/week_07/starter_code/pom.xml exec:java \
+ *          -Dexec.mainClass="examples._10_library_loans_benchmark"
+ * 预期输出（数值因机器而异）：
+ *   线程数   借+还 次/秒   借书失败率
+ *        1          ...        ...
+ *   当前借阅查询（10 万条历史记录）
+ *   部分覆盖索引 idx_loans_active_borrower: ... 次/秒
+ *   旧索引 idx_loans_borrower（需回表过滤）: ... 次/秒
+ */
+package examples;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两组测量：
+ * <ol>
+ *   <li>LoanService 在 1 / 4 / 16 个线程下每秒完成多少次"借一本随机的书，再还回去"</li>
+ *   <li>借阅历史很长时，"借阅者当前借了哪些书"分别走部分覆盖索引和旧的 idx_loans_borrower 的速度</li>
+ * </ol>
+ */
+public class _10_library_loans_benchmark {
+
+    private static final int BOOKS = 200;
+    private static final int BORROWERS = 50;
+    private static final long DURATION_MILLIS = 3_000;
+    private static final int HISTORY_ROWS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Files.createTempDirectory("library-bench");
+        try {
+            String url = "jdbc:sqlite:" + dir.resolve("library.db");
+            new DatabaseInitializer(url).initialize();
+            seed(url);
+            LoanService loans = new LoanService(url);
+
+            // 预热
+            measure(loans, 4, 1_000);
+            System.out.printf("%6s %14s %12s%n", "线程数", "借+还 次/秒", "借书失败率");
+            for (int threads : new int[] {1, 4, 16}) {
+                double[] result = measure(loans, threads, DURATION_MILLIS);
+                System.out.printf("%6d %14.0f %11.1f%%%n", threads, result[0], result[1] * 100);
+            }
+
+            addHistory(url);
+            System.out.println("\n当前借阅查询（" + HISTORY_ROWS / 10_000 + " 万条历史记录）");
+            System.out.printf("部分覆盖索引 idx_loans_active_borrower: %.0f 次/秒%n",
+                queriesPerSecond(url, "idx_loans_active_borrower"));
+            System.out.printf("旧索引 idx_loans_borrower（需回表过滤）: %.0f 次/秒%n",
+                queriesPerSecond(url, "idx_loans_borrower"));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void seed(String url) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < BOOKS; i++) {
+                stmt.addBatch("INSERT INTO books (isbn, title, author) VALUES ('bench-" + i + "', '书 " + i + "', '作者')");
+            }
+            for (int i = 0; i < BORROWERS; i++) {
+                stmt.addBatch("INSERT OR IGNORE INTO borrowers (id, name) VALUES (" + (100 + i) + ", '读者 " + i + "')");
+            }
+            stmt.executeBatch();
+            conn.commit();
+        }
+    }
+
+    /**
+     * 返回 {每秒完成的借+还次数, 借书因已被借出而失败的比例}。
+     */
+    private static double[] measure(LoanService loans, int threads, long millis) throws InterruptedException {
+        AtomicLong cycles = new AtomicLong();
+        AtomicLong attempts = new AtomicLong();
+        AtomicLong conflicts = new AtomicLong();
+        long deadline = System.nanoTime() + millis * 1_000_000;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String isbn = "bench-" + random.nextInt(BOOKS);
+                        attempts.incrementAndGet();
+                        if (loans.borrow(isbn, 100 + random.nextInt(BORROWERS))) {
+                            loans.returnBook(isbn);
+                            cycles.incrementAndGet();
+                        } else {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return new double[] {cycles.get() * 1000.0 / millis, (double) conflicts.get() / Math.max(1, attempts.get())};
+    }
+
+    /**
+     * 为借阅者 100 插入大量已归还的历史记录。
+     */
+    private static void addHistory(String url) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement insert = conn.prepareStatement(
+                 "INSERT INTO loans (book_isbn, borrower_id, borrow_date, return_date) VALUES (?, 100, ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < HISTORY_ROWS; i++) {
+                insert.setString(1, "bench-" + i % BOOKS);
+                insert.setString(2, "2025-01-01T00:00:00Z");
+                insert.setString(3, "2025-01-02T00:00:00Z");
+                insert.addBatch();
+                if (i % 5_000 == 4_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            conn.commit();
+        }
+    }
+
+    private static double queriesPerSecond(String url, String index) throws SQLException {
+        String sql = "SELECT book_isbn, borrow_date FROM loans INDEXED BY " + index
+            + " WHERE borrower_id = 100 AND return_date IS NULL ORDER BY borrow_date";
+        try (Connection conn = DriverManager.getConnection(url);
+             PreparedStatement query = conn.prepareStatement(sql)) {
+            int iterations = 0;
+            long start = System.nanoTime();
+            long deadline = start + 2_000_000_000L;
+            while (System.nanoTime() < deadline) {
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(1);
+                    }
+                }
+                iterations++;
+            }
+            return iterations * 1e9 / (System.nanoTime() - start);
+        }
+    }
+}
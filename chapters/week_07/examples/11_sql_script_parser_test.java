@@ -0,0 +1,111 @@
+/*
+ * 示例：SQL 脚本切分器的单元测试
+ * 运行方式：与 05_schema_migration.java 一起编译，
+ *          mvn -q -f chapters/week_07/starter_code/pom.xml test \
+ *          -Dtest=examples._11_sql_script_parser_test
+ * 预期输出：
+ *   所有测试通过
+ */
+package examples;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * SqlScriptParser.split 的边界情况
+ *
+ * <p>按 ";" 直接切分的脚本执行器遇到字符串里的分号会把一条语句切成两半，
+ * 遇到字符串里的 "--" 会把后半截当成注释。这里逐一检查切分器在这些位置的行为。
+ */
+public class _11_sql_script_parser_test {
+
+    @Test
+    void splitsOnTopLevelSemicolons() {
+        List<String> statements = SqlScriptParser.split("""
+            CREATE TABLE a (x INTEGER);
+            CREATE TABLE b (y INTEGER);
+            """);
+
+        assertEquals(List.of("CREATE TABLE a (x INTEGER)", "CREATE TABLE b (y INTEGER)"), statements);
+    }
+
+    @Test
+    void semicolonsAndDashesInsideStringsAreKept() {
+        List<String> statements = SqlScriptParser.split(
+            "INSERT INTO borrowers (name, email) VALUES ('李四', 'lisi@example.com; --备用');");
+
+        assertEquals(1, statements.size());
+        assertEquals("INSERT INTO borrowers (name, email) VALUES ('李四', 'lisi@example.com; --备用')",
+            statements.get(0));
+    }
+
+    @Test
+    void doubledQuoteIsAnEscapeNotTheEndOfTheString() {
+        List<String> statements = SqlScriptParser.split(
+            "INSERT INTO books (title) VALUES ('It''s; not over'); SELECT 1");
+
+        assertEquals(List.of("INSERT INTO books (title) VALUES ('It''s; not over')", "SELECT 1"), statements);
+    }
+
+    @Test
+    void quotedIdentifiersMayContainSemicolons() {
+        List<String> statements = SqlScriptParser.split("CREATE TABLE \"odd;name\" (x INTEGER); SELECT 1;");
+
+        assertEquals(List.of("CREATE TABLE \"odd;name\" (x INTEGER)", "SELECT 1"), statements);
+    }
+
+    @Test
+    void commentsAreDroppedIncludingTheirSemicolons() {
+        List<String> statements = SqlScriptParser.split("""
+            -- 行注释里的分号; 不是分隔符
+            SELECT 1; /* 块注释;
+               跨多行 */ SELECT 2;
+            SELECT 3 -- 末尾注释;
+            """);
+
+        assertEquals(List.of("SELECT 1", "SELECT 2", "SELECT 3"), statements);
+    }
+
+    @Test
+    void blankStatementsAreSkipped() {
+        assertEquals(List.of("SELECT 1"), SqlScriptParser.split(";;  SELECT 1 ;\n;\n-- 只有注释\n"));
+        assertTrue(SqlScriptParser.split("").isEmpty());
+    }
+
+    @Test
+    void unterminatedQuotesAndCommentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptParser.split("SELECT 'oops;"));
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptParser.split("SELECT \"oops;"));
+        assertThrows(IllegalArgumentException.class, () -> SqlScriptParser.split("SELECT 1 /* oops;"));
+    }
+
+    @Test
+    void splitStatementsRunAgainstSqlite() throws SQLException {
+        List<String> statements = SqlScriptParser.split("""
+            CREATE TABLE notes (id INTEGER PRIMARY KEY, body TEXT NOT NULL);
+            -- 字符串里的分号和注释符号都应原样写入
+            INSERT INTO notes (body) VALUES ('a; b'), ('c -- d'), ('e /* f */ g'), ('h''i');
+            """);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT body FROM notes ORDER BY id")) {
+                for (String expected : List.of("a; b", "c -- d", "e /* f */ g", "h'i")) {
+                    assertTrue(rs.next());
+                    assertEquals(expected, rs.getString(1));
+                }
+                assertFalse(rs.next());
+            }
+        }
+    }
+}
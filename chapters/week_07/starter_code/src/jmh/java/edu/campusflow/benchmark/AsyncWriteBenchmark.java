@@ -0,0 +1,173 @@
+package edu.campusflow.benchmark;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.AsyncTaskRepository;
+import edu.campusflow.repository.JdbcTaskRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64 个线程同时写同一个 SQLite 文件（WAL 模式）：直接调用 JdbcTaskRepository 与经过
+ * AsyncTaskRepository 单写线程的对比。
+ *
+ * <p>运行方式（需要 jmh profile，见 README）：
+ * <pre>
+ * mvn -q -Pjmh test-compile exec:exec -Djmh.args="AsyncWriteBenchmark"
+ * </pre>
+ *
+ * <p>每次调用插入一条新任务并等待写入完成。SYNC 的连接池有 64 个连接，锁竞争全部落在
+ * SQLite 的文件锁上，等待超过 busy_timeout（sqlite-jdbc 默认 3 秒）的写入以 SQLITE_BUSY 失败，
+ * 计入 lockErrors；ASYNC 遇到队列已满时短暂休眠后重试，计入 backpressure。
+ * 两个计数器和吞吐量一起出现在结果里。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(64)
+@Fork(1)
+public class AsyncWriteBenchmark {
+    private static final int WRITERS = 64;
+
+    public enum WriteMode {
+        SYNC,
+        ASYNC
+    }
+
+    @Param({"SYNC", "ASYNC"})
+    public WriteMode mode;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private Path databaseDir;
+    private PooledDataSource writeSource;
+    private PooledDataSource readSource;
+    private JdbcTaskRepository syncRepository;
+    private AsyncTaskRepository asyncRepository;
+
+    /**
+     * 每个线程各自的计数，JMH 在每轮迭代结束时汇总。
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public int lockErrors;
+        public int backpressure;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lockErrors = 0;
+            backpressure = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        databaseDir = Files.createTempDirectory("campusflow-jmh");
+        String url = "jdbc:sqlite:" + databaseDir.resolve("tasks.db");
+        writeSource = new DatabaseConfig(url).withPoolSize(mode == WriteMode.SYNC ? WRITERS : 1)
+            .createDataSource();
+        new DatabaseInitializer(writeSource).initialize();
+        try (Connection conn = writeSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+        }
+        syncRepository = new JdbcTaskRepository(writeSource);
+        if (mode == WriteMode.ASYNC) {
+            readSource = new DatabaseConfig(url).withReadOnly(true).createDataSource();
+            asyncRepository = new AsyncTaskRepository(syncRepository, new JdbcTaskRepository(readSource), 4);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (asyncRepository != null) {
+            asyncRepository.close();
+            asyncRepository = null;
+        }
+        if (readSource != null) {
+            readSource.close();
+            readSource = null;
+        }
+        writeSource.close();
+        try (var files = Files.list(databaseDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(databaseDir);
+    }
+
+    @Benchmark
+    public void save(Counters counters) throws InterruptedException {
+        long id = nextId.getAndIncrement();
+        Task task = new Task("W" + id, "任务 " + id, "并发写入基准", "pending");
+        try {
+            if (mode == WriteMode.SYNC) {
+                syncRepository.save(task);
+            } else {
+                CompletableFuture<Void> future = asyncRepository.save(task);
+                while (isRejected(future)) {
+                    counters.backpressure++;
+                    Thread.sleep(1);
+                    future = asyncRepository.save(task);
+                }
+                future.join();
+            }
+        } catch (RuntimeException e) {
+            if (!isLockError(e)) {
+                throw e;
+            }
+            counters.lockErrors++;
+        }
+    }
+
+    private static boolean isRejected(CompletableFuture<Void> future) {
+        if (!future.isCompletedExceptionally()) {
+            return false;
+        }
+        try {
+            future.join();
+            return false;
+        } catch (CompletionException e) {
+            return e.getCause() instanceof RejectedExecutionException;
+        }
+    }
+
+    private static boolean isLockError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = String.valueOf(cause.getMessage());
+            if (message.contains("SQLITE_BUSY") || message.contains("database is locked")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,167 @@
+package edu.campusflow.benchmark;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.JdbcTaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveAll 批大小基准：同样写入 ROWS 行，比较不同 batchSize 的耗时。
+ *
+ * <p>运行方式（需要 jmh profile，见 README）：
+ * <pre>
+ * mvn -q -Pjmh test-compile exec:exec -Djmh.args="BatchSizeBenchmark"
+ * </pre>
+ *
+ * <p>insert 每次写入一张空表，update 把已有的 ROWS 行再写一遍，结果都换算成每行的耗时。
+ * 对照组 saveOneByOne 逐行调用 save：每行一个事务，SQLite 每行都要 fsync，所以只写 SINGLE_SAVE_ROWS 行；
+ * 它与 batchSize 无关，只看 batchSize=1 的那一行即可。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchSizeBenchmark {
+    private static final int ROWS = 20_000;
+    private static final int SINGLE_SAVE_ROWS = 500;
+
+    public enum Backend {
+        SQLITE_FILE,
+        H2_MEMORY
+    }
+
+    @Param({"SQLITE_FILE", "H2_MEMORY"})
+    public Backend backend;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int batchSize;
+
+    private final List<Task> tasks = tasks("pending");
+    private final List<Task> updates = tasks("done");
+
+    /**
+     * 一个独立的库；SQLite 时是临时目录里的文件，关闭时一并删除。
+     */
+    abstract static class Database {
+        private Path dir;
+        private PooledDataSource dataSource;
+        JdbcTaskRepository repository;
+
+        void open(BatchSizeBenchmark benchmark) throws IOException {
+            String url = switch (benchmark.backend) {
+                case SQLITE_FILE -> {
+                    dir = Files.createTempDirectory("campusflow-batch");
+                    yield "jdbc:sqlite:" + dir.resolve("tasks.db");
+                }
+                case H2_MEMORY -> "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+            };
+            dataSource = new DatabaseConfig(url).withPoolSize(1).createDataSource();
+            new DatabaseInitializer(dataSource).initialize();
+            repository = new JdbcTaskRepository(dataSource, benchmark.batchSize);
+        }
+
+        void clear() throws SQLException {
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM tasks");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            dataSource.close();
+            if (dir != null) {
+                try (var files = Files.list(dir)) {
+                    for (Path file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+                dir = null;
+            }
+        }
+    }
+
+    /**
+     * 每次调用前清空，insert 和 saveOneByOne 写入的都是新行。
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyTable extends Database {
+        @Setup(Level.Trial)
+        public void setUp(BatchSizeBenchmark benchmark) throws IOException {
+            open(benchmark);
+        }
+
+        @Setup(Level.Invocation)
+        public void reset() throws SQLException {
+            clear();
+        }
+    }
+
+    /**
+     * trial 开始前写入 ROWS 行，update 每次都覆盖同样的 id。
+     */
+    @State(Scope.Benchmark)
+    public static class FilledTable extends Database {
+        @Setup(Level.Trial)
+        public void setUp(BatchSizeBenchmark benchmark) throws IOException {
+            open(benchmark);
+            repository.saveAll(benchmark.tasks);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insert(EmptyTable table) {
+        table.repository.saveAll(tasks);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void update(FilledTable table) {
+        table.repository.saveAll(updates);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SINGLE_SAVE_ROWS)
+    public void saveOneByOne(EmptyTable table) {
+        for (Task task : tasks.subList(0, SINGLE_SAVE_ROWS)) {
+            table.repository.save(task);
+        }
+    }
+
+    private static List<Task> tasks(String status) {
+        List<Task> tasks = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, "批量写入基准", status));
+        }
+        return tasks;
+    }
+}
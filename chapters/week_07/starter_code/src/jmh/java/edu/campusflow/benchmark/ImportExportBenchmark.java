@@ -0,0 +1,234 @@
+package edu.campusflow.benchmark;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.repository.JdbcTaskRepository;
+import edu.campusflow.transfer.ImportResult;
+import edu.campusflow.transfer.TaskExporter;
+import edu.campusflow.transfer.TaskFormat;
+import edu.campusflow.transfer.TaskImporter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 导入导出基准：生成不同行数的 CSV / NDJSON 文件，导入 SQLite 文件库，或从已导入的库导出。
+ *
+ * <p>运行方式（需要 jmh profile，见 README）：
+ * <pre>
+ * mvn -q -Pjmh test-compile exec:exec -Djmh.args="ImportExportBenchmark"
+ * </pre>
+ *
+ * <p>每次调用处理整个文件，所以用 SingleShotTime 测一次导入或导出的耗时；行数除以耗时即每秒行数。
+ * 导入时后台线程每 10ms 采样一次已用堆内存，峰值作为 heapPeakMb 报告：
+ * 行数增加 10 倍而峰值基本不变，说明内存占用与文件大小无关。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ImportExportBenchmark {
+    private static final String[] STATUSES = {"pending", "in_progress", "done"};
+
+    @Param({"CSV", "NDJSON"})
+    public TaskFormat format;
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path inputDir;
+    private Path input;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("campusflow-transfer");
+        input = inputDir.resolve("input" + extension());
+        generate(input, rows, format);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteDirectory(inputDir);
+    }
+
+    /**
+     * 导入目标：每次调用前清空表，让每次导入都从空表开始。
+     */
+    @State(Scope.Benchmark)
+    public static class EmptyDatabase {
+        private Path dir;
+        private PooledDataSource dataSource;
+        private JdbcTaskRepository repository;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException {
+            dir = Files.createTempDirectory("campusflow-import");
+            dataSource = new DatabaseConfig("jdbc:sqlite:" + dir.resolve("tasks.db")).createDataSource();
+            new DatabaseInitializer(dataSource).initialize();
+            repository = new JdbcTaskRepository(dataSource);
+        }
+
+        @Setup(Level.Invocation)
+        public void clear() throws SQLException {
+            try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM tasks");
+            }
+            System.gc();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            dataSource.close();
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * 导出来源：整个 trial 开始前导入一次。
+     */
+    @State(Scope.Benchmark)
+    public static class FilledDatabase {
+        private Path dir;
+        private PooledDataSource dataSource;
+        private JdbcTaskRepository repository;
+
+        @Setup(Level.Trial)
+        public void open(ImportExportBenchmark benchmark) throws IOException {
+            dir = Files.createTempDirectory("campusflow-export");
+            dataSource = new DatabaseConfig("jdbc:sqlite:" + dir.resolve("tasks.db")).createDataSource();
+            new DatabaseInitializer(dataSource).initialize();
+            repository = new JdbcTaskRepository(dataSource);
+            new TaskImporter(repository).importFile(benchmark.input, dir.resolve("rejected.csv"), null);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException {
+            dataSource.close();
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * 导入期间的堆峰值，单位 MB。SingleShotTime 每轮只调用一次，所以每轮的值就是那一次导入的峰值。
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public double heapPeakMb;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            heapPeakMb = 0;
+        }
+    }
+
+    @Benchmark
+    public ImportResult importFile(EmptyDatabase database, Heap heap) throws IOException, InterruptedException {
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        ImportResult result = new TaskImporter(database.repository)
+            .importFile(input, database.dir.resolve("rejected.csv"), null);
+        heap.heapPeakMb = sampler.stopAndGetPeak() / 1024.0 / 1024.0;
+        if (result.imported() != rows) {
+            throw new IllegalStateException("行数不一致: 导入 " + result.imported() + "，应为 " + rows);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long exportFile(FilledDatabase database) throws IOException {
+        long exported = new TaskExporter(database.repository).exportFile(database.dir.resolve("output" + extension()));
+        if (exported != rows) {
+            throw new IllegalStateException("行数不一致: 导出 " + exported + "，应为 " + rows);
+        }
+        return exported;
+    }
+
+    private String extension() {
+        return format == TaskFormat.CSV ? ".csv" : ".ndjson";
+    }
+
+    private static void generate(Path file, int rows, TaskFormat format) throws IOException {
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == TaskFormat.CSV) {
+                out.write("id,title,description,status,created_at\n");
+            }
+            for (int i = 0; i < rows; i++) {
+                String status = STATUSES[i % STATUSES.length];
+                Instant createdAt = base.plusMillis(i);
+                if (format == TaskFormat.CSV) {
+                    out.write("T" + i + ",任务 " + i + ",\"导入基准, 第 " + i + " 行\"," + status + "," + createdAt + "\n");
+                } else {
+                    out.write("{\"id\":\"T" + i + "\",\"title\":\"任务 " + i + "\",\"description\":\"导入基准, 第 " + i
+                        + " 行\",\"status\":\"" + status + "\",\"createdAt\":\"" + createdAt + "\"}\n");
+                }
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static final class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private volatile boolean running = true;
+
+        private HeapSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long stopAndGetPeak() throws InterruptedException {
+            running = false;
+            join();
+            return peak.get();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.campusflow.benchmark;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.metrics.InstrumentedDataSource;
+import edu.campusflow.metrics.SqlMetrics;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.JdbcTaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测量 {@link InstrumentedDataSource} 的开销：同一操作分别在原始连接池和包装后的连接池上执行。
+ *
+ * <p>运行方式（需要 jmh profile，见 README）：
+ * <pre>
+ * mvn -q -Pjmh test-compile exec:exec -Djmh.args="SqlInstrumentationBenchmark"
+ * </pre>
+ *
+ * <p>findById 每次只有一行，最能体现每次执行的固定开销；scan 读 SCAN_LIMIT 行，
+ * 体现每行 next() 计时和 getXxx 反射转发的开销；save 是一次自动提交的 upsert。
+ * 慢查询阈值设为 0，让每次执行都走慢查询日志的判断，是最坏情况。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlInstrumentationBenchmark {
+    private static final int SIZE = 10_000;
+    private static final int SCAN_LIMIT = 50;
+    private static final Instant BASE = Instant.parse("2026-03-01T08:00:00Z");
+
+    public enum Backend {
+        H2_MEMORY,
+        SQLITE_WAL
+    }
+
+    @Param({"H2_MEMORY", "SQLITE_WAL"})
+    public Backend backend;
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private PooledDataSource pool;
+    private JdbcTaskRepository repository;
+    private Path databaseDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        String url = switch (backend) {
+            case H2_MEMORY -> "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+            case SQLITE_WAL -> {
+                databaseDir = Files.createTempDirectory("campusflow-jmh");
+                yield "jdbc:sqlite:" + databaseDir.resolve("tasks.db");
+            }
+        };
+        pool = new DatabaseConfig(url)
+            .withLeakDetectionThreshold(Duration.ZERO)
+            .createDataSource();
+        new DatabaseInitializer(pool).initialize();
+        if (backend == Backend.SQLITE_WAL) {
+            try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+            }
+        }
+        repository = instrumented
+            ? new JdbcTaskRepository(new InstrumentedDataSource(pool, new SqlMetrics(20, Duration.ZERO)))
+            : new JdbcTaskRepository(pool);
+
+        List<Task> tasks = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, "基准测试数据", "pending", BASE.plusSeconds(i)));
+        }
+        repository.saveAll(tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        if (databaseDir != null) {
+            try (var files = Files.list(databaseDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(databaseDir);
+            databaseDir = null;
+        }
+    }
+
+    @Benchmark
+    public Object findById() {
+        return repository.findById("T" + ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        try (var tasks = repository.streamByStatus("pending")) {
+            tasks.limit(SCAN_LIMIT).forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void save() {
+        int row = ThreadLocalRandom.current().nextInt(SIZE);
+        repository.save(new Task("T" + row, "任务 " + row, "基准测试数据", "pending", BASE.plusSeconds(row)));
+    }
+}
@@ -0,0 +1,207 @@
+package edu.campusflow.benchmark;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.InMemoryTaskRepository;
+import edu.campusflow.repository.JdbcTaskRepository;
+import edu.campusflow.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用同一组 CRUD 负载比较 TaskRepository 的各个实现。
+ *
+ * <p>运行方式（需要 jmh profile，见 README）：
+ * <pre>
+ * mvn -q -Pjmh test-compile exec:exec
+ * mvn -q -Pjmh test-compile exec:exec -Djmh.args="scanHeavy -p backend=SQLITE_WAL -t 4"
+ * </pre>
+ *
+ * <p>三种负载，每次调用按比例随机选一个操作：
+ * <ul>
+ *   <li>readHeavy：90% findById，10% save（更新已有任务）</li>
+ *   <li>writeHeavy：80% save（更新已有任务），20% findById</li>
+ *   <li>scanHeavy：90% 读取最新的 SCAN_LIMIT 条未完成任务，10% save</li>
+ * </ul>
+ * save 只更新已有 id，数据量在整个测量过程中保持为 size。
+ *
+ * <p>同时以吞吐量（ops/s）和采样延迟（p50/p90/p99…）两种模式测量，
+ * 并开启 GC profiler 报告分配速率（gc.alloc.rate.norm 即每次操作分配的字节数）。
+ * 结果写入 target/jmh-results.json。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskRepositoryBenchmark {
+    private static final String[] STATUSES = {"pending", "in_progress", "done"};
+    private static final int SCAN_LIMIT = 50;
+    private static final Instant BASE = Instant.parse("2026-03-01T08:00:00Z");
+
+    public enum Backend {
+        IN_MEMORY,
+        H2_MEMORY,
+        SQLITE_MEMORY,
+        SQLITE_WAL
+    }
+
+    @Param({"IN_MEMORY", "H2_MEMORY", "SQLITE_MEMORY", "SQLITE_WAL"})
+    public Backend backend;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private TaskRepository repository;
+    private PooledDataSource dataSource;
+    private Path databaseDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        repository = switch (backend) {
+            case IN_MEMORY -> new InMemoryTaskRepository();
+            case H2_MEMORY -> jdbc("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+            // 不加 cache=shared 时每个连接各自是一个空库；连接池里始终有连接存活，库就不会被释放
+            case SQLITE_MEMORY -> jdbc("jdbc:sqlite:file:" + UUID.randomUUID() + "?mode=memory&cache=shared");
+            case SQLITE_WAL -> {
+                databaseDir = Files.createTempDirectory("campusflow-jmh");
+                JdbcTaskRepository sqlite = jdbc("jdbc:sqlite:" + databaseDir.resolve("tasks.db"));
+                try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+                    // WAL 模式记录在数据库文件里，对之后的所有连接生效
+                    stmt.execute("PRAGMA journal_mode=WAL");
+                }
+                yield sqlite;
+            }
+        };
+
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Task(id(i), "任务 " + i, "基准测试数据", STATUSES[i % STATUSES.length],
+                BASE.plusSeconds(i)));
+        }
+        repository.saveAll(tasks);
+    }
+
+    private JdbcTaskRepository jdbc(String url) {
+        dataSource = new DatabaseConfig(url)
+            .withLeakDetectionThreshold(Duration.ZERO)
+            .createDataSource();
+        new DatabaseInitializer(dataSource).initialize();
+        return new JdbcTaskRepository(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+        if (databaseDir != null) {
+            try (var files = Files.list(databaseDir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(databaseDir);
+            databaseDir = null;
+        }
+    }
+
+    @Benchmark
+    public void readHeavy(Blackhole blackhole) {
+        run(90, 0, blackhole);
+    }
+
+    @Benchmark
+    public void writeHeavy(Blackhole blackhole) {
+        run(20, 0, blackhole);
+    }
+
+    @Benchmark
+    public void scanHeavy(Blackhole blackhole) {
+        run(0, 90, blackhole);
+    }
+
+    /**
+     * 按百分比选择一个操作：[0, readPercent) 按 id 查询，接着 scanPercent 的区间做扫描，其余为保存。
+     */
+    private void run(int readPercent, int scanPercent, Blackhole blackhole) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+        int row = random.nextInt(size);
+        if (dice < readPercent) {
+            blackhole.consume(repository.findById(id(row)));
+        } else if (dice < readPercent + scanPercent) {
+            try (var tasks = repository.streamAll()) {
+                tasks.filter(task -> !"done".equals(task.getStatus()))
+                    .limit(SCAN_LIMIT)
+                    .forEach(blackhole::consume);
+            }
+        } else {
+            repository.save(new Task(id(row), "任务 " + row, "基准测试数据",
+                STATUSES[random.nextInt(STATUSES.length)], BASE.plusSeconds(row)));
+        }
+    }
+
+    private static String id(int row) {
+        return "T" + row;
+    }
+
+    /**
+     * 默认对全部负载、后端和数据量运行，并输出 JSON 结果；命令行参数与 JMH 自带的一致，会覆盖默认值。
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(TaskRepositoryBenchmark.class.getSimpleName());
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result("target/jmh-results.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -1,16 +1,128 @@
 package edu.campusflow.config;
 
-import java.sql.Connection;
-import java.sql.SQLException;
+import java.time.Duration;
 
-public class DatabaseConfig {
+/**
+ * 数据库连接配置：URL 和连接池参数。不可变，with* 方法返回修改后的新配置。
+ *
+ * <pre>
+ * PooledDataSource dataSource = DatabaseConfig.defaults()
+ *     .withPoolSize(4)
+ *     .withLeakDetectionThreshold(Duration.ofSeconds(10))
+ *     .createDataSource();
+ * </pre>
+ */
+public final class DatabaseConfig {
     public static final String DB_URL = "jdbc:sqlite:campusflow.db";
+    public static final int DEFAULT_POOL_SIZE = 10;
+    public static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(5);
+    public static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 2;
+    public static final Duration DEFAULT_LEAK_DETECTION_THRESHOLD = Duration.ofSeconds(30);
 
-    private DatabaseConfig() {
+    private final String url;
+    private final int poolSize;
+    private final Duration acquireTimeout;
+    private final int validationTimeoutSeconds;
+    private final Duration leakDetectionThreshold;
+    private final boolean readOnly;
+
+    public DatabaseConfig(String url) {
+        this(url, DEFAULT_POOL_SIZE, DEFAULT_ACQUIRE_TIMEOUT, DEFAULT_VALIDATION_TIMEOUT_SECONDS,
+            DEFAULT_LEAK_DETECTION_THRESHOLD, false);
+    }
+
+    private DatabaseConfig(String url, int poolSize, Duration acquireTimeout, int validationTimeoutSeconds,
+                           Duration leakDetectionThreshold, boolean readOnly) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("Database URL 不能为空");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize 必须大于 0");
+        }
+        if (acquireTimeout == null || acquireTimeout.isNegative()) {
+            throw new IllegalArgumentException("acquireTimeout 不能为空或负数");
+        }
+        if (validationTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("validationTimeoutSeconds 不能为负数");
+        }
+        if (leakDetectionThreshold == null || leakDetectionThreshold.isNegative()) {
+            throw new IllegalArgumentException("leakDetectionThreshold 不能为空或负数");
+        }
+        this.url = url;
+        this.poolSize = poolSize;
+        this.acquireTimeout = acquireTimeout;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        this.readOnly = readOnly;
+    }
+
+    public static DatabaseConfig defaults() {
+        return new DatabaseConfig(DB_URL);
+    }
+
+    public DatabaseConfig withPoolSize(int poolSize) {
+        return new DatabaseConfig(url, poolSize, acquireTimeout, validationTimeoutSeconds, leakDetectionThreshold,
+            readOnly);
+    }
+
+    /**
+     * 连接池耗尽时最多等待多久，超时抛出 SQLTimeoutException。
+     */
+    public DatabaseConfig withAcquireTimeout(Duration acquireTimeout) {
+        return new DatabaseConfig(url, poolSize, acquireTimeout, validationTimeoutSeconds, leakDetectionThreshold,
+            readOnly);
+    }
+
+    /**
+     * 借出前用 Connection.isValid 检查空闲连接的超时时间（秒），0 表示不限时。
+     */
+    public DatabaseConfig withValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        return new DatabaseConfig(url, poolSize, acquireTimeout, validationTimeoutSeconds, leakDetectionThreshold,
+            readOnly);
+    }
+
+    /**
+     * 连接借出超过该时长仍未归还时打印借出位置的堆栈；Duration.ZERO 表示关闭泄漏检测。
+     */
+    public DatabaseConfig withLeakDetectionThreshold(Duration leakDetectionThreshold) {
+        return new DatabaseConfig(url, poolSize, acquireTimeout, validationTimeoutSeconds, leakDetectionThreshold,
+            readOnly);
+    }
+
+    /**
+     * 只读连接池：所有连接都以只读方式打开，写操作会被数据库拒绝。
+     * 用于把查询和写入分到不同的连接池，例如 AsyncTaskRepository 的读线程。
+     */
+    public DatabaseConfig withReadOnly(boolean readOnly) {
+        return new DatabaseConfig(url, poolSize, acquireTimeout, validationTimeoutSeconds, leakDetectionThreshold,
+            readOnly);
+    }
+
+    public PooledDataSource createDataSource() {
+        return new PooledDataSource(this);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public Duration getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
     }
 
-    public static Connection getConnection() throws SQLException {
-        // 待办：返回 DriverManager.getConnection(DB_URL)。
-        throw new UnsupportedOperationException("待办：实现 getConnection");
+    public boolean isReadOnly() {
+        return readOnly;
     }
 }
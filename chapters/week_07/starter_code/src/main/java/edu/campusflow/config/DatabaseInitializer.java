@@ -1,17 +1,116 @@
 package edu.campusflow.config;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * 执行 schema.sql 建表；如果发现旧版本的表（status 存为字符串），先原地升级为 status_code。
+ */
 public class DatabaseInitializer {
-    private final String url;
+    private static final String SCHEMA_RESOURCE = "schema.sql";
+
+    // 旧表把 status 存成 VARCHAR：加整数列、回填、删掉旧列和旧索引。
+    // 必须在 schema.sql 之前执行，否则新索引会因为缺少 status_code 列而失败
+    private static final List<String> STATUS_CODE_UPGRADE = List.of(
+        "ALTER TABLE tasks ADD COLUMN status_code SMALLINT NOT NULL DEFAULT 0 CHECK (status_code IN (0, 1, 2))",
+        "UPDATE tasks SET status_code = CASE status WHEN 'in_progress' THEN 1 WHEN 'done' THEN 2 ELSE 0 END",
+        "DROP INDEX IF EXISTS idx_tasks_status",
+        "ALTER TABLE tasks DROP COLUMN status"
+    );
+
+    private final DataSource dataSource;
 
-    public DatabaseInitializer(String url) {
-        if (url == null || url.isBlank()) {
-            throw new IllegalArgumentException("Database URL 不能为空");
+    public DatabaseInitializer(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource 不能为空");
         }
-        this.url = url;
+        this.dataSource = dataSource;
     }
 
     public void initialize() {
-        // 待办：从 classpath 读取 schema.sql，并用 try-with-resources 执行每条 SQL。
-        throw new UnsupportedOperationException("待办：为该 URL 实现 initialize：" + url);
+        List<String> statements = parseStatements(readSchema());
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            if (hasLegacyStatusColumn(statement)) {
+                upgradeStatusColumn(connection, statement);
+            }
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("执行 SQL 失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean hasLegacyStatusColumn(Statement statement) throws SQLException {
+        ResultSet rs;
+        try {
+            rs = statement.executeQuery("SELECT * FROM tasks WHERE 1 = 0");
+        } catch (SQLException e) {
+            // 表还不存在，交给 schema.sql 创建
+            return false;
+        }
+        try (rs) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                if ("status".equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static void upgradeStatusColumn(Connection connection, Statement statement) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            for (String sql : STATUS_CODE_UPGRADE) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private String readSchema() {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(SCHEMA_RESOURCE)) {
+            if (in == null) {
+                throw new RuntimeException("读取 schema.sql 失败: classpath 中找不到 " + SCHEMA_RESOURCE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("读取 schema.sql 失败", e);
+        }
+    }
+
+    static List<String> parseStatements(String script) {
+        StringBuilder withoutComments = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.strip().startsWith("--")) {
+                withoutComments.append(line).append('\n');
+            }
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String sql : withoutComments.toString().split(";")) {
+            if (!sql.isBlank()) {
+                statements.add(sql.strip());
+            }
+        }
+        return statements;
     }
 }
@@ -0,0 +1,376 @@
+package edu.campusflow.config;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * 固定大小的 JDBC 连接池。
+ *
+ * <p>为什么需要连接池：DriverManager.getConnection 每次都要建立新连接（SQLite 要打开文件、
+ * 读 schema），而一次查询本身往往只要几十微秒。连接池把用完的连接留下来给下一次使用。
+ *
+ * <p>工作方式：
+ * <ul>
+ *   <li>信号量限制同时借出的连接数，池满时最多等待 acquireTimeout</li>
+ *   <li>借出的是代理对象，调用 close() 只是归还，真正的连接留在池里</li>
+ *   <li>Statement 和 ResultSet 也是代理，getConnection() / getStatement() 拿不到物理连接</li>
+ *   <li>借出前用 isValid 检查空闲连接，失效的直接丢弃并新建</li>
+ *   <li>归还时回滚未提交的事务并恢复 autoCommit，下一个使用者拿到的是干净的连接</li>
+ *   <li>泄漏检测：借出超过阈值仍未归还时，打印借出时记录的堆栈，直接指向忘记 close 的代码</li>
+ * </ul>
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+    private final DatabaseConfig config;
+    private final Semaphore permits;
+    // 后进先出：最近归还的连接最"热"，也最可能仍然有效
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    public PooledDataSource(DatabaseConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getPoolSize(), true);
+
+        long thresholdMillis = config.getLeakDetectionThreshold().toMillis();
+        if (thresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "connection-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(10, thresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("连接池已关闭");
+        }
+        long timeoutMillis = config.getAcquireTimeout().toMillis();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("等待 " + timeoutMillis + "ms 仍未获取到数据库连接（连接池大小 "
+                    + config.getPoolSize() + "），请检查是否有连接未关闭");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待数据库连接时被中断", e);
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = openPhysical();
+                created.incrementAndGet();
+            }
+            Lease lease = new Lease(physical);
+            leases.add(lease);
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, lease);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        if (!config.isReadOnly()) {
+            return DriverManager.getConnection(config.getUrl());
+        }
+        if (config.getUrl().startsWith("jdbc:sqlite:")) {
+            // sqlite-jdbc 不允许连接建立后再改只读标志，只能在打开时传 SQLITE_OPEN_READONLY
+            Properties properties = new Properties();
+            properties.setProperty("open_mode", "1");
+            return DriverManager.getConnection(config.getUrl(), properties);
+        }
+        Connection connection = DriverManager.getConnection(config.getUrl());
+        connection.setReadOnly(true);
+        return connection;
+    }
+
+    private Connection takeValidIdle() {
+        Connection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            try {
+                if (candidate.isValid(config.getValidationTimeoutSeconds())) {
+                    return candidate;
+                }
+            } catch (SQLException ignored) {
+                // 当作失效连接处理
+            }
+            closeQuietly(candidate);
+        }
+        return null;
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        Connection physical = lease.physical;
+        try {
+            if (closed || physical.isClosed()) {
+                closeQuietly(physical);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idle.offerFirst(physical);
+        } catch (SQLException e) {
+            closeQuietly(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void detectLeaks() {
+        long thresholdNanos = config.getLeakDetectionThreshold().toNanos();
+        long now = System.nanoTime();
+        for (Lease lease : leases) {
+            if (!lease.leakReported && now - lease.borrowedAt > thresholdNanos) {
+                lease.leakReported = true;
+                leaks.incrementAndGet();
+                System.err.println("[PooledDataSource] 疑似连接泄漏：连接借出超过 "
+                    + config.getLeakDetectionThreshold().toMillis() + "ms 仍未归还，借出位置：");
+                lease.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 关闭空闲连接；仍在使用中的连接会在归还时关闭。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+    }
+
+    public int getActiveConnections() {
+        return leases.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * 累计新建的物理连接数；连接被复用时不增加。
+     */
+    public long getCreatedConnections() {
+        return created.get();
+    }
+
+    public long getLeakCount() {
+        return leaks.get();
+    }
+
+    public DatabaseConfig getConfig() {
+        return config;
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // 连接已经不可用，没有可做的补救
+        }
+    }
+
+    /**
+     * 一次借出：代理 Connection 的全部方法，拦截 close() 改为归还。
+     */
+    private final class Lease implements InvocationHandler {
+        private final Connection physical;
+        private final long borrowedAt = System.nanoTime();
+        // 泄漏检测关闭时不记录堆栈，省掉每次借出创建异常对象的开销
+        private final Throwable borrowSite;
+        // 两个线程同时 close 时只能有一个归还，否则许可被释放两次、同一个连接进两次空闲队列
+        private final AtomicBoolean returned = new AtomicBoolean();
+        private volatile boolean leakReported;
+
+        private Lease(Connection physical) {
+            this.physical = physical;
+            this.borrowSite = leakDetector == null ? null : new Throwable("connection borrowed here");
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        release(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + "]";
+                }
+                default -> {
+                    checkNotReturned();
+                    Object result = invokeTarget(physical, method, args);
+                    if (result instanceof Statement statement) {
+                        return wrap(method.getReturnType(), new LeasedStatement(this, (Connection) proxy, statement));
+                    }
+                    return result;
+                }
+            }
+        }
+
+        private void checkNotReturned() throws SQLException {
+            if (returned.get()) {
+                throw new SQLException("连接已归还连接池，不能继续使用");
+            }
+        }
+    }
+
+    /**
+     * 借出连接创建的 Statement：getConnection() 返回借出的代理而不是物理连接，
+     * 否则调用方 close 它就直接关掉了池里的连接，或在归还后继续使用别人正在用的连接。
+     */
+    private static final class LeasedStatement implements InvocationHandler {
+        private final Lease lease;
+        private final Connection connection;
+        private final Statement target;
+
+        private LeasedStatement(Lease lease, Connection connection, Statement target) {
+            this.lease = lease;
+            this.connection = connection;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getConnection" -> {
+                    return connection;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledStatement[" + target + "]";
+                }
+                // 归还后仍允许关闭，try-with-resources 的关闭顺序不一定先于连接
+                case "close", "isClosed" -> {
+                    return invokeTarget(target, method, args);
+                }
+                default -> {
+                    lease.checkNotReturned();
+                    Object result = invokeTarget(target, method, args);
+                    if (result instanceof ResultSet resultSet) {
+                        return wrap(ResultSet.class, (rsProxy, rsMethod, rsArgs) ->
+                            "getStatement".equals(rsMethod.getName())
+                                ? proxy
+                                : invokeTarget(resultSet, rsMethod, rsArgs));
+                    }
+                    return result;
+                }
+            }
+        }
+    }
+
+    private static Object wrap(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ===== DataSource 的其余方法：连接池不使用这些功能 =====
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("用户名和密码请写在 JDBC URL 中");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // 不支持
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        // 不支持：获取连接的等待时间由 acquireTimeout 控制
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("不是 " + iface.getName() + " 的包装类");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
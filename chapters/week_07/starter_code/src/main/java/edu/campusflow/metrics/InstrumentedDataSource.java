@@ -0,0 +1,377 @@
+package edu.campusflow.metrics;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * 包装任意 DataSource，把每次获取连接和执行 SQL 的耗时记录到 {@link SqlMetrics}。
+ *
+ * <p>用法：把原来的 DataSource 包一层再交给 Repository，业务代码不用改动：
+ * <pre>
+ * SqlMetrics metrics = new SqlMetrics();
+ * DataSource dataSource = new InstrumentedDataSource(pool, metrics);
+ * TaskRepository repository = new JdbcTaskRepository(dataSource);
+ * </pre>
+ *
+ * <p>与 {@link edu.campusflow.config.PooledDataSource} 一样，借出的 Connection、Statement、
+ * PreparedStatement 和 ResultSet 都是动态代理：
+ * <ul>
+ *   <li>getConnection：记录获取耗时（包括在连接池里排队的时间）</li>
+ *   <li>setXxx(index, value)：只保存参数的引用，进入慢查询日志时才脱敏</li>
+ *   <li>executeUpdate / executeBatch：记录耗时和影响的行数</li>
+ *   <li>executeQuery：耗时 = 执行本身 + 每次 ResultSet.next() 的时间，行数 = next() 返回 true 的次数；
+ *       读到末尾或 ResultSet / Statement 关闭时记录一次。调用方在两次 next() 之间处理数据的时间不计入</li>
+ * </ul>
+ * 开销是每次 JDBC 调用多一次反射转发，加上每次执行、每行各两次 System.nanoTime()，
+ * 相对 SQL 本身的耗时很小，量化结果见 README 的基准。
+ */
+public class InstrumentedDataSource implements DataSource {
+    private final DataSource delegate;
+    private final SqlMetrics metrics;
+
+    public InstrumentedDataSource(DataSource delegate, SqlMetrics metrics) {
+        if (delegate == null || metrics == null) {
+            throw new IllegalArgumentException("DataSource 和 SqlMetrics 不能为空");
+        }
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection(username, password);
+        metrics.recordAcquire(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    public SqlMetrics getMetrics() {
+        return metrics;
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 代理 Object 自带的方法；返回 null 表示不是这几个方法。
+     */
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Object target) {
+        return switch (method.getName()) {
+            case "equals" -> args != null && args.length == 1 ? proxy == args[0] : null;
+            case "hashCode" -> args == null ? System.identityHashCode(proxy) : null;
+            case "toString" -> args == null ? "Instrumented[" + target + "]" : null;
+            default -> null;
+        };
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object own = objectMethod(proxy, method, args, target);
+            if (own != null) {
+                return own;
+            }
+            return switch (method.getName()) {
+                case "prepareStatement" -> {
+                    PreparedStatement statement = (PreparedStatement) forward(target, method, args);
+                    yield proxy(PreparedStatement.class,
+                        new StatementHandler(statement, (Connection) proxy, (String) args[0]));
+                }
+                case "createStatement" -> {
+                    Statement statement = (Statement) forward(target, method, args);
+                    yield proxy(Statement.class, new StatementHandler(statement, (Connection) proxy, null));
+                }
+                default -> forward(target, method, args);
+            };
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final Connection connection;
+        // PreparedStatement 的 SQL；普通 Statement 为 null，SQL 取自 execute 的参数
+        private final String preparedSql;
+        private String batchSql;
+        private Object[] parameters = new Object[8];
+        private int parameterCount;
+        private QueryHandler openQuery;
+
+        private StatementHandler(Statement target, Connection connection, String preparedSql) {
+            this.target = target;
+            this.connection = connection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                // PreparedStatement.setXxx(parameterIndex, value, ...)；setFetchSize 等只有一个参数
+                bind(index, "setNull".equals(name) ? null : args[1]);
+                return forward(target, method, args);
+            }
+            Object own = objectMethod(proxy, method, args, target);
+            if (own != null) {
+                return own;
+            }
+            return switch (name) {
+                case "executeQuery" -> executeQuery(proxy, method, args);
+                case "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch" ->
+                    executeUpdate(method, args);
+                case "addBatch" -> {
+                    if (args != null && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    yield forward(target, method, args);
+                }
+                case "clearParameters" -> {
+                    Arrays.fill(parameters, 0, parameterCount, null);
+                    parameterCount = 0;
+                    yield forward(target, method, args);
+                }
+                case "clearBatch" -> {
+                    batchSql = null;
+                    yield forward(target, method, args);
+                }
+                case "close" -> {
+                    finishOpenQuery();
+                    yield forward(target, method, args);
+                }
+                case "getConnection" -> connection;
+                default -> forward(target, method, args);
+            };
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        private String sqlOf(Method method, Object[] args) {
+            if (preparedSql != null) {
+                return preparedSql;
+            }
+            if (args != null && args.length > 0 && args[0] instanceof String sql) {
+                return sql;
+            }
+            // 普通 Statement 的 executeBatch：按第一条加入批次的 SQL 分组
+            return batchSql;
+        }
+
+        private Object executeQuery(Object proxy, Method method, Object[] args) throws Throwable {
+            finishOpenQuery();
+            String sql = sqlOf(method, args);
+            long start = System.nanoTime();
+            ResultSet resultSet;
+            try {
+                resultSet = (ResultSet) forward(target, method, args);
+            } catch (Throwable e) {
+                metrics.recordExecution(sql, System.nanoTime() - start, 0, true, parameters, parameterCount);
+                throw e;
+            }
+            openQuery = new QueryHandler(resultSet, (Statement) proxy, sql, System.nanoTime() - start,
+                parameters.clone(), parameterCount);
+            return proxy(ResultSet.class, openQuery);
+        }
+
+        private Object executeUpdate(Method method, Object[] args) throws Throwable {
+            finishOpenQuery();
+            String sql = sqlOf(method, args);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = forward(target, method, args);
+            } catch (Throwable e) {
+                metrics.recordExecution(sql, System.nanoTime() - start, 0, true, parameters, parameterCount);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - start;
+            metrics.recordExecution(sql, elapsed, affectedRows(result), false, parameters, parameterCount);
+            if (method.getName().endsWith("Batch")) {
+                batchSql = null;
+            }
+            return result;
+        }
+
+        private long affectedRows(Object result) throws SQLException {
+            if (result instanceof Number count) {
+                return Math.max(0, count.longValue());
+            }
+            if (result instanceof Boolean hasResultSet) {
+                // execute() 返回结果集时行数未知，记为 0
+                return hasResultSet ? 0 : Math.max(0, target.getUpdateCount());
+            }
+            long total = 0;
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    // SUCCESS_NO_INFO (-2) 表示成功但驱动没有给出行数
+                    total += Math.max(0, count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    total += Math.max(0, count);
+                }
+            }
+            return total;
+        }
+
+        private void finishOpenQuery() {
+            if (openQuery != null) {
+                openQuery.finish();
+                openQuery = null;
+            }
+        }
+    }
+
+    private final class QueryHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final Statement statement;
+        private final String sql;
+        private final Object[] parameters;
+        private final int parameterCount;
+        private long nanos;
+        private long rows;
+        private boolean failed;
+        private boolean finished;
+
+        private QueryHandler(ResultSet target, Statement statement, String sql, long executeNanos,
+                             Object[] parameters, int parameterCount) {
+            this.target = target;
+            this.statement = statement;
+            this.sql = sql;
+            this.nanos = executeNanos;
+            this.parameters = parameters;
+            this.parameterCount = parameterCount;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    long start = System.nanoTime();
+                    boolean hasRow;
+                    try {
+                        hasRow = target.next();
+                    } catch (SQLException e) {
+                        nanos += System.nanoTime() - start;
+                        failed = true;
+                        finish();
+                        throw e;
+                    }
+                    nanos += System.nanoTime() - start;
+                    if (hasRow) {
+                        rows++;
+                    } else {
+                        finish();
+                    }
+                    return hasRow;
+                }
+                case "close" -> {
+                    finish();
+                    target.close();
+                    return null;
+                }
+                case "getStatement" -> {
+                    return statement;
+                }
+                default -> {
+                    Object own = objectMethod(proxy, method, args, target);
+                    return own != null ? own : forward(target, method, args);
+                }
+            }
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                metrics.recordExecution(sql, nanos, rows, failed, parameters, parameterCount);
+            }
+        }
+    }
+
+    // ===== DataSource 的其余方法：转发给被包装的 DataSource =====
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
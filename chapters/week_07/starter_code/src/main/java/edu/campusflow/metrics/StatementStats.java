@@ -0,0 +1,15 @@
+package edu.campusflow.metrics;
+
+/**
+ * 一种语句形状的统计快照。
+ *
+ * @param shape      归一化后的 SQL
+ * @param executions 执行次数（含失败）
+ * @param errors     抛出 SQLException 的次数
+ * @param totalMicros 累计耗时（微秒），用来找出总体上最耗时的语句
+ * @param latencyMicros 单次执行耗时分布（微秒）
+ * @param rows       单次执行读到或影响的行数分布
+ */
+public record StatementStats(String shape, long executions, long errors, long totalMicros,
+                             Histogram.Snapshot latencyMicros, Histogram.Snapshot rows) {
+}
@@ -0,0 +1,267 @@
+package edu.campusflow.repository;
+
+import edu.campusflow.model.Task;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * TaskRepository 的异步门面：所有写操作由一个写线程串行执行，读操作交给读线程池。
+ *
+ * <p>为什么只用一个写线程：SQLite 同一时刻只允许一个写事务。多个请求线程各自调用
+ * JdbcTaskRepository 写入时，都在抢同一把文件锁，抢不到的线程等到 busy_timeout 就报
+ * SQLITE_BUSY。把写入排队交给一个线程后不再有锁竞争，而且写线程可以把队列里连续的
+ * save 合并成一次 saveAll，一个事务提交一批，fsync 次数大大减少。
+ *
+ * <p>使用要点：
+ * <ul>
+ *   <li>写队列有界，队列满时返回的 future 以 RejectedExecutionException 失败（背压），
+ *       调用方应当稍后重试或向客户端返回 503，而不是无限堆积</li>
+ *   <li>读操作使用单独的 TaskRepository，建议基于只读连接池
+ *       （{@code DatabaseConfig.withReadOnly(true)}），SQLite 需开启 WAL 才能读写并行</li>
+ *   <li>读不保证能看到还在队列里的写；需要"写后读"时先等待写操作的 future</li>
+ *   <li>close() 会先执行完已入队的写操作再返回</li>
+ * </ul>
+ */
+public class AsyncTaskRepository implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    // 关闭时放入队列的哨兵，写线程取到它就退出
+    private static final PendingWrite SHUTDOWN = new PendingWrite(null, () -> { }, new CompletableFuture<>());
+
+    private final TaskRepository writeRepository;
+    private final TaskRepository readRepository;
+    private final BlockingQueue<PendingWrite> writes;
+    private final int queueCapacity;
+    private final int maxBatch;
+    private final Thread writer;
+    private final ExecutorService readers;
+    private final AtomicInteger rejectedWrites = new AtomicInteger();
+    private volatile boolean closed;
+
+    public AsyncTaskRepository(TaskRepository writeRepository, TaskRepository readRepository, int readerThreads) {
+        this(writeRepository, readRepository, readerThreads, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param queueCapacity 最多排队的写操作数，超过后新的写操作立即失败
+     * @param maxBatch      写线程一次最多合并多少个连续的 save
+     */
+    public AsyncTaskRepository(TaskRepository writeRepository, TaskRepository readRepository, int readerThreads,
+                               int queueCapacity, int maxBatch) {
+        if (writeRepository == null || readRepository == null) {
+            throw new IllegalArgumentException("Repository 不能为空");
+        }
+        if (readerThreads < 1 || queueCapacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("readerThreads、queueCapacity 和 maxBatch 都必须大于 0");
+        }
+        this.writeRepository = writeRepository;
+        this.readRepository = readRepository;
+        this.queueCapacity = queueCapacity;
+        // 多留一个位置给 SHUTDOWN，队列满时也能关闭
+        this.writes = new ArrayBlockingQueue<>(queueCapacity + 1);
+        this.maxBatch = maxBatch;
+
+        AtomicInteger readerIds = new AtomicInteger();
+        this.readers = Executors.newFixedThreadPool(readerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-reader-" + readerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer = new Thread(this::runWriter, "task-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // ===== 写操作：进入有界队列，由写线程执行 =====
+
+    public CompletableFuture<Void> save(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task 不能为空");
+        }
+        // Task 的 status 可变：入队时复制一份，调用方之后的 setStatus 不会被写线程读到
+        Task snapshot = new Task(task.getId(), task.getTitle(), task.getDescription(), task.getStatus(),
+            task.getCreatedAt());
+        return submit(new PendingWrite(snapshot, () -> writeRepository.save(snapshot), new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<Void> saveAll(Collection<Task> tasks) {
+        if (tasks == null) {
+            throw new IllegalArgumentException("tasks 不能为空");
+        }
+        List<Task> copy = List.copyOf(tasks);
+        return submit(new PendingWrite(null, () -> writeRepository.saveAll(copy), new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<Void> delete(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("ID 不能为空");
+        }
+        return submit(new PendingWrite(null, () -> writeRepository.delete(id), new CompletableFuture<>()));
+    }
+
+    public CompletableFuture<Void> deleteAll(Collection<String> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("ids 不能为空");
+        }
+        List<String> copy = List.copyOf(ids);
+        return submit(new PendingWrite(null, () -> writeRepository.deleteAll(copy), new CompletableFuture<>()));
+    }
+
+    // ===== 读操作：在读线程池上执行 =====
+
+    public CompletableFuture<Optional<Task>> findById(String id) {
+        return read(() -> readRepository.findById(id));
+    }
+
+    public CompletableFuture<List<Task>> findAll() {
+        return read(readRepository::findAll);
+    }
+
+    /**
+     * 当前排队等待写线程执行的写操作数。
+     */
+    public int pendingWrites() {
+        return writes.size();
+    }
+
+    /**
+     * 因为队列已满被拒绝的写操作累计数。
+     */
+    public int rejectedWrites() {
+        return rejectedWrites.get();
+    }
+
+    /**
+     * 停止接受新的读写，执行完已入队的写操作后返回。
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readers.shutdown();
+        try {
+            writes.put(SHUTDOWN);
+            writer.join();
+            readers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // close 与 submit 并发时，可能有写操作排在 SHUTDOWN 之后
+        PendingWrite late;
+        while ((late = writes.poll()) != null) {
+            late.future.completeExceptionally(new RejectedExecutionException("AsyncTaskRepository 已关闭"));
+        }
+    }
+
+    private CompletableFuture<Void> submit(PendingWrite write) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("AsyncTaskRepository 已关闭"));
+        }
+        // 队列里可能已经有 SHUTDOWN，只按普通写操作计算容量
+        if (writes.size() >= queueCapacity || !writes.offer(write)) {
+            rejectedWrites.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                "写入队列已满（容量 " + queueCapacity + "），请稍后重试"));
+        }
+        // 上面的检查和 offer 之间 close 可能已经执行完，写操作落在没人处理的队列里。
+        // 入队后仍看到 closed == false，说明它排在 SHUTDOWN 之前，写线程一定会执行；
+        // 看到 true 时自己把它移出队列，移不掉说明写线程或 close 已经接手并会完成 future
+        if (closed && writes.remove(write)) {
+            write.future.completeExceptionally(new RejectedExecutionException("AsyncTaskRepository 已关闭"));
+        }
+        return write.future;
+    }
+
+    private <T> CompletableFuture<T> read(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, readers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("AsyncTaskRepository 已关闭", e));
+        }
+    }
+
+    private void runWriter() {
+        List<PendingWrite> drained = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                drained.add(writes.take());
+            } catch (InterruptedException e) {
+                // 只有 close 能让写线程退出，忽略中断继续处理队列
+                continue;
+            }
+            writes.drainTo(drained, maxBatch - 1);
+
+            int shutdownAt = drained.indexOf(SHUTDOWN);
+            if (shutdownAt >= 0) {
+                execute(drained.subList(0, shutdownAt));
+                return;
+            }
+            execute(drained);
+            drained.clear();
+        }
+    }
+
+    /**
+     * 按入队顺序执行；连续的 save 合并成一次 saveAll。批量失败时逐条重试，
+     * 让一条坏数据只影响它自己的 future。
+     */
+    private void execute(List<PendingWrite> batch) {
+        int i = 0;
+        while (i < batch.size()) {
+            int end = i;
+            while (end < batch.size() && batch.get(end).task != null) {
+                end++;
+            }
+            if (end - i > 1) {
+                saveRun(batch.subList(i, end));
+                i = end;
+            } else {
+                runSingle(batch.get(i));
+                i++;
+            }
+        }
+    }
+
+    private void saveRun(List<PendingWrite> run) {
+        List<Task> tasks = new ArrayList<>(run.size());
+        for (PendingWrite write : run) {
+            tasks.add(write.task);
+        }
+        try {
+            writeRepository.saveAll(tasks);
+        } catch (RuntimeException e) {
+            run.forEach(this::runSingle);
+            return;
+        }
+        run.forEach(write -> write.future.complete(null));
+    }
+
+    private void runSingle(PendingWrite write) {
+        try {
+            write.action.run();
+            write.future.complete(null);
+        } catch (RuntimeException e) {
+            write.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 一个排队中的写操作。task 不为空表示这是一次 save，写线程可以把它与相邻的 save 合并。
+     */
+    private record PendingWrite(Task task, Runnable action, CompletableFuture<Void> future) {
+    }
+}
@@ -0,0 +1,84 @@
+package edu.campusflow.repository;
+
+import edu.campusflow.model.Task;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 基于 ConcurrentHashMap 的 TaskRepository，进程退出后数据丢失。
+ *
+ * <p>用作对照组：与 JdbcTaskRepository 实现同一个接口，可以在测试和基准里直接替换，
+ * 衡量"持久化"本身的开销。
+ */
+public class InMemoryTaskRepository implements TaskRepository {
+    private static final Comparator<Task> NEWEST_FIRST = Comparator.comparing(Task::getCreatedAt).reversed();
+
+    private final Map<String, Task> tasks = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task 不能为空");
+        }
+        tasks.put(task.getId(), task);
+    }
+
+    @Override
+    public void saveAll(Collection<Task> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("tasks 不能为空");
+        }
+        // 先全部校验，保证要么全部写入、要么一条都不写
+        for (Task task : batch) {
+            if (task == null) {
+                throw new IllegalArgumentException("Task 不能为空");
+            }
+        }
+        batch.forEach(this::save);
+    }
+
+    @Override
+    public Optional<Task> findById(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("ID 不能为空");
+        }
+        return Optional.ofNullable(tasks.get(id));
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return tasks.values().stream().sorted(NEWEST_FIRST).toList();
+    }
+
+    @Override
+    public Stream<Task> streamAll() {
+        // 排序需要看到全部元素，内存实现没有真正的惰性可言
+        return findAll().stream();
+    }
+
+    @Override
+    public void delete(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("ID 不能为空");
+        }
+        tasks.remove(id);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("ids 不能为空");
+        }
+        for (String id : ids) {
+            if (id == null || id.isBlank()) {
+                throw new IllegalArgumentException("ID 不能为空");
+            }
+        }
+        ids.forEach(tasks::remove);
+    }
+}
@@ -1,52 +1,346 @@
 package edu.campusflow.repository;
 
 import edu.campusflow.model.Task;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.sql.DataSource;
 
+/**
+ * JDBC 版 TaskRepository，支持 SQLite（生产）和 H2（测试）。
+ *
+ * <p>连接由注入的 DataSource 提供（通常是 {@link edu.campusflow.config.PooledDataSource}），
+ * 每个方法借一个连接、用完 close 归还，不再每次新建物理连接。
+ *
+ * <p>saveAll / deleteAll 在一个事务里用 JDBC batch 执行：
+ * <ul>
+ *   <li>单条 save 在自动提交模式下每行一个事务，SQLite 每次提交都要 fsync</li>
+ *   <li>批量写入只在最后提交一次；每攒够 batchSize 行调用一次 executeBatch，
+ *       batchSize 越大，驱动往返次数越少，但一次占用的内存也越多</li>
+ * </ul>
+ *
+ * <p>streamAll / streamByStatus 边读 ResultSet 边产出 Task，不把整张表装进 List；
+ * 流关闭时才归还连接，所以调用方必须用 try-with-resources 关闭流。
+ *
+ * <p>status 在表里存为 status_code 小整数（0 pending、1 in_progress、2 done），
+ * 与 created_at 组成联合索引，按状态查询只比较整数，并且直接按索引顺序返回、无需再排序。
+ */
 public class JdbcTaskRepository implements TaskRepository {
-    private final String url;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_FETCH_SIZE = 200;
 
-    public JdbcTaskRepository(String url) {
-        if (url == null || url.isBlank()) {
-            throw new IllegalArgumentException("Database URL 不能为空");
+    // 下标就是 status_code，顺序不能改，只能在末尾追加
+    private static final List<String> STATUSES = List.of("pending", "in_progress", "done");
+
+    // SQLite 用 INSERT ... ON CONFLICT，H2 不支持该语法，改用 MERGE（按数据库产品名选择）
+    private static final String SQLITE_UPSERT = """
+        INSERT INTO tasks (id, title, description, status_code, created_at)
+        VALUES (?, ?, ?, ?, ?)
+        ON CONFLICT (id) DO UPDATE SET
+            title = excluded.title,
+            description = excluded.description,
+            status_code = excluded.status_code,
+            created_at = excluded.created_at
+        """;
+    private static final String H2_UPSERT = """
+        MERGE INTO tasks (id, title, description, status_code, created_at)
+        KEY (id)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+    private static final String DELETE_BY_ID = "DELETE FROM tasks WHERE id = ?";
+    private static final String SELECT_COLUMNS = "SELECT id, title, description, status_code, created_at FROM tasks";
+
+    // 定长时间格式：created_at 存为 TEXT，定长才能保证字符串顺序等于时间顺序
+    private static final DateTimeFormatter CREATED_AT_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final DataSource dataSource;
+    private final String upsertSql;
+    private final int batchSize;
+    private final int fetchSize;
+
+    public JdbcTaskRepository(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcTaskRepository(DataSource dataSource, int batchSize) {
+        this(dataSource, batchSize, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param fetchSize 流式查询时提示驱动每次从数据库取多少行；
+     *                  嵌入式的 SQLite 本来就逐行读取，对 H2 等客户端/服务器数据库影响更大
+     */
+    public JdbcTaskRepository(DataSource dataSource, int batchSize, int fetchSize) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("DataSource 不能为空");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize 必须大于 0");
+        }
+        this.dataSource = dataSource;
+        this.upsertSql = isH2(dataSource) ? H2_UPSERT : SQLITE_UPSERT;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+    }
+
+    private static boolean isH2(DataSource dataSource) {
+        try (Connection conn = dataSource.getConnection()) {
+            return "H2".equals(conn.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            throw new RuntimeException("读取数据库类型失败: " + e.getMessage(), e);
         }
-        this.url = url;
     }
 
     @Override
     public void save(Task task) {
-        // 待办：校验 task，然后使用 PreparedStatement 和 INSERT ... ON CONFLICT 更新。
-        throw new UnsupportedOperationException("待办：基于该 URL 实现 save：" + url);
+        validate(task);
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(upsertSql)) {
+            bindTask(pstmt, task);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("保存任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Task> tasks) {
+        if (tasks == null) {
+            throw new IllegalArgumentException("tasks 不能为空");
+        }
+        // 先全部校验，避免写了一半才发现非法数据
+        tasks.forEach(JdbcTaskRepository::validate);
+
+        executeBatch(upsertSql, tasks, JdbcTaskRepository::bindTask, "批量保存任务失败");
     }
 
     @Override
     public Optional<Task> findById(String id) {
-        // 待办：校验 id，按主键查询，并把 ResultSet 映射为 Task。
-        throw new UnsupportedOperationException("待办：实现 findById");
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("ID 不能为空");
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_COLUMNS + " WHERE id = ?")) {
+            pstmt.setString(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? Optional.of(mapResultSetToTask(rs)) : Optional.empty();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("查询任务失败: " + e.getMessage(), e);
+        }
     }
 
     @Override
     public List<Task> findAll() {
-        // 待办：查询所有 tasks，并按 created_at 倒序排列。
-        throw new UnsupportedOperationException("待办：实现 findAll");
+        try (Stream<Task> tasks = streamAll()) {
+            return tasks.toList();
+        }
+    }
+
+    @Override
+    public Stream<Task> streamAll() {
+        return stream(SELECT_COLUMNS + " ORDER BY created_at DESC", null, "查询任务列表失败");
     }
 
     @Override
     public void delete(String id) {
-        // 待办：校验 id，并用 PreparedStatement 删除记录。
-        throw new UnsupportedOperationException("待办：实现 delete");
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("ID 不能为空");
+        }
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(DELETE_BY_ID)) {
+            pstmt.setString(1, id);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("删除任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<String> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("ids 不能为空");
+        }
+        for (String id : ids) {
+            if (id == null || id.isBlank()) {
+                throw new IllegalArgumentException("ID 不能为空");
+            }
+        }
+
+        executeBatch(DELETE_BY_ID, ids, (pstmt, id) -> pstmt.setString(1, id), "批量删除任务失败");
     }
 
     public List<Task> findByStatus(String status) {
-        // 待办：用 PreparedStatement 按 status 查询。
-        throw new UnsupportedOperationException("待办：实现 findByStatus");
+        try (Stream<Task> tasks = streamByStatus(status)) {
+            return tasks.toList();
+        }
+    }
+
+    /**
+     * 按状态流式查询，未知状态返回空流。与 streamAll 一样，调用方必须关闭返回的流。
+     */
+    public Stream<Task> streamByStatus(String status) {
+        if (status == null || status.isBlank()) {
+            throw new IllegalArgumentException("status 不能为空");
+        }
+        int code = STATUSES.indexOf(status);
+        if (code < 0) {
+            return Stream.empty();
+        }
+        return stream(SELECT_COLUMNS + " WHERE status_code = ? ORDER BY created_at DESC", code, "按状态查询任务失败");
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private interface Binder<T> {
+        void bind(PreparedStatement pstmt, T item) throws SQLException;
+    }
+
+    /**
+     * 在一个事务里分批执行同一条语句，任何一批失败都整体回滚。
+     */
+    private <T> void executeBatch(String sql, Collection<T> items, Binder<T> binder, String errorMessage) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (T item : items) {
+                    binder.bind(pstmt, item);
+                    pstmt.addBatch();
+                    if (++pending == batchSize) {
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    pstmt.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 打开连接和 ResultSet，包装成惰性的 Stream：每次 tryAdvance 读一行，流关闭时依次关闭
+     * ResultSet、PreparedStatement 和连接。这里不能用 try-with-resources，
+     * 因为资源的生命周期要延续到方法返回之后。
+     */
+    private Stream<Task> stream(String sql, Integer statusCode, String errorMessage) {
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            if (statusCode != null) {
+                pstmt.setInt(1, statusCode);
+            }
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            try {
+                closeAll(rs, pstmt, conn);
+            } catch (RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw new RuntimeException(errorMessage + ": " + e.getMessage(), e);
+        }
+
+        ResultSet resultSet = rs;
+        AutoCloseable[] resources = {rs, pstmt, conn};
+        Spliterator<Task> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Task> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(mapResultSetToTask(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException(errorMessage + ": " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeAll(resources));
+    }
+
+    private static void closeAll(AutoCloseable... resources) {
+        RuntimeException failure = null;
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = new RuntimeException("关闭数据库资源失败: " + e.getMessage(), e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void validate(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task 不能为空");
+        }
+        if (!STATUSES.contains(task.getStatus())) {
+            throw new IllegalArgumentException("未知的任务状态: " + task.getStatus());
+        }
+    }
+
+    private static void bindTask(PreparedStatement pstmt, Task task) throws SQLException {
+        pstmt.setString(1, task.getId());
+        pstmt.setString(2, task.getTitle());
+        pstmt.setString(3, task.getDescription());
+        pstmt.setInt(4, STATUSES.indexOf(task.getStatus()));
+        pstmt.setString(5, CREATED_AT_FORMAT.format(task.getCreatedAt()));
     }
 
     private Task mapResultSetToTask(ResultSet rs) throws SQLException {
-        // 待办：映射 id、title、description、status 和 created_at。
-        throw new UnsupportedOperationException("待办：实现 mapResultSetToTask");
+        return new Task(
+            rs.getString("id"),
+            rs.getString("title"),
+            rs.getString("description"),
+            STATUSES.get(rs.getInt("status_code")),
+            Instant.parse(rs.getString("created_at"))
+        );
     }
 }
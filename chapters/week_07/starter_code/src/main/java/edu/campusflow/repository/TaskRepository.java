@@ -1,15 +1,33 @@
 package edu.campusflow.repository;
 
 import edu.campusflow.model.Task;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TaskRepository {
     void save(Task task);
 
+    /**
+     * 批量保存（存在则更新），全部成功或全部回滚。
+     */
+    void saveAll(Collection<Task> tasks);
+
     Optional<Task> findById(String id);
 
     List<Task> findAll();
 
+    /**
+     * 与 findAll 顺序相同，但逐行读取、不一次性装入内存。
+     * 流持有数据库连接，调用方必须关闭它：{@code try (Stream<Task> tasks = repository.streamAll()) { ... }}
+     */
+    Stream<Task> streamAll();
+
     void delete(String id);
+
+    /**
+     * 批量删除，不存在的 id 会被忽略；全部成功或全部回滚。
+     */
+    void deleteAll(Collection<String> ids);
 }
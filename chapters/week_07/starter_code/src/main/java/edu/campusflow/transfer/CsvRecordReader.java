@@ -0,0 +1,112 @@
+package edu.campusflow.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 逐条读取 CSV 记录（RFC 4180）：引号内的逗号、换行和 "" 转义都按字段内容处理。
+ * 一次只在内存里保留一条记录。
+ */
+final class CsvRecordReader {
+    private final BufferedReader reader;
+    private int lineNumber;
+    private int recordStartLine;
+    private String rawRecord;
+
+    CsvRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录；文件结束时返回 null。引号没有闭合时抛出 IllegalArgumentException，
+     * 此时后续内容已无法可靠切分。
+     */
+    List<String> next() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        recordStartLine = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder raw = new StringBuilder(line);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // 引号内的换行属于字段内容，继续读下一行
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException("第 " + recordStartLine + " 行的引号没有闭合");
+                }
+                lineNumber++;
+                raw.append('\n').append(line);
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        rawRecord = raw.toString();
+        return fields;
+    }
+
+    int recordStartLine() {
+        return recordStartLine;
+    }
+
+    String rawRecord() {
+        return rawRecord;
+    }
+
+    static void appendField(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,14 @@
+package edu.campusflow.transfer;
+
+import java.time.Duration;
+
+/**
+ * 一次导入的结果。rejected 行已写入拒绝文件，附带行号和原因。
+ */
+public record ImportResult(long imported, long rejected, Duration elapsed) {
+
+    public double rowsPerSecond() {
+        long nanos = Math.max(1, elapsed.toNanos());
+        return (imported + rejected) * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,89 @@
+package edu.campusflow.transfer;
+
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.TaskRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 把全部任务导出为 CSV 或 NDJSON。
+ *
+ * <p>数据来自 TaskRepository.streamAll：JdbcTaskRepository 用只进的 ResultSet 逐行读取，
+ * 每行格式化后立即写出，不会把整张表装进内存。
+ */
+public class TaskExporter {
+    private final TaskRepository repository;
+
+    public TaskExporter(TaskRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("TaskRepository 不能为空");
+        }
+        this.repository = repository;
+    }
+
+    /**
+     * 按扩展名判断格式导出到文件，返回导出的行数。
+     */
+    public long exportFile(Path target) throws IOException {
+        TaskFormat format = TaskFormat.fromFileName(target.getFileName().toString());
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            return exportTo(out, format);
+        }
+    }
+
+    public long exportTo(Writer output, TaskFormat format) throws IOException {
+        Writer out = output instanceof BufferedWriter ? output : new BufferedWriter(output, 1 << 16);
+        StringBuilder line = new StringBuilder(256);
+        long count = 0;
+
+        if (format == TaskFormat.CSV) {
+            out.write("id,title,description,status,created_at\n");
+        }
+        try (Stream<Task> tasks = repository.streamAll()) {
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                line.setLength(0);
+                if (format == TaskFormat.CSV) {
+                    appendCsv(line, task);
+                } else {
+                    appendJson(line, task);
+                }
+                line.append('\n');
+                out.write(line.toString());
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private static void appendCsv(StringBuilder line, Task task) {
+        CsvRecordReader.appendField(line, task.getId());
+        line.append(',');
+        CsvRecordReader.appendField(line, task.getTitle());
+        line.append(',');
+        CsvRecordReader.appendField(line, task.getDescription());
+        line.append(',');
+        CsvRecordReader.appendField(line, task.getStatus());
+        line.append(',').append(task.getCreatedAt());
+    }
+
+    private static void appendJson(StringBuilder line, Task task) {
+        line.append("{\"id\":");
+        JsonLines.appendString(line, task.getId());
+        line.append(",\"title\":");
+        JsonLines.appendString(line, task.getTitle());
+        line.append(",\"description\":");
+        JsonLines.appendString(line, task.getDescription());
+        line.append(",\"status\":");
+        JsonLines.appendString(line, task.getStatus());
+        line.append(",\"createdAt\":\"").append(task.getCreatedAt()).append("\"}");
+    }
+}
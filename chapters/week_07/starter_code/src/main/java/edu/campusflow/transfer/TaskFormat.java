@@ -0,0 +1,31 @@
+package edu.campusflow.transfer;
+
+import java.util.Locale;
+
+/**
+ * 导入导出支持的文件格式。
+ *
+ * <ul>
+ *   <li>CSV：首行为表头 {@code id,title,description,status,created_at}，字段按 RFC 4180 转义，
+ *       引号内可以包含逗号和换行</li>
+ *   <li>NDJSON：每行一个 JSON 对象，键为 {@code id、title、description、status、createdAt}</li>
+ * </ul>
+ */
+public enum TaskFormat {
+    CSV,
+    NDJSON;
+
+    /**
+     * 按扩展名判断格式：.csv 或 .ndjson / .jsonl。
+     */
+    public static TaskFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("无法识别的文件格式: " + fileName + "（支持 .csv、.ndjson、.jsonl）");
+    }
+}
@@ -0,0 +1,340 @@
+package edu.campusflow.transfer;
+
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.TaskRepository;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 从 CSV 或 NDJSON 批量导入任务。
+ *
+ * <p>边读边写：解析线程一次产出一条记录，攒满 chunkSize 条交给调用方线程调用一次 saveAll
+ * （JdbcTaskRepository 在一个事务里分批 executeBatch）。两个线程之间只有容量为 2 的队列，
+ * 内存占用只和 chunkSize 有关，与文件大小无关；解析和写库同时进行，总耗时接近两者中较慢的一个。
+ *
+ * <p>无法解析的记录，以及写库时被拒绝的记录（例如未知状态、标题过长），写入拒绝文件，
+ * 不影响其他记录。某个分块整体写入失败时，把它对半拆开重试，找出具体是哪几行有问题。
+ * 拒绝文件是 CSV：{@code line,reason,record}，record 是原始记录文本。
+ * 由于分块写库时才发现的错误要等分块写完才记录，拒绝文件中的行不一定按行号排序。
+ */
+public class TaskImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    // 写库失败的分块拆到这个行数以内时改为逐条保存，再拆下去省不了几次提交
+    static final int ROW_BY_ROW_THRESHOLD = 16;
+
+    private static final List<String> CSV_COLUMNS = List.of("id", "title", "description", "status", "created_at");
+
+    /**
+     * 每写完一个分块回调一次，参数是到目前为止成功和被拒绝的行数。
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long imported, long rejected);
+    }
+
+    private final TaskRepository repository;
+    private final int chunkSize;
+
+    public TaskImporter(TaskRepository repository) {
+        this(repository, DEFAULT_CHUNK_SIZE);
+    }
+
+    public TaskImporter(TaskRepository repository, int chunkSize) {
+        if (repository == null) {
+            throw new IllegalArgumentException("TaskRepository 不能为空");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize 必须大于 0");
+        }
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 按扩展名判断格式导入文件。没有被拒绝的行时不保留拒绝文件。
+     */
+    public ImportResult importFile(Path source, Path rejectedFile, ProgressListener progress) throws IOException {
+        TaskFormat format = TaskFormat.fromFileName(source.getFileName().toString());
+        ImportResult result;
+        try (Reader input = Files.newBufferedReader(source, StandardCharsets.UTF_8);
+             Writer rejected = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8)) {
+            result = importFrom(input, format, rejected, progress);
+        }
+        if (result.rejected() == 0) {
+            Files.deleteIfExists(rejectedFile);
+        }
+        return result;
+    }
+
+    public ImportResult importFrom(Reader input, TaskFormat format, Writer rejected, ProgressListener progress)
+            throws IOException {
+        BufferedReader reader = input instanceof BufferedReader buffered
+            ? buffered : new BufferedReader(input, 1 << 16);
+        Rejections rejections = new Rejections(rejected);
+        ProgressListener listener = progress == null ? (imported, skipped) -> { } : progress;
+        long start = System.nanoTime();
+
+        // 解析和写库各占一个线程：写线程（调用方线程）提交当前分块时，解析线程已经在准备下一块。
+        // 队列容量 2，内存中最多同时有 4 个分块（解析中、排队 2 个、写入中）
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(2);
+        AtomicReference<Throwable> parseFailure = new AtomicReference<>();
+        Thread parser = new Thread(() -> {
+            try {
+                ChunkSink sink = new ChunkSink(chunks, rejections);
+                switch (format) {
+                    case CSV -> readCsv(reader, sink);
+                    case NDJSON -> readNdjson(reader, sink);
+                }
+                sink.finish();
+            } catch (Throwable e) {
+                parseFailure.set(e);
+                chunks.clear();
+                chunks.offer(Chunk.END);
+            }
+        }, "task-import-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        long imported = 0;
+        try {
+            for (Chunk chunk = chunks.take(); chunk != Chunk.END; chunk = chunks.take()) {
+                imported += write(chunk, rejections);
+                listener.onProgress(imported, rejections.count());
+            }
+            parser.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导入被中断", e);
+        } finally {
+            // 写库出错提前退出时，解析线程可能正阻塞在 put 上
+            parser.interrupt();
+        }
+        rejections.flush();
+
+        Throwable failure = parseFailure.get();
+        if (failure instanceof IOException io) {
+            throw io;
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (failure != null) {
+            throw new IOException("解析导入文件失败: " + failure.getMessage(), failure);
+        }
+        return new ImportResult(imported, rejections.count(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * 写入一个分块，返回成功的行数。
+     */
+    private long write(Chunk chunk, Rejections rejections) throws IOException {
+        return write(chunk, 0, chunk.tasks.size(), rejections);
+    }
+
+    /**
+     * 写入分块中 [from, to) 的行。saveAll 失败时已整体回滚，对半拆开分别重试：
+     * 一条坏行只需 log2(chunkSize) 层重试就能找出来，其余的行仍然成批提交，
+     * 而不是退化成一万次自动提交的 save。拆到 {@link #ROW_BY_ROW_THRESHOLD} 行以内时再逐条保存。
+     */
+    private long write(Chunk chunk, int from, int to, Rejections rejections) throws IOException {
+        try {
+            repository.saveAll(chunk.tasks.subList(from, to));
+            return to - from;
+        } catch (RuntimeException chunkFailure) {
+            if (to - from > ROW_BY_ROW_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                return write(chunk, from, mid, rejections) + write(chunk, mid, to, rejections);
+            }
+            long saved = 0;
+            for (int i = from; i < to; i++) {
+                try {
+                    repository.save(chunk.tasks.get(i));
+                    saved++;
+                } catch (RuntimeException e) {
+                    rejections.reject(chunk.lines.get(i), e.getMessage(), chunk.raws.get(i));
+                }
+            }
+            return saved;
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ChunkSink sink) throws IOException, InterruptedException {
+        CsvRecordReader records = new CsvRecordReader(reader);
+        List<String> header = records.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).strip().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("id") || !columns.containsKey("title")) {
+            throw new IllegalArgumentException("CSV 表头必须包含 id 和 title 列，实际为: " + header);
+        }
+
+        while (true) {
+            List<String> fields;
+            try {
+                fields = records.next();
+            } catch (IllegalArgumentException e) {
+                // 引号没闭合会吞掉文件剩余部分，只能整体报告为一条拒绝记录
+                sink.rejections.reject(records.recordStartLine(), e.getMessage(), "");
+                return;
+            }
+            if (fields == null) {
+                return;
+            }
+            int line = records.recordStartLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            if (fields.size() != header.size()) {
+                sink.rejections.reject(line, "字段数为 " + fields.size() + "，表头为 " + header.size(),
+                    records.rawRecord());
+                continue;
+            }
+            Map<String, String> values = new HashMap<>();
+            for (String column : CSV_COLUMNS) {
+                Integer index = columns.get(column);
+                if (index != null) {
+                    values.put(column, fields.get(index));
+                }
+            }
+            // CSV 无法区分空字符串和 null，空的 description 按 null 处理
+            String description = values.get("description");
+            sink.add(line, records.rawRecord(), values.get("id"), values.get("title"),
+                description == null || description.isEmpty() ? null : description,
+                values.get("status"), values.get("created_at"));
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ChunkSink sink) throws IOException, InterruptedException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> values;
+            try {
+                values = JsonLines.parseObject(line);
+            } catch (IllegalArgumentException e) {
+                sink.rejections.reject(lineNumber, e.getMessage(), line);
+                continue;
+            }
+            sink.add(lineNumber, line, values.get("id"), values.get("title"),
+                values.get("description"), values.get("status"), values.get("createdAt"));
+        }
+    }
+
+    /**
+     * 一个分块：解析出的 Task 和对应的行号、原始文本，写库失败时用来生成拒绝记录。
+     */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        final List<Task> tasks;
+        final List<Integer> lines;
+        final List<String> raws;
+
+        Chunk(int capacity) {
+            tasks = new ArrayList<>(capacity);
+            lines = new ArrayList<>(capacity);
+            raws = new ArrayList<>(capacity);
+        }
+    }
+
+    /**
+     * 解析线程把记录攒成分块，满了就交给写线程。
+     */
+    private final class ChunkSink {
+        private final BlockingQueue<Chunk> chunks;
+        private final Rejections rejections;
+        private Chunk current = new Chunk(chunkSize);
+
+        private ChunkSink(BlockingQueue<Chunk> chunks, Rejections rejections) {
+            this.chunks = chunks;
+            this.rejections = rejections;
+        }
+
+        void add(int line, String raw, String id, String title, String description, String status,
+                 String createdAt) throws IOException, InterruptedException {
+            Task task;
+            try {
+                Instant created = createdAt == null || createdAt.isBlank() ? null : Instant.parse(createdAt);
+                task = new Task(id, title, description, status, created);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                rejections.reject(line, e.getMessage(), raw);
+                return;
+            }
+            current.tasks.add(task);
+            current.lines.add(line);
+            current.raws.add(raw);
+            if (current.tasks.size() == chunkSize) {
+                chunks.put(current);
+                current = new Chunk(chunkSize);
+            }
+        }
+
+        void finish() throws InterruptedException {
+            if (!current.tasks.isEmpty()) {
+                chunks.put(current);
+            }
+            chunks.put(Chunk.END);
+        }
+    }
+
+    /**
+     * 拒绝文件。解析线程和写线程都会写入，所以方法加锁。
+     */
+    private static final class Rejections {
+        private final Writer out;
+        private final StringBuilder line = new StringBuilder();
+        private long count;
+
+        private Rejections(Writer out) {
+            this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        }
+
+        synchronized void reject(int lineNumber, String reason, String raw) throws IOException {
+            if (count == 0) {
+                out.write("line,reason,record\n");
+            }
+            count++;
+            line.setLength(0);
+            line.append(lineNumber).append(',');
+            CsvRecordReader.appendField(line, reason);
+            line.append(',');
+            CsvRecordReader.appendField(line, raw);
+            line.append('\n');
+            out.write(line.toString());
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
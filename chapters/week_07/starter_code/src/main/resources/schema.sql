@@ -1,9 +1,14 @@
--- TODO: create the tasks table for Week 07.
--- Required columns:
---   id TEXT PRIMARY KEY
---   title TEXT NOT NULL
---   description TEXT
---   status TEXT with CHECK ('pending', 'in_progress', 'done')
---   created_at TEXT
---
--- Add an index that helps status-based queries.
+-- Week 07 tasks table.
+-- VARCHAR instead of TEXT for indexed columns: SQLite treats both as TEXT,
+-- while H2 (used in tests) maps TEXT to CLOB, which cannot be indexed.
+-- status_code: 0 = pending, 1 = in_progress, 2 = done (see JdbcTaskRepository).
+CREATE TABLE IF NOT EXISTS tasks (
+    id VARCHAR(64) PRIMARY KEY,
+    title VARCHAR(200) NOT NULL,
+    description TEXT,
+    status_code SMALLINT NOT NULL CHECK (status_code IN (0, 1, 2)),
+    created_at VARCHAR(40) NOT NULL
+);
+
+-- Covers "WHERE status_code = ? ORDER BY created_at DESC" without a sort step.
+CREATE INDEX IF NOT EXISTS idx_tasks_status_code ON tasks (status_code, created_at);
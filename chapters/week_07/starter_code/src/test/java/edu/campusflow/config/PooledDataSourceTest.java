@@ -0,0 +1,223 @@
+package edu.campusflow.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledDataSourceTest {
+
+    private PooledDataSource dataSource;
+
+    private PooledDataSource create(DatabaseConfig config) {
+        dataSource = config.createDataSource();
+        return dataSource;
+    }
+
+    private static DatabaseConfig h2() {
+        return new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    void closedConnectionShouldBeReused() throws SQLException {
+        PooledDataSource pool = create(h2().withPoolSize(2));
+
+        try (Connection first = pool.getConnection()) {
+            assertEquals(1, pool.getActiveConnections());
+            assertFalse(first.isClosed());
+        }
+        try (Connection second = pool.getConnection()) {
+            assertTrue(second.isValid(1));
+        }
+
+        assertEquals(1, pool.getCreatedConnections());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test
+    void exhaustedPoolShouldTimeOut() throws SQLException {
+        PooledDataSource pool = create(h2().withPoolSize(1).withAcquireTimeout(Duration.ofMillis(100)));
+
+        try (Connection held = pool.getConnection()) {
+            assertThrows(SQLTimeoutException.class, pool::getConnection);
+        }
+        try (Connection afterRelease = pool.getConnection()) {
+            assertFalse(afterRelease.isClosed());
+        }
+    }
+
+    @Test
+    void invalidIdleConnectionShouldBeReplaced() throws SQLException {
+        PooledDataSource pool = create(h2());
+
+        try (Connection connection = pool.getConnection()) {
+            // 模拟数据库端断开：直接关闭底层物理连接
+            connection.unwrap(Connection.class).close();
+        }
+        try (Connection replacement = pool.getConnection()) {
+            assertTrue(replacement.isValid(1));
+        }
+
+        assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    void returnedConnectionShouldBeResetAndUnusable() throws SQLException {
+        PooledDataSource pool = create(h2().withPoolSize(1));
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE notes (id INT)");
+        }
+
+        Connection dirty = pool.getConnection();
+        dirty.setAutoCommit(false);
+        try (Statement statement = dirty.createStatement()) {
+            statement.execute("INSERT INTO notes VALUES (1)");
+        }
+        dirty.close();
+        dirty.close();  // 重复 close 不会重复归还
+        assertThrows(SQLException.class, dirty::createStatement);
+
+        try (Connection clean = pool.getConnection();
+             Statement statement = clean.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM notes")) {
+            assertTrue(clean.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1), "未提交的事务应在归还时回滚");
+        }
+    }
+
+    @Test
+    void concurrentCloseShouldReturnConnectionOnce() throws Exception {
+        PooledDataSource pool = create(h2().withPoolSize(1).withAcquireTimeout(Duration.ofMillis(100)));
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        for (int round = 0; round < 200; round++) {
+            Connection connection = pool.getConnection();
+            Thread other = new Thread(() -> {
+                try {
+                    barrier.await();
+                    connection.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            other.start();
+            barrier.await();
+            connection.close();
+            other.join();
+        }
+
+        assertEquals(1, pool.getIdleConnections(), "同一个连接不应进入空闲队列两次");
+        assertEquals(0, pool.getActiveConnections());
+        try (Connection held = pool.getConnection()) {
+            assertThrows(SQLTimeoutException.class, pool::getConnection, "许可不应被释放两次");
+        }
+    }
+
+    @Test
+    void statementShouldNotExposePhysicalConnection() throws SQLException {
+        PooledDataSource pool = create(h2().withPoolSize(1));
+        Connection connection = pool.getConnection();
+        Statement statement = connection.createStatement();
+        PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+        ResultSet rs = prepared.executeQuery();
+
+        assertSame(connection, statement.getConnection());
+        assertSame(connection, prepared.getConnection());
+        assertSame(prepared, rs.getStatement());
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+
+        // 通过 Statement 拿到的连接 close 时也只是归还
+        rs.getStatement().getConnection().close();
+        assertEquals(1, pool.getIdleConnections());
+        assertThrows(SQLException.class, () -> statement.execute("SELECT 1"));
+        statement.close();
+        prepared.close();
+
+        try (Connection reused = pool.getConnection()) {
+            assertTrue(reused.isValid(1));
+        }
+        assertEquals(1, pool.getCreatedConnections());
+    }
+
+    @Test
+    void connectionHeldPastThresholdShouldBeReportedOnce() throws Exception {
+        PooledDataSource pool = create(h2().withLeakDetectionThreshold(Duration.ofMillis(50)));
+
+        try (Connection leaked = pool.getConnection()) {
+            Thread.sleep(300);
+        }
+        try (Connection quick = pool.getConnection()) {
+            assertFalse(quick.isClosed());
+        }
+        Thread.sleep(100);
+
+        assertEquals(1, pool.getLeakCount());
+    }
+
+    @Test
+    void closedPoolShouldRejectNewConnections() throws SQLException {
+        PooledDataSource pool = create(h2());
+        Connection inUse = pool.getConnection();
+
+        pool.close();
+
+        assertThrows(SQLException.class, pool::getConnection);
+        inUse.close();
+        assertEquals(0, pool.getIdleConnections());
+    }
+
+    @Test
+    void invalidConfigShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new DatabaseConfig(" "));
+        assertThrows(IllegalArgumentException.class, () -> h2().withPoolSize(0));
+        assertThrows(IllegalArgumentException.class, () -> h2().withAcquireTimeout(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    void readOnlyPoolShouldRejectWrites(@TempDir Path dir) throws SQLException {
+        String url = "jdbc:sqlite:" + dir.resolve("readonly.db");
+        try (PooledDataSource writable = new DatabaseConfig(url).createDataSource();
+             Connection conn = writable.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE t (x INTEGER)");
+            stmt.execute("INSERT INTO t VALUES (1)");
+        }
+
+        PooledDataSource pool = create(new DatabaseConfig(url).withReadOnly(true));
+        try (Connection conn = pool.getConnection(); Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+            assertTrue(conn.isReadOnly());
+            assertThrows(SQLException.class, () -> stmt.execute("INSERT INTO t VALUES (2)"));
+        }
+    }
+}
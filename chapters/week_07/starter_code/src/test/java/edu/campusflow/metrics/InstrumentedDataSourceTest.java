@@ -0,0 +1,173 @@
+package edu.campusflow.metrics;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.JdbcTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstrumentedDataSourceTest {
+
+    private PooledDataSource pool;
+    private SqlMetrics metrics;
+    private InstrumentedDataSource dataSource;
+    private JdbcTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        pool = new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+            .withPoolSize(2)
+            .createDataSource();
+        new DatabaseInitializer(pool).initialize();
+        // 阈值为 0：每条语句都有资格进入慢查询日志，只保留最慢的 3 条
+        metrics = new SqlMetrics(3, Duration.ZERO);
+        dataSource = new InstrumentedDataSource(pool, metrics);
+        repository = new JdbcTaskRepository(dataSource, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void shouldRecordTimingsAndRowCountsPerStatementShape() {
+        List<Task> tasks = new ArrayList<>();
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, null, "pending", base.plusSeconds(i)));
+        }
+        metrics.reset();
+        repository.saveAll(tasks);
+        repository.findById("T1");
+        repository.findById("T2");
+        repository.findById("missing");
+        assertEquals(5, repository.findAll().size());
+        try (Stream<Task> stream = repository.streamAll()) {
+            // 只读两行就关闭流，行数按实际读到的计算
+            assertEquals(2, stream.limit(2).count());
+        }
+
+        StatementStats byId = find("SELECT id, title, description, status_code, created_at FROM tasks WHERE id = ?");
+        assertEquals(3, byId.executions());
+        assertEquals(0, byId.errors());
+        assertEquals(1, byId.rows().p50());
+        assertEquals(1, byId.rows().max());
+
+        StatementStats scan = find("SELECT id, title, description, status_code, created_at FROM tasks "
+            + "ORDER BY created_at DESC");
+        assertEquals(2, scan.executions());
+        assertEquals(5, scan.rows().max());
+        assertTrue(scan.latencyMicros().max() >= scan.latencyMicros().p50());
+
+        // saveAll：5 行、batchSize 2，分 3 次 executeBatch
+        StatementStats upsert = metrics.statements().stream()
+            .filter(stats -> stats.shape().startsWith("MERGE INTO tasks"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(3, upsert.executions());
+        assertEquals(2, upsert.rows().max());
+
+        // saveAll 1 次、findById 3 次、findAll 1 次、streamAll 1 次
+        assertEquals(6, metrics.connectionAcquireMicros().count());
+    }
+
+    @Test
+    void slowQueryLogShouldKeepTheSlowestAndRedactParameters() {
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Task("T" + i, "机密标题 " + i, "不应出现在日志中", "pending"));
+        }
+
+        List<SlowQuery> slow = metrics.slowQueries();
+        assertEquals(3, slow.size());
+        for (int i = 1; i < slow.size(); i++) {
+            assertTrue(slow.get(i - 1).duration().compareTo(slow.get(i).duration()) >= 0);
+        }
+        for (SlowQuery query : slow) {
+            String logged = query.shape() + query.parameters();
+            assertFalse(logged.contains("机密"), logged);
+            assertFalse(logged.contains("不应出现"), logged);
+        }
+        List<String> parameters = slow.stream()
+            .filter(query -> query.shape().startsWith("MERGE INTO tasks"))
+            .findFirst()
+            .orElseThrow()
+            .parameters();
+        assertEquals(5, parameters.size());
+        assertTrue(parameters.get(0).startsWith("String("), parameters.toString());
+        assertEquals("Integer", parameters.get(3));
+    }
+
+    @Test
+    void literalsShouldBeNormalizedAndFailuresCounted() throws SQLException {
+        metrics.reset();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeQuery("SELECT COUNT(*) FROM tasks WHERE title = 'a''b' AND status_code = 1").close();
+            stmt.executeQuery("select count(*)\n  from tasks where title = 'c' and status_code = 22").close();
+            assertThrows(SQLException.class, () -> stmt.executeQuery("SELECT * FROM missing_table WHERE id = 7"));
+            assertTrue(stmt.getConnection() == conn);
+        }
+
+        assertEquals(1, find("SELECT COUNT(*) FROM tasks WHERE title = ? AND status_code = ?").executions());
+        assertEquals(1, find("select count(*) from tasks where title = ? and status_code = ?").executions());
+        StatementStats failed = find("SELECT * FROM missing_table WHERE id = ?");
+        assertEquals(1, failed.errors());
+        assertTrue(metrics.slowQueries().stream().anyMatch(SlowQuery::failed));
+    }
+
+    @Test
+    void shapeShouldCollapseInListsAndWhitespace() {
+        assertEquals("DELETE FROM tasks WHERE id IN (?)",
+            SqlShape.normalize("DELETE FROM tasks\n  WHERE id IN ( ?, ?,? )"));
+        assertEquals("DELETE FROM tasks WHERE id IN (?)",
+            SqlShape.normalize("DELETE FROM tasks WHERE id IN ('a', 'b') -- 清理"));
+        assertEquals("SELECT t1.id FROM t1 LIMIT ?", SqlShape.normalize("SELECT t1.id FROM t1 /* x */ LIMIT 50"));
+    }
+
+    @Test
+    void histogramPercentilesShouldStayWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.count());
+        assertEquals(500.5, snapshot.mean(), 1e-9);
+        assertEquals(1_000, snapshot.max());
+        assertTrue(snapshot.p50() >= 500 && snapshot.p50() <= 625, "p50=" + snapshot.p50());
+        assertTrue(snapshot.p99() >= 990 && snapshot.p99() <= 1_000, "p99=" + snapshot.p99());
+
+        for (long value : new long[] {0, 3, 4, 7, 8, 1_000_000_007L, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(Histogram.upperBound(index) >= value);
+            assertTrue(index == 0 || Histogram.upperBound(index - 1) < value);
+        }
+    }
+
+    private StatementStats find(String shape) {
+        return metrics.statements().stream()
+            .filter(stats -> stats.shape().equals(shape))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("没有找到语句 " + shape + "，现有: "
+                + metrics.statements().stream().map(StatementStats::shape).toList()));
+    }
+}
@@ -0,0 +1,230 @@
+package edu.campusflow.repository;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncTaskRepositoryTest {
+
+    @Test
+    void writesShouldBeVisibleToReadOnlyReaders(@TempDir Path dir) throws SQLException {
+        String url = "jdbc:sqlite:" + dir.resolve("async.db");
+        try (PooledDataSource writeSource = new DatabaseConfig(url).withPoolSize(1).createDataSource()) {
+            new DatabaseInitializer(writeSource).initialize();
+            try (Connection conn = writeSource.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+            }
+            try (PooledDataSource readSource = new DatabaseConfig(url).withReadOnly(true).createDataSource();
+                 AsyncTaskRepository async = new AsyncTaskRepository(
+                     new JdbcTaskRepository(writeSource), new JdbcTaskRepository(readSource), 2)) {
+
+                List<CompletableFuture<Void>> saves = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    saves.add(async.save(new Task("T" + i, "任务 " + i, "", "pending")));
+                }
+                CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).join();
+                async.delete("T0").join();
+
+                assertEquals(99, async.findAll().join().size());
+                assertEquals("任务 7", async.findById("T7").join().orElseThrow().getTitle());
+            }
+        }
+    }
+
+    @Test
+    void fullQueueShouldRejectWrites() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryTaskRepository blocking = new InMemoryTaskRepository() {
+            @Override
+            public void save(Task task) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.save(task);
+            }
+        };
+
+        AsyncTaskRepository async = new AsyncTaskRepository(blocking, blocking, 1, 2, 16);
+        CompletableFuture<Void> first = async.save(new Task("A", "A", "", "pending"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // 写线程卡在 A 上，B 和 C 填满队列
+        CompletableFuture<Void> second = async.delete("B");
+        CompletableFuture<Void> third = async.delete("C");
+        CompletableFuture<Void> rejected = async.delete("D");
+
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, async.rejectedWrites());
+
+        release.countDown();
+        async.close();
+        first.join();
+        second.join();
+        third.join();
+        assertThrows(CompletionException.class, () -> async.save(new Task("E", "E", "", "pending")).join());
+    }
+
+    @Test
+    void badTaskInMergedBatchShouldOnlyFailItself() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger batches = new AtomicInteger();
+        InMemoryTaskRepository repository = new InMemoryTaskRepository() {
+            @Override
+            public void save(Task task) {
+                if (task.getId().equals("gate")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (task.getTitle().equals("坏数据")) {
+                    throw new IllegalArgumentException("坏数据");
+                }
+                super.save(task);
+            }
+
+            @Override
+            public void saveAll(Collection<Task> tasks) {
+                batches.incrementAndGet();
+                if (tasks.stream().anyMatch(task -> task.getTitle().equals("坏数据"))) {
+                    throw new IllegalArgumentException("批量中有坏数据");
+                }
+                super.saveAll(tasks);
+            }
+        };
+
+        try (AsyncTaskRepository async = new AsyncTaskRepository(repository, repository, 1)) {
+            CompletableFuture<Void> gate = async.save(new Task("gate", "gate", "", "pending"));
+            CompletableFuture<Void> good1 = async.save(new Task("A", "A", "", "pending"));
+            CompletableFuture<Void> bad = async.save(new Task("B", "坏数据", "", "pending"));
+            CompletableFuture<Void> good2 = async.save(new Task("C", "C", "", "pending"));
+            release.countDown();
+
+            gate.join();
+            good1.join();
+            good2.join();
+            assertThrows(CompletionException.class, bad::join);
+            assertTrue(batches.get() >= 1);
+            assertEquals(List.of("A", "C", "gate"),
+                repository.findAll().stream().map(Task::getId).sorted().toList());
+        }
+    }
+
+    @Test
+    void saveShouldPersistTheTaskAsItWasWhenSubmitted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryTaskRepository repository = new InMemoryTaskRepository() {
+            @Override
+            public void save(Task task) {
+                if (task.getId().equals("gate")) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.save(task);
+            }
+        };
+
+        try (AsyncTaskRepository async = new AsyncTaskRepository(repository, repository, 1)) {
+            CompletableFuture<Void> gate = async.save(new Task("gate", "gate", "", "pending"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            // 写线程卡在 gate 上，A 和 B 排在队列里，之后会合并成一次 saveAll
+            Task first = new Task("A", "A", "", "pending");
+            Task second = new Task("B", "B", "", "pending");
+            CompletableFuture<Void> saveFirst = async.save(first);
+            CompletableFuture<Void> saveSecond = async.save(second);
+            first.setStatus("done");
+            second.setStatus("done");
+            release.countDown();
+
+            CompletableFuture.allOf(gate, saveFirst, saveSecond).join();
+            assertEquals("pending", repository.findById("A").orElseThrow().getStatus());
+            assertEquals("pending", repository.findById("B").orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void writesRacingWithCloseShouldAllComplete() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            InMemoryTaskRepository repository = new InMemoryTaskRepository();
+            AsyncTaskRepository async = new AsyncTaskRepository(repository, repository, 1);
+            int writers = 4;
+            CyclicBarrier start = new CyclicBarrier(writers + 1);
+            List<List<CompletableFuture<Void>>> perWriter = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                perWriter.add(futures);
+                String prefix = round + "-" + w + "-";
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    for (int i = 0; i < 200; i++) {
+                        futures.add(async.save(new Task(prefix + i, "任务", "", "pending")));
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            start.await();
+            async.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            // 每个 future 都必须结束：要么写入成功，要么以 RejectedExecutionException 失败
+            int succeeded = 0;
+            for (List<CompletableFuture<Void>> futures : perWriter) {
+                for (CompletableFuture<Void> future : futures) {
+                    try {
+                        future.get(5, TimeUnit.SECONDS);
+                        succeeded++;
+                    } catch (ExecutionException e) {
+                        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                    } catch (TimeoutException e) {
+                        throw new AssertionError("close 之后仍有写操作的 future 没有完成", e);
+                    }
+                }
+            }
+            assertEquals(succeeded, repository.findAll().size());
+            assertTrue(async.save(new Task("late", "late", "", "pending")).isCompletedExceptionally());
+        }
+    }
+}
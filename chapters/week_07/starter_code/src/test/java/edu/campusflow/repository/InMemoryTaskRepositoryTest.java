@@ -0,0 +1,46 @@
+package edu.campusflow.repository;
+
+import edu.campusflow.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryTaskRepositoryTest {
+
+    private final InMemoryTaskRepository repository = new InMemoryTaskRepository();
+
+    @Test
+    void shouldFollowTheSameContractAsJdbcRepository() {
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        repository.saveAll(List.of(
+            new Task("old", "旧任务", "", "pending", base),
+            new Task("new", "新任务", "", "pending", base.plusSeconds(2)),
+            new Task("mid", "中间任务", "", "pending", base.plusSeconds(1))));
+        repository.save(new Task("mid", "中间任务", "", "done", base.plusSeconds(1)));
+
+        assertEquals(List.of("new", "mid", "old"), repository.findAll().stream().map(Task::getId).toList());
+        assertEquals("done", repository.findById("mid").orElseThrow().getStatus());
+        try (Stream<Task> tasks = repository.streamAll()) {
+            assertEquals("new", tasks.findFirst().orElseThrow().getId());
+        }
+
+        repository.deleteAll(List.of("new", "missing"));
+        repository.delete("old");
+        assertEquals(List.of("mid"), repository.findAll().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void invalidBatchShouldNotWriteAnything() {
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.saveAll(Arrays.asList(new Task("A", "A", "", "pending"), null)));
+        assertThrows(IllegalArgumentException.class, () -> repository.deleteAll(List.of(" ")));
+        assertTrue(repository.findAll().isEmpty());
+    }
+}
@@ -0,0 +1,218 @@
+package edu.campusflow.repository;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcTaskRepositoryTest {
+
+    private PooledDataSource dataSource;
+    private JdbcTaskRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        // 每个测试一个独立的内存库
+        dataSource = new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+            .withPoolSize(2)
+            .createDataSource();
+        new DatabaseInitializer(dataSource).initialize();
+        repository = new JdbcTaskRepository(dataSource, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void shouldSaveFindAndDeleteTask() {
+        repository.save(new Task("T1", "完成 Week 07 作业", "实现 JDBC Repository", "pending"));
+        repository.save(new Task("T1", "完成 Week 07 作业", "实现 JDBC Repository", "done"));
+
+        assertEquals("done", repository.findById("T1").orElseThrow().getStatus());
+
+        repository.delete("T1");
+        assertTrue(repository.findById("T1").isEmpty());
+    }
+
+    @Test
+    void findAllShouldOrderByCreatedAtDescending() {
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        repository.save(new Task("old", "旧任务", "", "pending", base));
+        repository.save(new Task("new", "新任务", "", "pending", base.plusMillis(500)));
+        repository.save(new Task("mid", "中间任务", "", "pending", base.plusNanos(1)));
+
+        assertEquals(List.of("new", "mid", "old"), repository.findAll().stream().map(Task::getId).toList());
+        assertEquals(base.plusNanos(1), repository.findById("mid").orElseThrow().getCreatedAt());
+    }
+
+    @Test
+    void saveAllShouldInsertAndUpdateAcrossSeveralBatches() {
+        repository.save(new Task("T0", "旧标题", "", "pending"));
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, "", i % 2 == 0 ? "done" : "pending"));
+        }
+        repository.saveAll(tasks);
+
+        assertEquals(10, repository.findAll().size());
+        assertEquals("任务 0", repository.findById("T0").orElseThrow().getTitle());
+        assertEquals(5, repository.findByStatus("done").size());
+    }
+
+    @Test
+    void saveAllShouldRollBackWhenAnyRowFails() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // 第 6 行超出 title 的 VARCHAR(200)，此时前两批已经执行过 executeBatch
+            tasks.add(new Task("T" + i, i == 6 ? "长".repeat(201) : "任务 " + i, "", "pending"));
+        }
+
+        assertThrows(RuntimeException.class, () -> repository.saveAll(tasks));
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    @Test
+    void statusShouldRoundTripThroughStatusCode() {
+        repository.saveAll(List.of(
+            new Task("P", "P", "", "pending"),
+            new Task("I", "I", "", "in_progress"),
+            new Task("D", "D", "", "done")));
+
+        assertEquals("in_progress", repository.findById("I").orElseThrow().getStatus());
+        assertEquals(List.of("D"), repository.findByStatus("done").stream().map(Task::getId).toList());
+        assertTrue(repository.findByStatus("archived").isEmpty());
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.save(new Task("X", "X", "", "archived")));
+    }
+
+    @Test
+    void streamShouldReadLazilyAndReturnConnectionOnClose() {
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(new Task("T" + i, "任务 " + i, "", i % 2 == 0 ? "done" : "pending", base.plusSeconds(i)));
+        }
+        repository.saveAll(tasks);
+
+        try (Stream<Task> stream = repository.streamAll()) {
+            Iterator<Task> iterator = stream.iterator();
+            assertEquals("T49", iterator.next().getId());
+            // 流没关闭之前一直占着连接
+            assertEquals(1, dataSource.getActiveConnections());
+        }
+        assertEquals(0, dataSource.getActiveConnections());
+
+        try (Stream<Task> done = repository.streamByStatus("done")) {
+            assertEquals(List.of("T48", "T46", "T44"), done.limit(3).map(Task::getId).toList());
+        }
+        assertEquals(0, dataSource.getActiveConnections());
+    }
+
+    @Test
+    void deleteAllShouldIgnoreMissingIds() {
+        repository.saveAll(List.of(
+            new Task("A", "A", "", "pending"),
+            new Task("B", "B", "", "pending"),
+            new Task("C", "C", "", "pending")));
+
+        repository.deleteAll(List.of("A", "C", "missing"));
+
+        assertEquals(List.of("B"), repository.findAll().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void batchOperationsShouldRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> repository.saveAll(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> repository.saveAll(java.util.Arrays.asList(new Task("A", "A", "", "pending"), null)));
+        assertThrows(IllegalArgumentException.class, () -> repository.deleteAll(List.of(" ")));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcTaskRepository(dataSource, 0));
+        assertThrows(IllegalArgumentException.class, () -> new JdbcTaskRepository(dataSource, 10, 0));
+        assertFalse(repository.findById("A").isPresent());
+    }
+
+    @Test
+    void repositoryShouldReturnEveryConnectionToThePool() {
+        repository.saveAll(List.of(new Task("A", "A", "", "pending")));
+        repository.findAll();
+        assertThrows(RuntimeException.class,
+            () -> repository.saveAll(List.of(new Task("B", "B", "", "archived"))));
+
+        assertEquals(0, dataSource.getActiveConnections());
+        assertTrue(dataSource.getCreatedConnections() <= 2);
+    }
+
+    @Test
+    void sqliteUpsertShouldUpdateExistingRows(@TempDir Path dir) {
+        try (PooledDataSource sqliteDataSource =
+                 new DatabaseConfig("jdbc:sqlite:" + dir.resolve("campusflow.db")).createDataSource()) {
+            new DatabaseInitializer(sqliteDataSource).initialize();
+            JdbcTaskRepository sqlite = new JdbcTaskRepository(sqliteDataSource, 2);
+
+            sqlite.saveAll(List.of(new Task("A", "A", "", "pending"), new Task("B", "B", "", "pending")));
+            sqlite.saveAll(List.of(new Task("A", "A2", "", "done"), new Task("C", "C", "", "pending")));
+
+            assertEquals(3, sqlite.findAll().size());
+            assertEquals("A2", sqlite.findById("A").orElseThrow().getTitle());
+        }
+    }
+
+    @Test
+    void initializerShouldUpgradeLegacyStatusColumn() throws SQLException {
+        try (PooledDataSource legacy = new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+                 .createDataSource()) {
+            assertLegacyUpgrade(legacy);
+        }
+    }
+
+    @Test
+    void initializerShouldUpgradeLegacyStatusColumnOnSqlite(@TempDir Path dir) throws SQLException {
+        try (PooledDataSource legacy =
+                 new DatabaseConfig("jdbc:sqlite:" + dir.resolve("legacy.db")).createDataSource()) {
+            assertLegacyUpgrade(legacy);
+        }
+    }
+
+    private static void assertLegacyUpgrade(PooledDataSource legacy) throws SQLException {
+        try (Connection conn = legacy.getConnection(); Statement stmt = conn.createStatement()) {
+            // 升级前的表结构
+            stmt.execute("CREATE TABLE tasks (id VARCHAR(64) PRIMARY KEY, title VARCHAR(200) NOT NULL, "
+                + "description TEXT, status VARCHAR(20) NOT NULL CHECK (status IN ('pending', 'in_progress', 'done')), "
+                + "created_at VARCHAR(40) NOT NULL)");
+            stmt.execute("CREATE INDEX idx_tasks_status ON tasks (status)");
+            stmt.execute("INSERT INTO tasks VALUES ('A', 'A', '', 'in_progress', '2026-03-01T08:00:00.000000000Z')");
+            stmt.execute("INSERT INTO tasks VALUES ('B', 'B', '', 'done', '2026-03-01T09:00:00.000000000Z')");
+        }
+
+        new DatabaseInitializer(legacy).initialize();
+        // 再次初始化不应重复升级
+        new DatabaseInitializer(legacy).initialize();
+
+        JdbcTaskRepository upgraded = new JdbcTaskRepository(legacy);
+        assertEquals("in_progress", upgraded.findById("A").orElseThrow().getStatus());
+        assertEquals(List.of("B"), upgraded.findByStatus("done").stream().map(Task::getId).toList());
+    }
+}
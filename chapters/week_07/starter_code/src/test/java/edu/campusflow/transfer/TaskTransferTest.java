@@ -0,0 +1,220 @@
+package edu.campusflow.transfer;
+
+import edu.campusflow.config.DatabaseConfig;
+import edu.campusflow.config.DatabaseInitializer;
+import edu.campusflow.config.PooledDataSource;
+import edu.campusflow.model.Task;
+import edu.campusflow.repository.JdbcTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskTransferTest {
+
+    private final List<PooledDataSource> dataSources = new ArrayList<>();
+    private JdbcTaskRepository source;
+
+    @BeforeEach
+    void setUp() {
+        source = newRepository();
+        Instant base = Instant.parse("2026-03-01T08:00:00Z");
+        source.saveAll(List.of(
+            new Task("T1", "普通任务", "没有特殊字符", "pending", base),
+            new Task("T2", "带逗号, 和 \"引号\"", "第一行\n第二行", "in_progress", base.plusNanos(1)),
+            new Task("T3", "反斜杠 \\ 和制表符\t", null, "done", base.plusSeconds(1))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSources.forEach(PooledDataSource::close);
+    }
+
+    private JdbcTaskRepository newRepository() {
+        PooledDataSource dataSource = new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+            .withPoolSize(2)
+            .createDataSource();
+        dataSources.add(dataSource);
+        new DatabaseInitializer(dataSource).initialize();
+        return new JdbcTaskRepository(dataSource, 2);
+    }
+
+    @Test
+    void csvShouldRoundTrip() throws IOException {
+        assertRoundTrip(TaskFormat.CSV);
+    }
+
+    @Test
+    void ndjsonShouldRoundTrip() throws IOException {
+        assertRoundTrip(TaskFormat.NDJSON);
+    }
+
+    private void assertRoundTrip(TaskFormat format) throws IOException {
+        StringWriter exported = new StringWriter();
+        assertEquals(3, new TaskExporter(source).exportTo(exported, format));
+
+        JdbcTaskRepository target = newRepository();
+        StringWriter rejected = new StringWriter();
+        ImportResult result = new TaskImporter(target, 2)
+            .importFrom(new StringReader(exported.toString()), format, rejected, null);
+
+        assertEquals(3, result.imported());
+        assertEquals(0, result.rejected());
+        assertEquals("", rejected.toString());
+        assertEquals(describe(source.findAll()), describe(target.findAll()));
+    }
+
+    @Test
+    void badRowsShouldGoToRejectedFileWithoutStoppingTheImport() throws IOException {
+        String csv = """
+            id,status,title,created_at
+            A,pending,好的任务,2026-03-01T08:00:00Z
+            B,archived,未知状态,2026-03-01T08:00:00Z
+            C,pending,,2026-03-01T08:00:00Z
+            D,pending,日期错误,昨天
+            E,pending,字段太多,2026-03-01T08:00:00Z,多余
+            F,done,"跨行
+            标题",2026-03-01T09:00:00Z
+            """;
+        JdbcTaskRepository target = newRepository();
+        StringWriter rejected = new StringWriter();
+        List<Long> progress = new ArrayList<>();
+
+        ImportResult result = new TaskImporter(target, 2).importFrom(new StringReader(csv), TaskFormat.CSV,
+            rejected, (imported, skipped) -> progress.add(imported + skipped));
+
+        assertEquals(2, result.imported());
+        assertEquals(4, result.rejected());
+        assertEquals("跨行\n标题", target.findById("F").orElseThrow().getTitle());
+        assertFalse(target.findById("B").isPresent());
+
+        List<String> rejectedLines = rejected.toString().lines().toList();
+        assertEquals("line,reason,record", rejectedLines.get(0));
+        // 第 3 行（未知状态）写库时才被拒绝，第 4-6 行解析时被拒绝；两者在不同线程，顺序不固定
+        assertEquals(List.of("3", "4", "5", "6"),
+            rejectedLines.subList(1, 5).stream().map(line -> line.substring(0, line.indexOf(','))).sorted().toList());
+        assertTrue(rejected.toString().contains("未知的任务状态: archived"));
+        // 每个分块写完报告一次，最后一次包含全部行
+        assertEquals(6L, progress.get(progress.size() - 1));
+    }
+
+    @Test
+    void badRowsInLargeChunkShouldNotFallBackToRowByRowSaves() throws IOException {
+        StringBuilder csv = new StringBuilder("id,title,status\n");
+        for (int i = 0; i < 1_000; i++) {
+            String title = i == 700 ? "长".repeat(201) : "任务 " + i;
+            String status = i == 300 ? "archived" : "pending";
+            csv.append('T').append(i).append(',').append(title).append(',').append(status).append('\n');
+        }
+        PooledDataSource dataSource = new DatabaseConfig("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+            .createDataSource();
+        dataSources.add(dataSource);
+        new DatabaseInitializer(dataSource).initialize();
+        AtomicInteger saves = new AtomicInteger();
+        AtomicInteger saveAlls = new AtomicInteger();
+        JdbcTaskRepository target = new JdbcTaskRepository(dataSource) {
+            @Override
+            public void save(Task task) {
+                saves.incrementAndGet();
+                super.save(task);
+            }
+
+            @Override
+            public void saveAll(Collection<Task> tasks) {
+                saveAlls.incrementAndGet();
+                super.saveAll(tasks);
+            }
+        };
+        StringWriter rejected = new StringWriter();
+
+        ImportResult result = new TaskImporter(target, 1_000)
+            .importFrom(new StringReader(csv.toString()), TaskFormat.CSV, rejected, null);
+
+        assertEquals(998, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals(998, target.findAll().size());
+        // 数据库的错误信息可能跨行，按 CSV 记录读取拒绝文件
+        CsvRecordReader records = new CsvRecordReader(new BufferedReader(new StringReader(rejected.toString())));
+        records.next();
+        List<String> rejectedLines = new ArrayList<>();
+        for (List<String> record = records.next(); record != null; record = records.next()) {
+            rejectedLines.add(record.get(0));
+        }
+        assertEquals(List.of("302", "702"), rejectedLines.stream().sorted().toList());
+        // 两条坏行各自拆分约 log2(1000 / 16) 层，逐条保存的只有坏行所在的小块
+        assertTrue(saves.get() <= 2 * TaskImporter.ROW_BY_ROW_THRESHOLD, "逐条保存次数: " + saves.get());
+        assertTrue(saveAlls.get() <= 30, "saveAll 次数: " + saveAlls.get());
+    }
+
+    @Test
+    void malformedJsonLineShouldBeRejected(@TempDir Path dir) throws IOException {
+        Path input = dir.resolve("tasks.ndjson");
+        Files.writeString(input, """
+            {"id":"A","title":"A \\u4efb\\u52a1","status":"done"}
+            {"id":"B","title":
+            {"id":"C","title":"C","tags":["x"]}
+
+            {"id":"D","title":"D","description":null}
+            """, StandardCharsets.UTF_8);
+        Path rejectedFile = dir.resolve("rejected.csv");
+        JdbcTaskRepository target = newRepository();
+
+        ImportResult result = new TaskImporter(target).importFile(input, rejectedFile, null);
+
+        assertEquals(2, result.imported());
+        assertEquals(2, result.rejected());
+        assertEquals("A 任务", target.findById("A").orElseThrow().getTitle());
+        assertEquals(3, Files.readAllLines(rejectedFile).size());
+
+        Path clean = dir.resolve("clean.ndjson");
+        new TaskExporter(target).exportFile(clean);
+        new TaskImporter(newRepository()).importFile(clean, rejectedFile, null);
+        assertFalse(Files.exists(rejectedFile));
+    }
+
+    @Test
+    void uppercaseHeaderShouldBeRecognizedUnderTurkishLocale() throws IOException {
+        Locale original = Locale.getDefault();
+        // 土耳其语里 "I".toLowerCase() 是无点的 "ı"，表头 ID 会变成 "ıd"
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            JdbcTaskRepository target = newRepository();
+            StringWriter rejected = new StringWriter();
+            ImportResult result = new TaskImporter(target).importFrom(new StringReader("""
+                ID,TITLE,DESCRIPTION,STATUS,CREATED_AT
+                T9,大写表头,,pending,2026-03-01T08:00:00Z
+                """), TaskFormat.CSV, rejected, null);
+
+            assertEquals(1, result.imported(), rejected.toString());
+            assertEquals("大写表头", target.findById("T9").orElseThrow().getTitle());
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream()
+            .map(task -> String.join("|", task.getId(), task.getTitle(), String.valueOf(task.getDescription()),
+                task.getStatus(), task.getCreatedAt().toString()))
+            .toList();
+    }
+}
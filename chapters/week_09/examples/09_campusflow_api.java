@@ -21,18 +21,51 @@
  *
  *   # 计算逾期费用（复用 Week 08 策略模式）
  *   curl http://localhost:7070/tasks/1/overdue-fee
+ *
+ *   # 批量计算所有逾期任务的费用
+ *   curl http://localhost:7070/tasks/overdue-fees
+ *
+ *   # 过滤、排序、分页（响应中的 nextCursor 可传给下一页的 cursor 参数）
+ *   curl "http://localhost:7070/tasks?status=pending&dueFrom=2026-02-01&sort=dueDate&limit=20"
  */
 package examples;
 
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * CampusFlow Web 版入口。
@@ -58,7 +91,7 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 class _09_campusflow_api {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         System.out.println("╔══════════════════════════════════════════════════════════╗");
         System.out.println("║     CampusFlow Web 版 - REST API 服务                    ║");
         System.out.println("║     Week 09：从 CLI 到 Web 的进化                        ║");
@@ -66,12 +99,37 @@ class _09_campusflow_api {
         System.out.println();
 
         // 初始化各层组件（依赖注入）
-        TaskRepository repository = new InMemoryTaskRepository();
-        TaskService taskService = new TaskService(repository);
+        Clock clock = Clock.systemDefaultZone();
+        // 读多写少：开启快照模式，GET /tasks 直接返回已发布的不可变快照，不再复制
+        InMemoryTaskRepository memory = new InMemoryTaskRepository(clock, true);
+        TaskRepository repository = memory;
+
+        // 指定 -Dcampusflow.dataDir=data 后启用日志持久化，重启时从快照 + 日志恢复
+        String dataDir = System.getProperty("campusflow.dataDir");
+        if (dataDir != null) {
+            JournaledTaskRepository journaled = new JournaledTaskRepository(Path.of(dataDir), memory, FsyncPolicy.BATCHED);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journaled.close();
+                } catch (IOException e) {
+                    System.err.println("[ERROR] 关闭日志失败: " + e.getMessage());
+                }
+            }));
+            repository = journaled;
+            System.out.println("数据目录: " + Path.of(dataDir).toAbsolutePath() + "（已恢复 " + memory.count() + " 个任务）");
+        }
+
+        TaskService taskService = new TaskService(repository, clock);
         TaskController controller = new TaskController(taskService);
 
-        // 预置一些测试数据
-        seedData(taskService);
+        // 每天零点把刚到期的任务移入逾期集合
+        OverdueRolloverScheduler rolloverScheduler = new OverdueRolloverScheduler(memory, clock);
+        rolloverScheduler.start();
+
+        // 预置一些测试数据（持久化目录里已有数据时跳过）
+        if (repository.count() == 0) {
+            seedData(taskService);
+        }
 
         // 创建 Javalin 应用
         var app = Javalin.create(config -> {
@@ -87,7 +145,8 @@ class _09_campusflow_api {
         )));
 
         // ===== 任务管理 API =====
-        app.get("/tasks", controller::getAllTasks);              // 获取所有任务
+        app.get("/tasks", controller::getAllTasks);              // 获取所有任务（?overdue=true 只看逾期）
+        app.get("/tasks/overdue-fees", controller::getOverdueFees); // 全部逾期费用（需注册在 /tasks/{id} 之前）
         app.get("/tasks/{id}", controller::getTask);             // 获取指定任务
         app.post("/tasks", controller::createTask);              // 创建任务
         app.put("/tasks/{id}", controller::updateTask);          // 更新任务
@@ -118,6 +177,14 @@ class _09_campusflow_api {
             ));
         });
 
+        app.exception(ConflictException.class, (e, ctx) -> {
+            ctx.status(409).json(Map.of(
+                "code", 409,
+                "message", e.getMessage(),
+                "timestamp", System.currentTimeMillis()
+            ));
+        });
+
         app.exception(Exception.class, (e, ctx) -> {
             System.err.println("[ERROR] " + e.getMessage());
             e.printStackTrace();
@@ -140,14 +207,19 @@ class _09_campusflow_api {
         System.out.println();
         System.out.println("  任务管理：");
         System.out.println("    GET    /tasks               - 获取所有任务");
+        System.out.println("    GET    /tasks?overdue=true  - 获取逾期任务");
+        System.out.println("    GET    /tasks?status=&dueFrom=&dueTo=&titlePrefix=&sort=&limit=&offset=&cursor=");
+        System.out.println("                                - 过滤 / 排序（dueDate、createdAt、title）/ 分页");
         System.out.println("    GET    /tasks/{id}          - 获取指定任务");
         System.out.println("    POST   /tasks               - 创建任务");
         System.out.println("    PUT    /tasks/{id}          - 全量更新任务");
         System.out.println("    PATCH  /tasks/{id}          - 部分更新任务");
         System.out.println("    DELETE /tasks/{id}          - 删除任务");
+        System.out.println("    （PUT/PATCH/DELETE/complete 支持 If-Match 版本号，版本过期返回 409）");
         System.out.println();
         System.out.println("  业务功能（复用 Week 08 策略模式）：");
         System.out.println("    GET    /tasks/{id}/overdue-fee  - 计算逾期费用");
+        System.out.println("    GET    /tasks/overdue-fees      - 批量计算全部逾期费用");
         System.out.println("    POST   /tasks/{id}/complete     - 标记任务完成");
         System.out.println();
         System.out.println("测试命令：");
@@ -202,9 +274,24 @@ class Task {
     private String status;  // pending, in_progress, completed
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
+    private long version = 1;  // 每次成功写入 +1，对应 HTTP 的 ETag / If-Match
 
     public Task() {}
 
+    /**
+     * 复制构造：写入时先复制再改副本，已发布的 Task 对象不再被修改。
+     */
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.dueDate = other.dueDate;
+        this.status = other.status;
+        this.createdAt = other.createdAt;
+        this.completedAt = other.completedAt;
+        this.version = other.version;
+    }
+
     public Task(String id, String title, String description, LocalDate dueDate) {
         this.id = id;
         this.title = title;
@@ -236,13 +323,28 @@ class Task {
     public LocalDateTime getCompletedAt() { return completedAt; }
     public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public boolean isOverdue() {
-        return !"completed".equals(status) && dueDate.isBefore(LocalDate.now());
+        return isOverdue(LocalDate.now());
     }
 
     public long getOverdueDays() {
-        if (!isOverdue()) return 0;
-        return ChronoUnit.DAYS.between(dueDate, LocalDate.now());
+        return getOverdueDays(LocalDate.now());
+    }
+
+    /**
+     * 以调用方给定的"今天"判断是否逾期。Service 层传入 Clock 算出的日期，
+     * 批量判断时只取一次当前日期，测试时也能固定日期。
+     */
+    public boolean isOverdue(LocalDate today) {
+        return !"completed".equals(status) && dueDate.isBefore(today);
+    }
+
+    public long getOverdueDays(LocalDate today) {
+        if (!isOverdue(today)) return 0;
+        return ChronoUnit.DAYS.between(dueDate, today);
     }
 }
 
@@ -300,6 +402,151 @@ class OverdueFeeResponse {
     public String getCalculationStrategy() { return calculationStrategy; }
 }
 
+/**
+ * 批量逾期费用响应：逐任务明细 + 合计。
+ */
+class OverdueFeeReport {
+    private final LocalDate asOf;
+    private final List<OverdueFeeResponse> items;
+    private final double totalFee;
+
+    public OverdueFeeReport(LocalDate asOf, List<OverdueFeeResponse> items, double totalFee) {
+        this.asOf = asOf;
+        this.items = items;
+        this.totalFee = totalFee;
+    }
+
+    public LocalDate getAsOf() { return asOf; }
+    public List<OverdueFeeResponse> getItems() { return items; }
+    public int getCount() { return items.size(); }
+    public double getTotalFee() { return totalFee; }
+}
+
+/**
+ * GET /tasks 的排序键。
+ */
+enum TaskSortKey {
+    DUE_DATE("dueDate"),
+    CREATED_AT("createdAt"),
+    TITLE("title");
+
+    private final String param;
+
+    TaskSortKey(String param) {
+        this.param = param;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public static TaskSortKey fromParam(String param) {
+        for (TaskSortKey key : values()) {
+            if (key.param.equals(param)) {
+                return key;
+            }
+        }
+        throw new ValidationException("Unsupported sort key: " + param + ", expected dueDate, createdAt or title");
+    }
+
+    /**
+     * 任务在该排序键上的索引键。空值映射成固定的哨兵值，保证每个任务在每个索引里都有一条记录。
+     */
+    Comparable<?> keyOf(Task task) {
+        return switch (this) {
+            case DUE_DATE -> task.getDueDate() == null ? Long.MAX_VALUE : task.getDueDate().toEpochDay();
+            case CREATED_AT -> task.getCreatedAt() == null ? LocalDateTime.MIN : task.getCreatedAt();
+            case TITLE -> titleKey(task.getTitle());
+        };
+    }
+
+    /**
+     * 解析游标里的键，与 {@link #keyOf} 的结果类型一致。
+     */
+    Comparable<?> parseKey(String text) {
+        return switch (this) {
+            case DUE_DATE -> Long.parseLong(text);
+            case CREATED_AT -> LocalDateTime.parse(text);
+            case TITLE -> text;
+        };
+    }
+
+    static String titleKey(String title) {
+        return title == null ? "" : title.toLowerCase(Locale.ROOT);
+    }
+}
+
+/**
+ * GET /tasks 的查询条件。除 sortBy 外都可以为空，表示不限制。
+ */
+class TaskQuery {
+    private String status;
+    private LocalDate dueFrom;       // 含
+    private LocalDate dueTo;         // 含
+    private String titlePrefix;      // 不区分大小写
+    private TaskSortKey sortBy = TaskSortKey.CREATED_AT;
+    private Integer limit;
+    private int offset;
+    private String cursor;
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDate getDueFrom() { return dueFrom; }
+    public void setDueFrom(LocalDate dueFrom) { this.dueFrom = dueFrom; }
+
+    public LocalDate getDueTo() { return dueTo; }
+    public void setDueTo(LocalDate dueTo) { this.dueTo = dueTo; }
+
+    public String getTitlePrefix() { return titlePrefix; }
+    public void setTitlePrefix(String titlePrefix) { this.titlePrefix = titlePrefix; }
+
+    public TaskSortKey getSortBy() { return sortBy; }
+    public void setSortBy(TaskSortKey sortBy) { this.sortBy = sortBy; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+
+    public int getOffset() { return offset; }
+    public void setOffset(int offset) { this.offset = offset; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public boolean hasDueRange() {
+        return dueFrom != null || dueTo != null;
+    }
+
+    public boolean hasFilters() {
+        return status != null || hasDueRange() || titlePrefix != null;
+    }
+}
+
+/**
+ * 一页查询结果。
+ *
+ * <p>total 是满足过滤条件的总数；按索引顺序扫描并提前停止时无法得知总数，此时为 null。
+ * plan 记录查询规划器选择的索引，便于排查慢查询。
+ */
+class TaskPage {
+    private final List<Task> items;
+    private final Long total;
+    private final String nextCursor;
+    private final String plan;
+
+    public TaskPage(List<Task> items, Long total, String nextCursor, String plan) {
+        this.items = items;
+        this.total = total;
+        this.nextCursor = nextCursor;
+        this.plan = plan;
+    }
+
+    public List<Task> getItems() { return items; }
+    public Long getTotal() { return total; }
+    public String getNextCursor() { return nextCursor; }
+    public String getPlan() { return plan; }
+}
+
 // ===== Repository 层（复用 Week 08 模式） =====
 
 interface TaskRepository {
@@ -307,13 +554,103 @@ interface TaskRepository {
     Optional<Task> findById(String id);
     List<Task> findAll();
     List<Task> findByStatus(String status);
-    void delete(String id);
+    boolean delete(String id);
     long count();
+    List<Task> findOverdue();
+    long countOverdue();
+    TaskPage query(TaskQuery query);
+
+    /**
+     * 仅当当前存储的对象仍是 expected（同一个实例）时替换为 updated。
+     * 不保存 Task 实例的实现（如 {@link ColumnarTaskRepository}）改为比较版本号。
+     */
+    boolean compareAndSet(Task expected, Task updated);
+
+    /**
+     * 仅当当前存储的对象仍是 expected（同一个实例）时删除。
+     */
+    boolean compareAndDelete(Task expected);
 }
 
+/**
+ * 内存版 Repository。
+ *
+ * <p>除了 id → Task 的主表，还维护一个截止日期索引，让"哪些任务逾期了"不必扫描全表：
+ * <ul>
+ *   <li>dueIndex：epoch day → 当天到期、尚未逾期的未完成任务 id，按日期有序</li>
+ *   <li>overdueIds：已逾期的未完成任务 id</li>
+ *   <li>日期变化时（由 {@link OverdueRolloverScheduler} 或读取时顺带触发），
+ *       把 dueIndex 中早于今天的条目整体移入 overdueIds</li>
+ * </ul>
+ *
+ * <p>查询用的二级索引：status → id 集合，以及按截止日期、创建时间、标题排序的有序索引，
+ * 由 {@link #query} 的规划器按选择性挑选。
+ *
+ * <p>快照模式（snapshotReads = true）下，findAll() 不再每次复制：写入只递增写序号，
+ * 读者发现快照落后时由其中一个读者重建数组并通过 volatile 引用发布，其余读者直接共享。
+ * 两次读之间的多次写入只触发一次重建，读多写少时 findAll() 基本是 O(1) 且不分配内存。
+ */
 class InMemoryTaskRepository implements TaskRepository {
     private final Map<String, Task> tasks = new ConcurrentHashMap<>();
     private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Clock clock;
+
+    private final ConcurrentSkipListMap<Long, Set<String>> dueIndex = new ConcurrentSkipListMap<>();
+    private final Set<String> overdueIds = ConcurrentHashMap.newKeySet();
+    // 查询索引
+    private final Map<String, Set<String>> statusIndex = new ConcurrentHashMap<>();
+    private final Map<TaskSortKey, SortedIndex> sortedIndexes = new EnumMap<>(TaskSortKey.class);
+    // 每个任务当前登记在各索引里的键，save/delete 时据此摘除旧条目
+    private final Map<String, IndexedState> indexed = new ConcurrentHashMap<>();
+    // 索引增删持读锁（彼此可并发），日期翻转持写锁（每天一次）
+    private final ReentrantReadWriteLock rolloverLock = new ReentrantReadWriteLock();
+    // 已翻转到的日期：截止日期早于它的未完成任务都在 overdueIds 中
+    private volatile long rolledOverDay;
+
+    private final boolean snapshotReads;
+    // 每次写入完成后 +1；快照记录自己构建时的写序号，落后即需重建
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final Object snapshotLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(-1, List.of());
+
+    public InMemoryTaskRepository() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public InMemoryTaskRepository(Clock clock) {
+        this(clock, false);
+    }
+
+    public InMemoryTaskRepository(Clock clock, boolean snapshotReads) {
+        this.clock = clock;
+        this.rolledOverDay = LocalDate.now(clock).toEpochDay();
+        this.snapshotReads = snapshotReads;
+        for (TaskSortKey key : TaskSortKey.values()) {
+            sortedIndexes.put(key, new SortedIndex());
+        }
+    }
+
+    /**
+     * 一个任务在各索引中登记的键。dueDay 为 null 表示不参与逾期跟踪（已完成或没有截止日期）。
+     */
+    private record IndexedState(String status, Long openDueDay, Map<TaskSortKey, Comparable<?>> sortKeys) {
+        static IndexedState of(Task task) {
+            Long openDueDay = "completed".equals(task.getStatus()) || task.getDueDate() == null
+                ? null
+                : task.getDueDate().toEpochDay();
+            Map<TaskSortKey, Comparable<?>> keys = new EnumMap<>(TaskSortKey.class);
+            for (TaskSortKey key : TaskSortKey.values()) {
+                keys.put(key, key.keyOf(task));
+            }
+            return new IndexedState(task.getStatus(), openDueDay, keys);
+        }
+    }
+
+    /**
+     * 已发布的只读视图：底层数组构建后不再修改，可以安全地被任意多个读者共享。
+     */
+    private record Snapshot(long sequence, List<Task> tasks) {
+    }
 
     @Override
     public Task save(Task task) {
@@ -321,9 +658,30 @@ class InMemoryTaskRepository implements TaskRepository {
             task.setId(String.valueOf(nextId.getAndIncrement()));
         }
         tasks.put(task.getId(), task);
+        committed(task.getId());
         return task;
     }
 
+    /**
+     * 从持久化数据恢复任务：保留原 id，并让之后新分配的 id 跳过它。
+     */
+    void restore(Task task) {
+        try {
+            advanceNextId(Integer.parseInt(task.getId()) + 1);
+        } catch (NumberFormatException ignored) {
+            // 非数字 id 不会与自动分配的 id 冲突
+        }
+        save(task);
+    }
+
+    int nextIdValue() {
+        return nextId.get();
+    }
+
+    void advanceNextId(int value) {
+        nextId.accumulateAndGet(value, Math::max);
+    }
+
     @Override
     public Optional<Task> findById(String id) {
         return Optional.ofNullable(tasks.get(id));
@@ -331,7 +689,29 @@ class InMemoryTaskRepository implements TaskRepository {
 
     @Override
     public List<Task> findAll() {
-        return new ArrayList<>(tasks.values());
+        if (!snapshotReads) {
+            return new ArrayList<>(tasks.values());
+        }
+        Snapshot current = snapshot;
+        if (current.sequence() == writeSequence.get()) {
+            return current.tasks();
+        }
+        return publishSnapshot();
+    }
+
+    private List<Task> publishSnapshot() {
+        synchronized (snapshotLock) {
+            // 先读序号再遍历：序号之前完成的写入一定出现在这次遍历里
+            long sequence = writeSequence.get();
+            Snapshot current = snapshot;
+            if (current.sequence() == sequence) {
+                return current.tasks();
+            }
+            Task[] array = tasks.values().toArray(new Task[0]);
+            List<Task> view = Collections.unmodifiableList(Arrays.asList(array));
+            snapshot = new Snapshot(sequence, view);
+            return view;
+        }
     }
 
     @Override
@@ -342,189 +722,1856 @@ class InMemoryTaskRepository implements TaskRepository {
     }
 
     @Override
-    public void delete(String id) {
-        tasks.remove(id);
+    public boolean delete(String id) {
+        if (tasks.remove(id) == null) {
+            return false;
+        }
+        committed(id);
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSet(Task expected, Task updated) {
+        // Task 没有重写 equals，replace 比较的是对象身份：只要别人先写入过，这里就失败
+        if (!tasks.replace(expected.getId(), expected, updated)) {
+            return false;
+        }
+        committed(expected.getId());
+        return true;
+    }
+
+    @Override
+    public boolean compareAndDelete(Task expected) {
+        if (!tasks.remove(expected.getId(), expected)) {
+            return false;
+        }
+        committed(expected.getId());
+        return true;
     }
 
     @Override
     public long count() {
         return tasks.size();
     }
-}
 
-// ===== Service 层（复用 Week 08 业务逻辑） =====
-
-class TaskService {
-    private final TaskRepository repository;
+    @Override
+    public List<Task> findOverdue() {
+        rolloverOverdue(LocalDate.now(clock));
+        List<Task> result = new ArrayList<>(overdueIds.size());
+        for (String id : overdueIds) {
+            Task task = tasks.get(id);
+            if (task != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
 
-    public TaskService(TaskRepository repository) {
-        this.repository = repository;
+    @Override
+    public long countOverdue() {
+        rolloverOverdue(LocalDate.now(clock));
+        return overdueIds.size();
     }
 
-    public Task createTask(TaskRequest request) {
-        // 验证
-        if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
-            throw new ValidationException("Title is required");
+    /**
+     * 把截止日期早于 today 的任务从 dueIndex 移入 overdueIds。
+     * 同一天内重复调用只做一次 volatile 读，因此读路径可以放心顺带调用。
+     */
+    public void rolloverOverdue(LocalDate today) {
+        long todayDay = today.toEpochDay();
+        if (todayDay <= rolledOverDay) {
+            return;
         }
 
-        LocalDate dueDate;
+        rolloverLock.writeLock().lock();
         try {
-            dueDate = LocalDate.parse(request.getDueDate());
-        } catch (Exception e) {
-            throw new ValidationException("Invalid dueDate format, expected: YYYY-MM-DD");
+            if (todayDay <= rolledOverDay) {
+                return;
+            }
+            NavigableMap<Long, Set<String>> expired = dueIndex.headMap(todayDay, false);
+            for (Set<String> ids : expired.values()) {
+                overdueIds.addAll(ids);
+            }
+            expired.clear();
+            rolledOverDay = todayDay;
+        } finally {
+            rolloverLock.writeLock().unlock();
         }
-
-        Task task = new Task(null, request.getTitle(), request.getDescription(), dueDate);
-        return repository.save(task);
     }
 
-    public Optional<Task> findById(String id) {
-        return repository.findById(id);
+    /**
+     * 一次写入落到主表之后调用：更新索引，并让已发布的快照失效。
+     */
+    private void committed(String id) {
+        reindex(id);
+        writeSequence.incrementAndGet();
     }
 
-    public List<Task> findAll() {
-        return repository.findAll();
+    /**
+     * 按 id 的当前状态重建它在各索引中的位置。
+     *
+     * <p>在 indexed.compute 里完成"摘除旧位置 + 登记新位置"，同一个 id 的重建互斥；
+     * 每次都读取最新存储的 Task，所以并发写入时最后一次重建总能反映最终状态。
+     */
+    private void reindex(String id) {
+        rolloverLock.readLock().lock();
+        try {
+            indexed.compute(id, (key, old) -> {
+                if (old != null) {
+                    removeFromIndexes(key, old);
+                }
+                Task current = tasks.get(key);
+                if (current == null) {
+                    return null;
+                }
+                IndexedState state = IndexedState.of(current);
+                addToIndexes(key, state);
+                return state;
+            });
+        } finally {
+            rolloverLock.readLock().unlock();
+        }
     }
 
-    public Task updateTask(String id, TaskRequest request) {
-        Task existing = repository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+    // 以下方法的调用方需持有 rolloverLock 读锁
+    private void addToIndexes(String id, IndexedState state) {
+        statusIndex.computeIfAbsent(state.status(), status -> ConcurrentHashMap.newKeySet()).add(id);
+        state.sortKeys().forEach((key, value) -> sortedIndexes.get(key).add(value, id));
 
-        if (request.getTitle() != null) {
-            existing.setTitle(request.getTitle());
+        if (state.openDueDay() == null) {
+            return;
         }
-        if (request.getDescription() != null) {
-            existing.setDescription(request.getDescription());
-        }
-        if (request.getDueDate() != null) {
-            existing.setDueDate(LocalDate.parse(request.getDueDate()));
+        if (state.openDueDay() < rolledOverDay) {
+            overdueIds.add(id);
+        } else {
+            dueIndex.computeIfAbsent(state.openDueDay(), day -> ConcurrentHashMap.newKeySet()).add(id);
         }
-
-        return repository.save(existing);
-    }
-
-    public void deleteTask(String id) {
-        Task existing = repository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
-        repository.delete(id);
     }
 
-    public Task completeTask(String id) {
-        Task task = repository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+    private void removeFromIndexes(String id, IndexedState state) {
+        Set<String> sameStatus = statusIndex.get(state.status());
+        if (sameStatus != null) {
+            sameStatus.remove(id);
+        }
+        state.sortKeys().forEach((key, value) -> sortedIndexes.get(key).remove(value, id));
 
-        task.setStatus("completed");
-        task.setCompletedAt(LocalDateTime.now());
-        return repository.save(task);
+        if (state.openDueDay() == null) {
+            return;
+        }
+        if (state.openDueDay() < rolledOverDay) {
+            overdueIds.remove(id);
+        } else {
+            Set<String> ids = dueIndex.get(state.openDueDay());
+            if (ids != null) {
+                ids.remove(id);
+            }
+        }
     }
 
+    // ===== 查询：规划 + 执行 =====
+
     /**
-     * 计算逾期费用（复用 Week 08 策略模式思想）。
+     * 可作为驱动的访问路径。
      */
-    public double calculateOverdueFee(String id) {
-        Task task = repository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+    private enum AccessPath { STATUS, DUE_DATE, TITLE, FULL }
 
-        if (!task.isOverdue()) {
-            return 0.0;
+    /**
+     * 按过滤条件、排序和分页执行查询。
+     *
+     * <p>规划器为每个可用的过滤条件估算命中行数，选出最小的作为驱动索引：
+     * <ul>
+     *   <li>status：集合大小，精确且 O(1)</li>
+     *   <li>截止日期范围、标题前缀：在有序索引上数区间，数到当前最优值就停，代价不超过最优候选</li>
+     *   <li>都没有时沿排序键索引全量扫描</li>
+     * </ul>
+     * 驱动索引恰好就是排序键时，按索引顺序边读边过滤，凑够一页即停；否则取出候选后再排序。
+     * 索引条目在并发写入时可能短暂落后，所以取回 Task 后会用完整条件再校验一次。
+     */
+    @Override
+    public TaskPage query(TaskQuery query) {
+        TaskSortKey sortKey = query.getSortBy();
+        SortedIndex.Entry after = decodeCursor(query.getCursor(), sortKey);
+        Predicate<Task> filter = filterOf(query);
+
+        AccessPath path = AccessPath.FULL;
+        long best = tasks.size();
+        if (query.getStatus() != null) {
+            Set<String> ids = statusIndex.get(query.getStatus());
+            long estimate = ids == null ? 0 : ids.size();
+            if (estimate < best) {
+                path = AccessPath.STATUS;
+                best = estimate;
+            }
+        }
+        if (query.hasDueRange()) {
+            long estimate = dueRange(query).countUpTo(best);
+            if (estimate < best) {
+                path = AccessPath.DUE_DATE;
+                best = estimate;
+            }
+        }
+        if (query.getTitlePrefix() != null) {
+            long estimate = titleRange(query).countUpTo(best);
+            if (estimate < best) {
+                path = AccessPath.TITLE;
+            }
         }
 
-        long overdueDays = task.getOverdueDays();
+        boolean ordered = path == AccessPath.FULL
+            || (path == AccessPath.DUE_DATE && sortKey == TaskSortKey.DUE_DATE)
+            || (path == AccessPath.TITLE && sortKey == TaskSortKey.TITLE);
+        String plan = path.name().toLowerCase(Locale.ROOT) + (ordered ? "-ordered" : "-then-sort");
 
-        // 使用 Week 08 的策略模式思想：根据逾期天数选择不同费率
-        FeeCalculationStrategy strategy = selectStrategy(overdueDays);
-        return strategy.calculate(overdueDays);
+        return ordered
+            ? orderedScan(query, orderedRange(query, path), after, filter, plan)
+            : sortAndPage(fetch(candidates(query, path), filter), query, plan);
     }
 
-    public String getCalculationStrategyName(String id) {
-        Task task = repository.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+    private SortedIndex.Range dueRange(TaskQuery query) {
+        Long from = query.getDueFrom() == null ? null : query.getDueFrom().toEpochDay();
+        Long to = query.getDueTo() == null ? null : query.getDueTo().toEpochDay();
+        return sortedIndexes.get(TaskSortKey.DUE_DATE).range(from, to);
+    }
+
+    private SortedIndex.Range titleRange(TaskQuery query) {
+        String prefix = TaskSortKey.titleKey(query.getTitlePrefix());
+        return sortedIndexes.get(TaskSortKey.TITLE).range(prefix, prefix + Character.MAX_VALUE);
+    }
+
+    private SortedIndex.Range orderedRange(TaskQuery query, AccessPath path) {
+        return switch (path) {
+            case DUE_DATE -> dueRange(query);
+            case TITLE -> titleRange(query);
+            default -> sortedIndexes.get(query.getSortBy()).range(null, null);
+        };
+    }
 
-        if (!task.isOverdue()) {
-            return "NoOverdueStrategy";
+    private Iterable<String> candidates(TaskQuery query, AccessPath path) {
+        return switch (path) {
+            case STATUS -> statusIndex.getOrDefault(query.getStatus(), Set.of());
+            case DUE_DATE -> dueRange(query).ids();
+            case TITLE -> titleRange(query).ids();
+            case FULL -> tasks.keySet();
+        };
+    }
+
+    private TaskPage orderedScan(TaskQuery query, SortedIndex.Range range, SortedIndex.Entry after,
+                                 Predicate<Task> filter, String plan) {
+        TaskSortKey sortKey = query.getSortBy();
+        int limit = query.getLimit() == null ? Integer.MAX_VALUE : query.getLimit();
+        int skip = query.getOffset();
+        long matched = 0;
+        boolean hasMore = false;
+        List<Task> items = new ArrayList<>();
+
+        for (SortedIndex.Entry entry : after == null ? range.entries() : range.after(after)) {
+            Task task = tasks.get(entry.id());
+            // 条目与任务当前的键不一致，说明是尚未清理的旧条目，以新条目为准
+            if (task == null || SortedIndex.compareKeys(sortKey.keyOf(task), entry.key()) != 0 || !filter.test(task)) {
+                continue;
+            }
+            matched++;
+            if (skip > 0) {
+                skip--;
+            } else if (items.size() < limit) {
+                items.add(task);
+            } else {
+                hasMore = true;
+                break;
+            }
         }
 
-        FeeCalculationStrategy strategy = selectStrategy(task.getOverdueDays());
-        return strategy.getClass().getSimpleName();
+        Long total = null;
+        if (!query.hasFilters() && after == null) {
+            total = (long) tasks.size();
+        } else if (!hasMore && after == null) {
+            total = matched;
+        }
+        return new TaskPage(items, total, hasMore ? encodeCursor(sortKey, items.get(items.size() - 1)) : null, plan);
     }
 
-    private FeeCalculationStrategy selectStrategy(long overdueDays) {
-        if (overdueDays <= 3) {
-            return new StandardFeeStrategy();
-        } else if (overdueDays <= 7) {
-            return new EscalatingFeeStrategy();
-        } else {
-            return new SevereFeeStrategy();
+    private List<Task> fetch(Iterable<String> ids, Predicate<Task> filter) {
+        List<Task> matches = new ArrayList<>();
+        for (String id : ids) {
+            Task task = tasks.get(id);
+            if (task != null && filter.test(task)) {
+                matches.add(task);
+            }
         }
+        return matches;
     }
 
-    public Map<String, Object> getStats() {
-        List<Task> all = repository.findAll();
-        long total = all.size();
-        long pending = all.stream().filter(t -> "pending".equals(t.getStatus())).count();
-        long inProgress = all.stream().filter(t -> "in_progress".equals(t.getStatus())).count();
-        long completed = all.stream().filter(t -> "completed".equals(t.getStatus())).count();
-        long overdue = all.stream().filter(Task::isOverdue).count();
+    /**
+     * 对已过滤的候选排序后取一页。matches 会被原地排序。
+     */
+    static TaskPage sortAndPage(List<Task> matches, TaskQuery query, String plan) {
+        TaskSortKey sortKey = query.getSortBy();
+        SortedIndex.Entry after = decodeCursor(query.getCursor(), sortKey);
+        long total = matches.size();
+
+        Comparator<Task> order = (a, b) -> {
+            int byKey = SortedIndex.compareKeys(sortKey.keyOf(a), sortKey.keyOf(b));
+            return byKey != 0 ? byKey : a.getId().compareTo(b.getId());
+        };
+        matches.sort(order);
+
+        int from = 0;
+        if (after != null) {
+            while (from < matches.size()
+                && SortedIndex.compare(new SortedIndex.Entry(sortKey.keyOf(matches.get(from)), matches.get(from).getId()), after) <= 0) {
+                from++;
+            }
+        }
+        from = Math.min(matches.size(), from + query.getOffset());
+        int to = query.getLimit() == null ? matches.size() : (int) Math.min(matches.size(), (long) from + query.getLimit());
+
+        List<Task> items = new ArrayList<>(matches.subList(from, to));
+        String nextCursor = to < matches.size() && !items.isEmpty()
+            ? encodeCursor(sortKey, items.get(items.size() - 1))
+            : null;
+        return new TaskPage(items, after == null ? total : null, nextCursor, plan);
+    }
 
-        return Map.of(
-            "total", total,
-            "pending", pending,
-            "inProgress", inProgress,
-            "completed", completed,
-            "overdue", overdue
-        );
+    private static Predicate<Task> filterOf(TaskQuery query) {
+        Predicate<Task> filter = task -> true;
+        if (query.getStatus() != null) {
+            filter = filter.and(task -> query.getStatus().equals(task.getStatus()));
+        }
+        if (query.getDueFrom() != null) {
+            filter = filter.and(task -> task.getDueDate() != null && !task.getDueDate().isBefore(query.getDueFrom()));
+        }
+        if (query.getDueTo() != null) {
+            filter = filter.and(task -> task.getDueDate() != null && !task.getDueDate().isAfter(query.getDueTo()));
+        }
+        if (query.getTitlePrefix() != null) {
+            String prefix = TaskSortKey.titleKey(query.getTitlePrefix());
+            filter = filter.and(task -> TaskSortKey.titleKey(task.getTitle()).startsWith(prefix));
+        }
+        return filter;
     }
-}
 
-// ===== 策略模式：逾期费用计算（复用 Week 08） =====
+    /**
+     * 游标 = 上一页最后一条的 (排序键, 排序值, id)，Base64 编码后对客户端不透明。
+     */
+    private static String encodeCursor(TaskSortKey sortKey, Task last) {
+        String raw = sortKey.param() + "\n" + sortKey.keyOf(last) + "\n" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
 
-interface FeeCalculationStrategy {
-    double calculate(long overdueDays);
+    private static SortedIndex.Entry decodeCursor(String cursor, TaskSortKey sortKey) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), java.nio.charset.StandardCharsets.UTF_8);
+            // 标题里可能有换行，所以排序键取第一个和最后一个换行之间的全部内容；参数名和 id 都不含换行
+            int first = raw.indexOf('\n');
+            int last = raw.lastIndexOf('\n');
+            if (first < 0 || first == last || !sortKey.param().equals(raw.substring(0, first))) {
+                throw new ValidationException("Cursor does not match sort key " + sortKey.param());
+            }
+            return new SortedIndex.Entry(sortKey.parseKey(raw.substring(first + 1, last)), raw.substring(last + 1));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
 }
 
 /**
- * 标准费率：每天 10 元。
+ * 有序二级索引：条目按 (键, id) 排序，支持区间扫描和游标定位。
+ *
+ * <p>同一个键可以对应多个任务，加上 id 后每个条目唯一，排序也是全序的，
+ * 因此"上一页最后一条"可以精确定位下一页的起点（keyset 分页）。
  */
-class StandardFeeStrategy implements FeeCalculationStrategy {
-    private static final double DAILY_RATE = 10.0;
-
-    @Override
-    public double calculate(long overdueDays) {
-        return overdueDays * DAILY_RATE;
+final class SortedIndex {
+    record Entry(Comparable<?> key, String id) {
     }
-}
 
-/**
- * 递升费率：前 3 天每天 10 元，之后每天 20 元。
- */
-class EscalatingFeeStrategy implements FeeCalculationStrategy {
-    private static final double BASE_RATE = 10.0;
-    private static final double ESCALATED_RATE = 20.0;
-    private static final int ESCALATION_THRESHOLD = 3;
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(SortedIndex::compare);
 
-    @Override
-    public double calculate(long overdueDays) {
-        long baseDays = Math.min(overdueDays, ESCALATION_THRESHOLD);
-        long escalatedDays = Math.max(0, overdueDays - ESCALATION_THRESHOLD);
-        return baseDays * BASE_RATE + escalatedDays * ESCALATED_RATE;
+    void add(Comparable<?> key, String id) {
+        entries.add(new Entry(key, id));
     }
-}
 
-/**
- * 严厉费率：前 3 天每天 10 元，4-7 天每天 20 元，之后每天 50 元。
- */
-class SevereFeeStrategy implements FeeCalculationStrategy {
-    @Override
-    public double calculate(long overdueDays) {
-        if (overdueDays <= 3) {
-            return overdueDays * 10.0;
-        } else if (overdueDays <= 7) {
-            return 3 * 10.0 + (overdueDays - 3) * 20.0;
-        } else {
-            return 3 * 10.0 + 4 * 20.0 + (overdueDays - 7) * 50.0;
-        }
+    void remove(Comparable<?> key, String id) {
+        entries.remove(new Entry(key, id));
     }
-}
+
+    /**
+     * 键在 [from, to] 之间的条目；from/to 为 null 表示不设边界。
+     */
+    Range range(Comparable<?> from, Comparable<?> to) {
+        NavigableSet<Entry> view = entries;
+        if (from != null) {
+            view = view.tailSet(new Entry(from, null), true);
+        }
+        if (to != null) {
+            view = view.headSet(new Entry(to, MAX_ID), true);
+        }
+        return new Range(view);
+    }
+
+    record Range(NavigableSet<Entry> entries) {
+        NavigableSet<Entry> after(Entry cursor) {
+            return entries.tailSet(cursor, false);
+        }
+
+        Iterable<String> ids() {
+            return () -> entries.stream().map(Entry::id).iterator();
+        }
+
+        /**
+         * 数区间内的条目，超过 cap 就停止：规划器只需要知道它是否比当前最优更小。
+         */
+        long countUpTo(long cap) {
+            long count = 0;
+            for (Iterator<Entry> it = entries.iterator(); it.hasNext() && count <= cap; it.next()) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    // 作为区间上界的哨兵 id：比任何真实 id 都大
+    private static final String MAX_ID = String.valueOf(Character.MAX_VALUE);
+
+    static int compare(Entry a, Entry b) {
+        int byKey = compareKeys(a.key(), b.key());
+        if (byKey != 0) {
+            return byKey;
+        }
+        // null id 只出现在区间下界，排在同键的所有条目之前
+        if (a.id() == null || b.id() == null) {
+            return a.id() == null ? (b.id() == null ? 0 : -1) : 1;
+        }
+        return a.id().compareTo(b.id());
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareKeys(Comparable<?> a, Comparable<?> b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
+
+/**
+ * 列式（struct-of-arrays）任务仓库：每个字段一个数组，第 i 行就是 id = i + 1 的任务。
+ *
+ * <p>与 {@link InMemoryTaskRepository} 的对比：
+ * <pre>
+ * 每个任务一个 Task 对象                    每个字段一个数组
+ *   Task → String id                       byte[] status     （状态码，-1 表示空行）
+ *        → String title / description     int[]  titleRef / descriptionRef（字符串池下标）
+ *        → LocalDate dueDate              int[]  dueDay     （epoch day）
+ *        → LocalDateTime × 2              long[] createdAt / completedAt（epoch 微秒）
+ *        → String status                  long[] version
+ * </pre>
+ * id 就是行号，不占空间；标题和描述放进 {@link StringPool} 去重，重复的标题只存一份。
+ * 按状态、截止日期扫描时只读一两个基本类型数组，对 CPU 缓存很友好。
+ *
+ * <p>Task 对象只在 API 边界（findById、findAll、query 的返回值）临时组装，
+ * 调用方拿到的是副本，修改它不影响仓库；所以 compareAndSet / compareAndDelete 比较的是版本号，
+ * 而不是对象实例。TaskService 每次修改都会把版本号加一，两种比较方式等价。
+ *
+ * <p>代价：时间字段精确到微秒；id 必须是正整数；删除的行留空不回收；
+ * 字符串池只增不减。并发控制用一把读写锁，写入互斥、读取并行。
+ */
+class ColumnarTaskRepository implements TaskRepository {
+    private static final String[] STATUSES = {"pending", "in_progress", "completed"};
+    private static final byte EMPTY = -1;
+    private static final byte UNKNOWN = -2;   // 查询里的未知状态，不会匹配任何行
+    private static final byte COMPLETED = 2;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+
+    private final Clock clock;
+    private final StringPool strings = new StringPool();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 以下字段受 lock 保护
+    private int rows;        // 已分配的行数（含已删除的空行）
+    private int live;
+    private byte[] status = new byte[0];
+    private int[] dueDay = new int[0];
+    private int[] titleRef = new int[0];
+    private int[] descriptionRef = new int[0];
+    private long[] createdAt = new long[0];
+    private long[] completedAt = new long[0];
+    private long[] version = new long[0];
+
+    public ColumnarTaskRepository() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public ColumnarTaskRepository(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Task save(Task task) {
+        lock.writeLock().lock();
+        try {
+            int row;
+            if (task.getId() == null) {
+                row = rows;
+                task.setId(String.valueOf(row + 1));
+            } else {
+                row = rowOf(task.getId());
+                if (row < 0) {
+                    throw new IllegalArgumentException("Columnar repository requires positive integer ids: " + task.getId());
+                }
+            }
+            write(row, task);
+            return task;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Task> findById(String id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return isLive(row) ? Optional.of(materialize(row)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>(live);
+            for (int row = 0; row < rows; row++) {
+                if (status[row] != EMPTY) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findByStatus(String statusName) {
+        byte code = lookupStatus(statusName);
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                if (status[row] == code) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (!isLive(row)) {
+                return false;
+            }
+            clear(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Task> findOverdue() {
+        int today = (int) LocalDate.now(clock).toEpochDay();
+        lock.readLock().lock();
+        try {
+            List<Task> result = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                if (isOverdue(row, today)) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 没有逾期索引，直接扫两列：状态和截止日期。一百万行也只读约 5MB 连续内存。
+     */
+    @Override
+    public long countOverdue() {
+        int today = (int) LocalDate.now(clock).toEpochDay();
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int row = 0; row < rows; row++) {
+                if (isOverdue(row, today)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 在列上完成过滤，只组装命中的行，再复用内存仓库的排序分页逻辑。
+     */
+    @Override
+    public TaskPage query(TaskQuery query) {
+        boolean byStatus = query.getStatus() != null;
+        byte code = byStatus ? lookupStatus(query.getStatus()) : UNKNOWN;
+        long from = query.getDueFrom() == null ? Long.MIN_VALUE : query.getDueFrom().toEpochDay();
+        long to = query.getDueTo() == null ? Long.MAX_VALUE : query.getDueTo().toEpochDay();
+        String prefix = query.getTitlePrefix() == null ? null : TaskSortKey.titleKey(query.getTitlePrefix());
+
+        List<Task> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < rows; row++) {
+                if (status[row] == EMPTY || (byStatus && status[row] != code)) {
+                    continue;
+                }
+                if (query.hasDueRange() && (dueDay[row] == NO_DATE || dueDay[row] < from || dueDay[row] > to)) {
+                    continue;
+                }
+                if (prefix != null && !TaskSortKey.titleKey(strings.get(titleRef[row])).startsWith(prefix)) {
+                    continue;
+                }
+                matches.add(materialize(row));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return InMemoryTaskRepository.sortAndPage(matches, query, "columnar-scan");
+    }
+
+    @Override
+    public boolean compareAndSet(Task expected, Task updated) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(expected.getId());
+            if (!isLive(row) || version[row] != expected.getVersion()) {
+                return false;
+            }
+            write(row, updated);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean compareAndDelete(Task expected) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(expected.getId());
+            if (!isLive(row) || version[row] != expected.getVersion()) {
+                return false;
+            }
+            clear(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 列数组占用的字节数（不含字符串池），用于估算每个任务的内存开销。
+     */
+    long columnBytes() {
+        lock.readLock().lock();
+        try {
+            return status.length * (1L + 4 + 4 + 4 + 8 + 8 + 8);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int pooledStrings() {
+        return strings.size();
+    }
+
+    // ===== 行读写（调用方需持有锁） =====
+
+    private void write(int row, Task task) {
+        if (row >= status.length) {
+            grow(row + 1);
+        }
+        if (row >= rows) {
+            // 新行先标记为空行；中间跳过的行（例如恢复时 id 不连续）保持为空行
+            Arrays.fill(status, rows, row + 1, EMPTY);
+            rows = row + 1;
+        }
+        if (status[row] == EMPTY) {
+            live++;
+        }
+        status[row] = statusCode(task.getStatus());
+        dueDay[row] = task.getDueDate() == null ? NO_DATE : (int) task.getDueDate().toEpochDay();
+        titleRef[row] = strings.intern(task.getTitle());
+        descriptionRef[row] = strings.intern(task.getDescription());
+        createdAt[row] = toMicros(task.getCreatedAt());
+        completedAt[row] = toMicros(task.getCompletedAt());
+        version[row] = task.getVersion();
+    }
+
+    private void clear(int row) {
+        status[row] = EMPTY;
+        titleRef[row] = NO_STRING;
+        descriptionRef[row] = NO_STRING;
+        live--;
+    }
+
+    private Task materialize(int row) {
+        Task task = new Task();
+        task.setId(String.valueOf(row + 1));
+        task.setTitle(strings.get(titleRef[row]));
+        task.setDescription(strings.get(descriptionRef[row]));
+        task.setDueDate(dueDay[row] == NO_DATE ? null : LocalDate.ofEpochDay(dueDay[row]));
+        task.setStatus(STATUSES[status[row]]);
+        task.setCreatedAt(fromMicros(createdAt[row]));
+        task.setCompletedAt(fromMicros(completedAt[row]));
+        task.setVersion(version[row]);
+        return task;
+    }
+
+    private boolean isLive(int row) {
+        return row >= 0 && row < rows && status[row] != EMPTY;
+    }
+
+    private boolean isOverdue(int row, int today) {
+        return status[row] != EMPTY && status[row] != COMPLETED && dueDay[row] != NO_DATE && dueDay[row] < today;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, Math.max(16, status.length + (status.length >> 1)));
+        status = Arrays.copyOf(status, capacity);
+        dueDay = Arrays.copyOf(dueDay, capacity);
+        titleRef = Arrays.copyOf(titleRef, capacity);
+        descriptionRef = Arrays.copyOf(descriptionRef, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        completedAt = Arrays.copyOf(completedAt, capacity);
+        version = Arrays.copyOf(version, capacity);
+    }
+
+    private static int rowOf(String id) {
+        try {
+            int value = Integer.parseInt(id);
+            return value > 0 ? value - 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte statusCode(String statusName) {
+        byte code = lookupStatus(statusName);
+        if (code == UNKNOWN) {
+            throw new IllegalArgumentException("Unknown status: " + statusName);
+        }
+        return code;
+    }
+
+    private static byte lookupStatus(String statusName) {
+        for (byte code = 0; code < STATUSES.length; code++) {
+            if (STATUSES[code].equals(statusName)) {
+                return code;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+            Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
+
+/**
+ * 字符串池：相同内容的字符串只保存一份，对外用 int 下标引用。
+ *
+ * <p>只增不减，适合取值重复度高的字段（标题、描述模板）。非线程安全，由使用方加锁。
+ */
+final class StringPool {
+    private final Map<String, Integer> refs = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        return refs.computeIfAbsent(value, key -> {
+            values.add(key);
+            return values.size() - 1;
+        });
+    }
+
+    String get(int ref) {
+        return ref < 0 ? null : values.get(ref);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
+
+/**
+ * 刷盘策略：决定写入返回前数据是否已经落到磁盘上。
+ */
+enum FsyncPolicy {
+    /** 每次写入都等 fsync 完成，并发写入合并成一次 fsync（组提交）。掉电不丢数据，最慢。 */
+    ALWAYS,
+    /** 写入只进操作系统缓存，后台按固定间隔 fsync。进程崩溃不丢，掉电最多丢一个间隔。 */
+    BATCHED,
+    /** 从不主动 fsync，只在轮转和关闭时刷盘，何时落盘由操作系统决定。 */
+    NEVER
+}
+
+/**
+ * 带持久化的任务仓库：内存仓库 + 追加写日志 + 定期快照。
+ *
+ * <p>读操作全部走内存，延迟与 {@link InMemoryTaskRepository} 相同；
+ * 每次成功的 save / delete 在内存生效后立即追加一条二进制记录到日志文件：
+ * <pre>
+ * [int 长度][int CRC32][payload：1 字节操作类型 + 任务字段]
+ * </pre>
+ *
+ * <p>目录结构：
+ * <ul>
+ *   <li>journal-N.log：日志段，只追加</li>
+ *   <li>snapshot-N.bin：全量快照，恢复时先加载它，再重放编号 ≥ N 的日志段</li>
+ * </ul>
+ *
+ * <p>快照（{@link #compact()}）先在写锁内切换到新日志段，再在锁外复制内存数据写文件，
+ * 写入不会被长时间阻塞。复制时可能已经包含新段里的部分修改，但日志记录的是任务的完整状态，
+ * 按顺序重放后每个任务都以最后一条记录为准，结果仍然正确。快照写完后删除更早的日志段。
+ *
+ * <p>启动恢复时，最后一个日志段末尾的残缺记录（写到一半时崩溃）或校验失败的记录会被截掉；
+ * 较早的日志段在轮转时已经 fsync，出现坏记录说明文件被破坏，直接报错而不是静默丢数据。
+ */
+class JournaledTaskRepository implements TaskRepository, AutoCloseable {
+    static final Duration DEFAULT_FSYNC_INTERVAL = Duration.ofSeconds(1);
+    static final Duration DEFAULT_SNAPSHOT_INTERVAL = Duration.ofMinutes(5);
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int SNAPSHOT_MAGIC = 0x43465331;  // "CFS1"
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+
+    private final Path directory;
+    private final InMemoryTaskRepository memory;
+    private final FsyncPolicy policy;
+
+    // appendLock 保证"修改内存 + 追加日志"对所有写入是一个整体，日志顺序与内存生效顺序一致；
+    // syncLock 只保护 fsync 和日志段切换，fsync 期间其他线程仍可以继续追加
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile FileChannel segment;
+    private long segmentIndex;
+    private volatile long appendedRecords;   // 只在 appendLock 内写
+    private volatile long syncedRecords;     // 只在 syncLock 内写
+    private long snapshotRecords;            // 上次快照时的 appendedRecords
+    private boolean closed;
+
+    public JournaledTaskRepository(Path directory, InMemoryTaskRepository memory, FsyncPolicy policy) throws IOException {
+        this(directory, memory, policy, DEFAULT_FSYNC_INTERVAL, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * 打开（或新建）数据目录并恢复数据。
+     *
+     * @param memory           恢复目标，应当是一个空仓库
+     * @param fsyncInterval    BATCHED 策略下的 fsync 间隔
+     * @param snapshotInterval 后台快照间隔；Duration.ZERO 表示不自动快照，只在调用 compact() 时生成
+     */
+    public JournaledTaskRepository(Path directory, InMemoryTaskRepository memory, FsyncPolicy policy,
+                                   Duration fsyncInterval, Duration snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.memory = memory;
+        this.policy = policy;
+
+        Files.createDirectories(directory);
+        recover();
+
+        if (policy == FsyncPolicy.BATCHED) {
+            long millis = fsyncInterval.toMillis();
+            background.scheduleWithFixedDelay(() -> runQuietly("sync", this::sync), millis, millis, TimeUnit.MILLISECONDS);
+        }
+        if (!snapshotInterval.isZero()) {
+            long millis = snapshotInterval.toMillis();
+            background.scheduleWithFixedDelay(() -> runQuietly("snapshot", this::compactIfChanged), millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 底层内存仓库，供逾期翻转调度器等只与内存索引打交道的组件使用。
+     */
+    public InMemoryTaskRepository memory() {
+        return memory;
+    }
+
+    // ===== 写操作：先改内存，再记日志 =====
+
+    @Override
+    public Task save(Task task) {
+        write(() -> {
+            memory.save(task);
+            return true;
+        }, () -> encodePut(task));
+        return task;
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return write(() -> memory.delete(id), () -> encodeDelete(id));
+    }
+
+    @Override
+    public boolean compareAndSet(Task expected, Task updated) {
+        return write(() -> memory.compareAndSet(expected, updated), () -> encodePut(updated));
+    }
+
+    @Override
+    public boolean compareAndDelete(Task expected) {
+        return write(() -> memory.compareAndDelete(expected), () -> encodeDelete(expected.getId()));
+    }
+
+    private boolean write(BooleanSupplier mutation, Supplier<byte[]> record) {
+        long sequence;
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (!mutation.getAsBoolean()) {
+                return false;
+            }
+            // 在锁内编码：Task 是可变对象，锁外编码可能记下别的线程之后的修改
+            sequence = append(record.get());
+        } finally {
+            appendLock.unlock();
+        }
+        if (policy == FsyncPolicy.ALWAYS) {
+            syncUpTo(sequence);
+        }
+        return true;
+    }
+
+    // 调用方需持有 appendLock
+    private long append(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.length)
+            .putInt(payload.length)
+            .putInt((int) crc.getValue())
+            .put(payload)
+            .flip();
+        try {
+            while (frame.hasRemaining()) {
+                segment.write(frame);
+            }
+        } catch (IOException e) {
+            // 内存已经生效而日志没写进去，继续运行会让两者越差越远
+            throw new UncheckedIOException("Failed to append to journal " + segmentIndex, e);
+        }
+        return ++appendedRecords;
+    }
+
+    /**
+     * 把已追加的记录全部 fsync 到磁盘。BATCHED 策略下由后台线程定时调用。
+     */
+    public void sync() {
+        syncUpTo(appendedRecords);
+    }
+
+    private void syncUpTo(long sequence) {
+        synchronized (syncLock) {
+            // 排在后面的线程常常发现自己的记录已经被前一次 fsync 带上了，直接返回（组提交）
+            if (syncedRecords >= sequence) {
+                return;
+            }
+            long upTo = appendedRecords;
+            try {
+                segment.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to fsync journal " + segmentIndex, e);
+            }
+            syncedRecords = upTo;
+        }
+    }
+
+    // ===== 快照与压缩 =====
+
+    /**
+     * 切换到新日志段，写一份全量快照，然后删除快照已经覆盖的旧日志段和旧快照。
+     */
+    public synchronized void compact() throws IOException {
+        long replayFrom;
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            synchronized (syncLock) {
+                segment.force(false);
+                syncedRecords = appendedRecords;
+                segment.close();
+                segmentIndex++;
+                segment = openSegment(segmentIndex);
+            }
+            replayFrom = segmentIndex;
+            snapshotRecords = appendedRecords;
+        } finally {
+            appendLock.unlock();
+        }
+
+        writeSnapshot(replayFrom, memory.findAll(), memory.nextIdValue());
+        for (Path path : listFiles()) {
+            long index = fileIndex(path);
+            if (index < replayFrom) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void compactIfChanged() throws IOException {
+        boolean changed;
+        appendLock.lock();
+        try {
+            changed = appendedRecords != snapshotRecords;
+        } finally {
+            appendLock.unlock();
+        }
+        if (changed) {
+            compact();
+        }
+    }
+
+    private void writeSnapshot(long index, List<Task> tasks, int nextId) throws IOException {
+        Path temp = directory.resolve(String.format("snapshot-%08d.tmp", index));
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(nextId);
+            out.writeInt(tasks.size());
+            for (Task task : tasks) {
+                writeTask(out, task);
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.getChannel().force(true);
+        }
+        // 先写临时文件再原子改名：崩溃时要么是旧快照，要么是完整的新快照
+        Files.move(temp, snapshotPath(index), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // ===== 启动恢复 =====
+
+    private void recover() throws IOException {
+        long replayFrom = 0;
+        for (Path path : listFiles()) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                Files.delete(path);  // 上次写快照时崩溃留下的半成品
+            } else if (name.startsWith("snapshot-")) {
+                replayFrom = Math.max(replayFrom, fileIndex(path));
+            }
+        }
+        if (Files.exists(snapshotPath(replayFrom))) {
+            loadSnapshot(snapshotPath(replayFrom));
+        }
+
+        List<Long> segments = new ArrayList<>();
+        for (Path path : listFiles()) {
+            if (path.getFileName().toString().startsWith("journal-") && fileIndex(path) >= replayFrom) {
+                segments.add(fileIndex(path));
+            }
+        }
+        Collections.sort(segments);
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segments.get(i), i == segments.size() - 1);
+        }
+
+        segmentIndex = segments.isEmpty() ? replayFrom : segments.get(segments.size() - 1);
+        segment = openSegment(segmentIndex);
+    }
+
+    private void loadSnapshot(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, Math.max(0, bytes.length - 8));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < 20 || in.readInt() != SNAPSHOT_MAGIC
+            || ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong() != crc.getValue()) {
+            throw new IOException("Corrupted snapshot: " + path);
+        }
+        int nextId = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            memory.restore(readTask(in));
+        }
+        memory.advanceNextId(nextId);
+    }
+
+    private void replaySegment(long index, boolean last) throws IOException {
+        Path path = segmentPath(index);
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] header = in.readNBytes(8);
+                if (header.length < 8) {
+                    break;
+                }
+                ByteBuffer frame = ByteBuffer.wrap(header);
+                int length = frame.getInt();
+                int checksum = frame.getInt();
+                if (length < 1 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = in.readNBytes(length);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (payload.length < length || (int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(payload);
+                valid += 8 + length;
+            }
+        }
+
+        long size = Files.size(path);
+        if (valid < size) {
+            if (!last) {
+                throw new IOException("Corrupted journal " + path + " at offset " + valid);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            System.err.println("[journal] 截掉 " + path.getFileName() + " 末尾 " + (size - valid) + " 字节的残缺记录");
+        }
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case PUT -> memory.restore(readTask(in));
+            case DELETE -> memory.delete(readString(in));
+            default -> throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    // ===== 编码 =====
+
+    private static byte[] encodePut(Task task) {
+        return encode(out -> {
+            out.writeByte(PUT);
+            writeTask(out, task);
+        });
+    }
+
+    private static byte[] encodeDelete(String id) {
+        return encode(out -> {
+            out.writeByte(DELETE);
+            writeString(out, id);
+        });
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            writer.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // 写内存流不会真的失败
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        writeString(out, task.getId());
+        writeString(out, task.getTitle());
+        writeString(out, task.getDescription());
+        out.writeLong(task.getDueDate() == null ? Long.MIN_VALUE : task.getDueDate().toEpochDay());
+        writeString(out, task.getStatus());
+        writeDateTime(out, task.getCreatedAt());
+        writeDateTime(out, task.getCompletedAt());
+        out.writeLong(task.getVersion());
+    }
+
+    private static Task readTask(DataInputStream in) throws IOException {
+        Task task = new Task();
+        task.setId(readString(in));
+        task.setTitle(readString(in));
+        task.setDescription(readString(in));
+        long dueDay = in.readLong();
+        task.setDueDate(dueDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(dueDay));
+        task.setStatus(readString(in));
+        task.setCreatedAt(readDateTime(in));
+        task.setCompletedAt(readDateTime(in));
+        task.setVersion(in.readLong());
+        return task;
+    }
+
+    // writeUTF 限制 64KB，描述字段可能更长，所以自己写长度 + UTF-8 字节；-1 表示 null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    // ===== 文件 =====
+
+    private FileChannel openSegment(long index) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("journal-%08d.log", index));
+    }
+
+    private Path snapshotPath(long index) {
+        return directory.resolve(String.format("snapshot-%08d.bin", index));
+    }
+
+    private List<Path> listFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("(journal|snapshot)-\\d{8}\\.(log|bin|tmp)"))
+                .toList();
+        }
+    }
+
+    private static long fileIndex(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static void runQuietly(String name, IoAction action) {
+        // 后台任务抛出异常会让 ScheduledExecutorService 取消后续调度，这里只记录错误
+        try {
+            action.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[journal] " + name + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 停止后台任务，fsync 并关闭日志。之后的写入会抛出 IllegalStateException。
+     */
+    @Override
+    public void close() throws IOException {
+        boolean interrupted = stopBackground();
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (syncLock) {
+                segment.force(false);
+                syncedRecords = appendedRecords;
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 等正在执行的 sync / 快照做完再返回，不会启动新的周期任务。
+     *
+     * <p>不能用 shutdownNow：FileChannel 是可中断通道，后台线程在 force 时被中断，
+     * 通道会被直接关闭，close() 最后的 fsync 就会失败，最后一批已确认的记录留在页缓存里。
+     * 等待期间调用线程自己被中断也一样，所以先记下中断、等 fsync 做完再恢复中断标记。
+     *
+     * @return 等待期间调用线程是否被中断过
+     */
+    private boolean stopBackground() {
+        background.shutdown();
+        boolean interrupted = Thread.interrupted();
+        while (!background.isTerminated()) {
+            try {
+                background.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+
+    // ===== 读操作：直接走内存 =====
+
+    @Override
+    public Optional<Task> findById(String id) {
+        return memory.findById(id);
+    }
+
+    @Override
+    public List<Task> findAll() {
+        return memory.findAll();
+    }
+
+    @Override
+    public List<Task> findByStatus(String status) {
+        return memory.findByStatus(status);
+    }
+
+    @Override
+    public long count() {
+        return memory.count();
+    }
+
+    @Override
+    public List<Task> findOverdue() {
+        return memory.findOverdue();
+    }
+
+    @Override
+    public long countOverdue() {
+        return memory.countOverdue();
+    }
+
+    @Override
+    public TaskPage query(TaskQuery query) {
+        return memory.query(query);
+    }
+}
+
+/**
+ * 逾期翻转调度器。
+ *
+ * <p>按注入的 Clock 计算到下一个零点的延迟，到点后调用 {@link InMemoryTaskRepository#rolloverOverdue}，
+ * 再排下一次。即使调度晚了，Repository 的读方法也会顺带翻转，结果不会错，只是第一次读稍慢。
+ */
+class OverdueRolloverScheduler implements AutoCloseable {
+    private final InMemoryTaskRepository repository;
+    private final Clock clock;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "overdue-rollover");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OverdueRolloverScheduler(InMemoryTaskRepository repository, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+    }
+
+    public void start() {
+        tick();
+        scheduleNext();
+    }
+
+    /**
+     * 执行一次翻转。测试中推进 Clock 后直接调用即可，无需等待真实时间。
+     */
+    public void tick() {
+        repository.rolloverOverdue(LocalDate.now(clock));
+    }
+
+    private void scheduleNext() {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime nextMidnight = now.toLocalDate().plusDays(1).atStartOfDay(clock.getZone());
+        long delayMillis = Math.max(1_000, Duration.between(now, nextMidnight).toMillis());
+        executor.schedule(() -> {
+            try {
+                tick();
+            } finally {
+                scheduleNext();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
+
+// ===== Service 层（复用 Week 08 业务逻辑） =====
+
+class TaskService {
+    // 逾期任务少于该数量时顺序计算更快（并行的拆分与合并开销大于收益）
+    static final int PARALLEL_FEE_THRESHOLD = 10_000;
+
+    private final TaskRepository repository;
+    private final Clock clock;
+    private final FeeTable feeTable;
+    private final TaskStatistics statistics;
+
+    public TaskService(TaskRepository repository) {
+        this(repository, Clock.systemDefaultZone());
+    }
+
+    public TaskService(TaskRepository repository, Clock clock) {
+        this(repository, clock, new FeeTable(FeeTable.DEFAULT_HORIZON_DAYS));
+    }
+
+    public TaskService(TaskRepository repository, Clock clock, FeeTable feeTable) {
+        this.repository = repository;
+        this.clock = clock;
+        this.feeTable = feeTable;
+        this.statistics = new TaskStatistics(repository);
+        // 持久化仓库重启后已有数据，统计要从现有任务算起
+        repository.findAll().forEach(statistics::onCreated);
+    }
+
+    public Task createTask(TaskRequest request) {
+        // 验证
+        if (request.getTitle() == null || request.getTitle().trim().isEmpty()) {
+            throw new ValidationException("Title is required");
+        }
+
+        LocalDate dueDate = parseDueDate(request.getDueDate());
+
+        Task task = new Task(null, request.getTitle(), request.getDescription(), dueDate);
+        Task saved = repository.save(task);
+        statistics.onCreated(saved);
+        return saved;
+    }
+
+    public Optional<Task> findById(String id) {
+        return repository.findById(id);
+    }
+
+    public List<Task> findAll() {
+        return repository.findAll();
+    }
+
+    public List<Task> findOverdue() {
+        return repository.findOverdue();
+    }
+
+    public TaskPage findTasks(TaskQuery query) {
+        if (query.getLimit() != null && query.getLimit() < 0) {
+            throw new ValidationException("limit must not be negative");
+        }
+        if (query.getOffset() < 0) {
+            throw new ValidationException("offset must not be negative");
+        }
+        return repository.query(query);
+    }
+
+    public Task updateTask(String id, TaskRequest request) {
+        return updateTask(id, request, null);
+    }
+
+    /**
+     * 更新任务。expectedVersion 来自 If-Match，为 null 表示不校验版本。
+     */
+    public Task updateTask(String id, TaskRequest request, Long expectedVersion) {
+        LocalDate newDueDate = request.getDueDate() == null ? null : parseDueDate(request.getDueDate());
+
+        return modify(id, expectedVersion, task -> {
+            if (request.getTitle() != null) {
+                task.setTitle(request.getTitle());
+            }
+            if (request.getDescription() != null) {
+                task.setDescription(request.getDescription());
+            }
+            if (newDueDate != null) {
+                task.setDueDate(newDueDate);
+            }
+        });
+    }
+
+    public void deleteTask(String id) {
+        deleteTask(id, null);
+    }
+
+    public void deleteTask(String id, Long expectedVersion) {
+        while (true) {
+            Task current = repository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+            checkVersion(current, expectedVersion);
+
+            // 只有真正删掉的那次调用才扣减计数，并发重复删除不会扣成负数
+            if (repository.compareAndDelete(current)) {
+                statistics.onDeleted(current);
+                return;
+            }
+        }
+    }
+
+    public Task completeTask(String id) {
+        return completeTask(id, null);
+    }
+
+    public Task completeTask(String id, Long expectedVersion) {
+        return modify(id, expectedVersion, task -> {
+            task.setStatus("completed");
+            task.setCompletedAt(LocalDateTime.now(clock));
+        });
+    }
+
+    /**
+     * 乐观并发控制的写入循环。
+     *
+     * <p>已存储的 Task 不再被原地修改：先复制一份，在副本上应用修改、版本号 +1，
+     * 再用 compareAndSet 替换。期间若有其他请求抢先写入，替换失败，基于最新版本重试；
+     * 调用方带了 expectedVersion 时，重试会发现版本已变并返回 409。
+     * 读者拿到的永远是某个完整版本，不会看到改了一半的对象。
+     */
+    private Task modify(String id, Long expectedVersion, Consumer<Task> change) {
+        while (true) {
+            Task current = repository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+            checkVersion(current, expectedVersion);
+
+            Task updated = new Task(current);
+            change.accept(updated);
+            updated.setVersion(current.getVersion() + 1);
+
+            if (repository.compareAndSet(current, updated)) {
+                statistics.onChanged(current.getStatus(), updated);
+                return updated;
+            }
+        }
+    }
+
+    private void checkVersion(Task current, Long expectedVersion) {
+        if (expectedVersion != null && current.getVersion() != expectedVersion) {
+            throw new ConflictException("Task " + current.getId() + " is at version "
+                + current.getVersion() + ", but If-Match expected " + expectedVersion);
+        }
+    }
+
+    private LocalDate parseDueDate(String dueDate) {
+        try {
+            return LocalDate.parse(dueDate);
+        } catch (Exception e) {
+            throw new ValidationException("Invalid dueDate format, expected: YYYY-MM-DD");
+        }
+    }
+
+    /**
+     * 计算逾期费用（复用 Week 08 策略模式思想）。
+     */
+    public double calculateOverdueFee(String id) {
+        return quoteOverdueFee(id).getFee();
+    }
+
+    /**
+     * 单个任务的逾期费用明细：一次查找、一次取日期、一次策略选择。
+     */
+    public OverdueFeeResponse quoteOverdueFee(String id) {
+        Task task = repository.findById(id)
+            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
+        return quote(task, LocalDate.now(clock));
+    }
+
+    /**
+     * 一次性计算所有逾期任务的费用。
+     *
+     * <p>候选任务直接取自 Repository 的逾期集合，不扫描全表；
+     * 数量超过 {@link #PARALLEL_FEE_THRESHOLD} 时用 parallelStream 分摊到多个核心。
+     * 整批使用同一个"今天"，避免跨零点时同一批结果口径不一致。
+     */
+    public OverdueFeeReport calculateAllOverdueFees() {
+        LocalDate today = LocalDate.now(clock);
+        List<Task> overdue = repository.findOverdue();
+
+        var stream = overdue.size() >= PARALLEL_FEE_THRESHOLD
+            ? overdue.parallelStream()
+            : overdue.stream();
+        List<OverdueFeeResponse> items = stream
+            .map(task -> quote(task, today))
+            // 取出候选后任务可能刚被完成，这类任务不再计费
+            .filter(item -> item.getOverdueDays() > 0)
+            .toList();
+
+        double total = 0;
+        for (OverdueFeeResponse item : items) {
+            total += item.getFee();
+        }
+        return new OverdueFeeReport(today, items, total);
+    }
+
+    private OverdueFeeResponse quote(Task task, LocalDate today) {
+        if (!task.isOverdue(today)) {
+            return new OverdueFeeResponse(task.getId(), task.getTitle(), 0, 0.0, "NoOverdueStrategy");
+        }
+
+        long overdueDays = task.getOverdueDays(today);
+
+        // 使用 Week 08 的策略模式思想：根据逾期天数选择不同费率（已预先查表）
+        return new OverdueFeeResponse(
+            task.getId(),
+            task.getTitle(),
+            overdueDays,
+            feeTable.fee(overdueDays),
+            feeTable.strategyFor(overdueDays).name()
+        );
+    }
+
+    /**
+     * 统计信息：直接读取增量维护的计数器，耗时与任务数量无关。
+     */
+    public Map<String, Object> getStats() {
+        return statistics.snapshot();
+    }
+}
+
+/**
+ * 任务统计（增量维护）。
+ *
+ * <p>旧版 getStats() 每次都 findAll() 复制整个仓储，再做五遍 stream 过滤；
+ * /stats 被每个打开的浏览器标签页轮询，任务越多越慢。现在改为在写入时调整计数：
+ * <ul>
+ *   <li>状态计数使用 LongAdder（分段计数器），并发写入分散到不同 cell，互不争用</li>
+ *   <li>逾期数直接取 Repository 截止日期索引里的逾期集合大小，不做扫描</li>
+ * </ul>
+ */
+class TaskStatistics {
+    private final TaskRepository repository;
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder inProgress = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+
+    public TaskStatistics(TaskRepository repository) {
+        this.repository = repository;
+    }
+
+    public void onCreated(Task task) {
+        adjust(task.getStatus(), 1);
+    }
+
+    public void onChanged(String oldStatus, Task task) {
+        adjust(oldStatus, -1);
+        adjust(task.getStatus(), 1);
+    }
+
+    public void onDeleted(Task task) {
+        adjust(task.getStatus(), -1);
+    }
+
+    public Map<String, Object> snapshot() {
+        long pendingCount = pending.sum();
+        long inProgressCount = inProgress.sum();
+        long completedCount = completed.sum();
+
+        return Map.of(
+            "total", pendingCount + inProgressCount + completedCount,
+            "pending", pendingCount,
+            "inProgress", inProgressCount,
+            "completed", completedCount,
+            "overdue", repository.countOverdue()
+        );
+    }
+
+    private void adjust(String status, long delta) {
+        switch (status) {
+            case "pending" -> pending.add(delta);
+            case "in_progress" -> inProgress.add(delta);
+            case "completed" -> completed.add(delta);
+            default -> throw new IllegalStateException("Unknown status: " + status);
+        }
+    }
+}
+
+// ===== 策略模式：逾期费用计算（复用 Week 08） =====
+
+interface FeeCalculationStrategy {
+    double calculate(long overdueDays);
+
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
+
+/**
+ * 策略注册表：三种策略都是无状态的，全局共享一个实例即可，计费时不再 new 对象。
+ */
+final class FeeStrategies {
+    static final FeeCalculationStrategy STANDARD = new StandardFeeStrategy();
+    static final FeeCalculationStrategy ESCALATING = new EscalatingFeeStrategy();
+    static final FeeCalculationStrategy SEVERE = new SevereFeeStrategy();
+
+    private FeeStrategies() {
+    }
+
+    /**
+     * 根据逾期天数选择策略：3 天内标准费率，7 天内递升费率，更久用严厉费率。
+     */
+    static FeeCalculationStrategy forOverdueDays(long overdueDays) {
+        if (overdueDays <= 3) {
+            return STANDARD;
+        } else if (overdueDays <= 7) {
+            return ESCALATING;
+        } else {
+            return SEVERE;
+        }
+    }
+}
+
+/**
+ * 逾期费用查找表。
+ *
+ * <p>费用只取决于逾期天数，所以启动时把 0..horizonDays 天的累计费用和对应策略一次算好，
+ * 计费时按下标读数组：不创建对象，也不走分段判断。超过 horizon 的天数回退到策略自身的
+ * 闭式公式，结果与查表一致。
+ */
+final class FeeTable {
+    static final int DEFAULT_HORIZON_DAYS = 365;
+
+    private final int horizonDays;
+    private final double[] fees;
+    private final FeeCalculationStrategy[] strategies;
+
+    FeeTable(int horizonDays) {
+        if (horizonDays < 0) {
+            throw new IllegalArgumentException("horizonDays must not be negative: " + horizonDays);
+        }
+        this.horizonDays = horizonDays;
+        this.fees = new double[horizonDays + 1];
+        this.strategies = new FeeCalculationStrategy[horizonDays + 1];
+        for (int day = 0; day <= horizonDays; day++) {
+            strategies[day] = FeeStrategies.forOverdueDays(day);
+            fees[day] = strategies[day].calculate(day);
+        }
+    }
+
+    double fee(long overdueDays) {
+        if (overdueDays <= 0) {
+            return 0.0;
+        }
+        if (overdueDays <= horizonDays) {
+            return fees[(int) overdueDays];
+        }
+        return FeeStrategies.forOverdueDays(overdueDays).calculate(overdueDays);
+    }
+
+    FeeCalculationStrategy strategyFor(long overdueDays) {
+        if (overdueDays <= 0) {
+            return FeeStrategies.STANDARD;
+        }
+        if (overdueDays <= horizonDays) {
+            return strategies[(int) overdueDays];
+        }
+        return FeeStrategies.forOverdueDays(overdueDays);
+    }
+
+    int horizonDays() {
+        return horizonDays;
+    }
+}
+
+/**
+ * 标准费率：每天 10 元。
+ */
+class StandardFeeStrategy implements FeeCalculationStrategy {
+    private static final double DAILY_RATE = 10.0;
+
+    @Override
+    public double calculate(long overdueDays) {
+        return overdueDays * DAILY_RATE;
+    }
+}
+
+/**
+ * 递升费率：前 3 天每天 10 元，之后每天 20 元。
+ */
+class EscalatingFeeStrategy implements FeeCalculationStrategy {
+    private static final double BASE_RATE = 10.0;
+    private static final double ESCALATED_RATE = 20.0;
+    private static final int ESCALATION_THRESHOLD = 3;
+
+    @Override
+    public double calculate(long overdueDays) {
+        long baseDays = Math.min(overdueDays, ESCALATION_THRESHOLD);
+        long escalatedDays = Math.max(0, overdueDays - ESCALATION_THRESHOLD);
+        return baseDays * BASE_RATE + escalatedDays * ESCALATED_RATE;
+    }
+}
+
+/**
+ * 严厉费率：前 3 天每天 10 元，4-7 天每天 20 元，之后每天 50 元。
+ */
+class SevereFeeStrategy implements FeeCalculationStrategy {
+    @Override
+    public double calculate(long overdueDays) {
+        if (overdueDays <= 3) {
+            return overdueDays * 10.0;
+        } else if (overdueDays <= 7) {
+            return 3 * 10.0 + (overdueDays - 3) * 20.0;
+        } else {
+            return 3 * 10.0 + 4 * 20.0 + (overdueDays - 7) * 50.0;
+        }
+    }
+}
 
 // ===== Controller 层（新增：HTTP 翻译层） =====
 
@@ -536,31 +2583,85 @@ class TaskController {
     }
 
     public void getAllTasks(Context ctx) {
-        List<Task> tasks = taskService.findAll();
-        ctx.json(Map.of(
-            "data", tasks,
-            "total", tasks.size()
-        ));
+        if ("true".equals(ctx.queryParam("overdue"))) {
+            List<Task> tasks = taskService.findOverdue();
+            ctx.json(Map.of("data", tasks, "total", tasks.size()));
+            return;
+        }
+
+        // 没有任何查询参数时走 findAll()，快照模式下无需复制
+        if (ctx.queryParamMap().isEmpty()) {
+            List<Task> tasks = taskService.findAll();
+            ctx.json(Map.of("data", tasks, "total", tasks.size()));
+            return;
+        }
+
+        TaskPage page = taskService.findTasks(parseQuery(ctx));
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("data", page.getItems());
+        body.put("total", page.getTotal());
+        body.put("nextCursor", page.getNextCursor());
+        ctx.header("X-Query-Plan", page.getPlan()).json(body);
+    }
+
+    private static TaskQuery parseQuery(Context ctx) {
+        TaskQuery query = new TaskQuery();
+        query.setStatus(ctx.queryParam("status"));
+        query.setDueFrom(parseDateParam(ctx, "dueFrom"));
+        query.setDueTo(parseDateParam(ctx, "dueTo"));
+        query.setTitlePrefix(ctx.queryParam("titlePrefix"));
+        if (ctx.queryParam("sort") != null) {
+            query.setSortBy(TaskSortKey.fromParam(ctx.queryParam("sort")));
+        }
+        query.setLimit(parseIntParam(ctx, "limit"));
+        Integer offset = parseIntParam(ctx, "offset");
+        query.setOffset(offset == null ? 0 : offset);
+        query.setCursor(ctx.queryParam("cursor"));
+        return query;
+    }
+
+    private static LocalDate parseDateParam(Context ctx, String name) {
+        String value = ctx.queryParam(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (Exception e) {
+            throw new ValidationException("Invalid " + name + " format, expected: YYYY-MM-DD");
+        }
+    }
+
+    private static Integer parseIntParam(Context ctx, String name) {
+        String value = ctx.queryParam(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid " + name + ": " + value);
+        }
     }
 
     public void getTask(Context ctx) {
         String id = ctx.pathParam("id");
         Task task = taskService.findById(id)
             .orElseThrow(() -> new NotFoundException("Task not found: " + id));
-        ctx.json(task);
+        ctx.header("ETag", etag(task)).json(task);
     }
 
     public void createTask(Context ctx) {
         TaskRequest request = ctx.bodyAsClass(TaskRequest.class);
         Task created = taskService.createTask(request);
-        ctx.status(201).json(created);
+        ctx.status(201).header("ETag", etag(created)).json(created);
     }
 
     public void updateTask(Context ctx) {
         String id = ctx.pathParam("id");
         TaskRequest request = ctx.bodyAsClass(TaskRequest.class);
-        Task updated = taskService.updateTask(id, request);
-        ctx.json(updated);
+        Task updated = taskService.updateTask(id, request, ifMatchVersion(ctx));
+        ctx.header("ETag", etag(updated)).json(updated);
     }
 
     public void patchTask(Context ctx) {
@@ -579,44 +2680,58 @@ class TaskController {
             request.setDueDate((String) updates.get("dueDate"));
         }
 
-        Task updated = taskService.updateTask(id, request);
-        ctx.json(updated);
+        Task updated = taskService.updateTask(id, request, ifMatchVersion(ctx));
+        ctx.header("ETag", etag(updated)).json(updated);
     }
 
     public void deleteTask(Context ctx) {
         String id = ctx.pathParam("id");
-        taskService.deleteTask(id);
+        taskService.deleteTask(id, ifMatchVersion(ctx));
         ctx.status(204);
     }
 
     public void calculateOverdueFee(Context ctx) {
         String id = ctx.pathParam("id");
-        Task task = taskService.findById(id)
-            .orElseThrow(() -> new NotFoundException("Task not found: " + id));
-
-        double fee = taskService.calculateOverdueFee(id);
-        String strategyName = taskService.getCalculationStrategyName(id);
-
-        OverdueFeeResponse response = new OverdueFeeResponse(
-            id,
-            task.getTitle(),
-            task.getOverdueDays(),
-            fee,
-            strategyName
-        );
+        ctx.json(taskService.quoteOverdueFee(id));
+    }
 
-        ctx.json(response);
+    public void getOverdueFees(Context ctx) {
+        ctx.json(taskService.calculateAllOverdueFees());
     }
 
     public void completeTask(Context ctx) {
         String id = ctx.pathParam("id");
-        Task completed = taskService.completeTask(id);
-        ctx.json(completed);
+        Task completed = taskService.completeTask(id, ifMatchVersion(ctx));
+        ctx.header("ETag", etag(completed)).json(completed);
     }
 
     public void getStats(Context ctx) {
         ctx.json(taskService.getStats());
     }
+
+    private static String etag(Task task) {
+        return "\"" + task.getVersion() + "\"";
+    }
+
+    /**
+     * 解析 If-Match 头：没有或为 "*" 时不校验版本；接受 "3"、3、W/"3" 三种写法。
+     */
+    private static Long ifMatchVersion(Context ctx) {
+        String header = ctx.header("If-Match");
+        if (header == null || header.isBlank() || "*".equals(header.trim())) {
+            return null;
+        }
+        String value = header.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid If-Match header: " + header);
+        }
+    }
 }
 
 // ===== 异常类 =====
@@ -633,6 +2748,12 @@ class ValidationException extends RuntimeException {
     }
 }
 
+class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
+
 /*
  * CampusFlow Web 化改造总结：
  *
@@ -0,0 +1,624 @@
+/*
+ * 示例：CampusFlow Web 版的服务层测试。
+ * 本例演示：用可控的 Clock 测试与日期相关的业务逻辑（逾期判断、每日翻转）。
+ * 运行方式：与 09_campusflow_api.java 一起放进 Maven 项目的 examples 包，然后执行
+ *          mvn -q test -Dtest=examples._10_campusflow_api_test
+ * 预期输出：所有测试通过
+ *
+ * 注意：本文件直接复用 09_campusflow_api.java 中的 Task、Repository、Service 等类，
+ *       不能单独编译。
+ */
+package examples;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服务层测试：不启动 HTTP 服务，直接调用 Service 和 Repository。
+ *
+ * <p>为什么要注入 Clock：
+ * <ul>
+ *   <li>逾期与否取决于"今天"，直接调用 LocalDate.now() 的代码结果随运行日期变化</li>
+ *   <li>注入 Clock 后，测试可以把时间固定在某一天，再手动"拨快"一天</li>
+ *   <li>调度器的 tick() 可以直接调用，不需要真的等到零点</li>
+ * </ul>
+ */
+class _10_campusflow_api_test {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private MutableClock clock;
+    private InMemoryTaskRepository repository;
+    private TaskService service;
+    private OverdueRolloverScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(TODAY);
+        repository = new InMemoryTaskRepository(clock);
+        service = new TaskService(repository, clock);
+        scheduler = new OverdueRolloverScheduler(repository, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    @DisplayName("截止日期早于今天的任务创建后立即计入逾期")
+    void pastDueTaskIsOverdueImmediately() {
+        Task task = service.createTask(new TaskRequest("过期任务", "", TODAY.minusDays(2).toString()));
+        service.createTask(new TaskRequest("未来任务", "", TODAY.plusDays(2).toString()));
+
+        assertEquals(List.of(task.getId()), ids(service.findOverdue()));
+        assertEquals(1L, service.getStats().get("overdue"));
+    }
+
+    @Test
+    @DisplayName("日期变化后，调度器把刚到期的任务移入逾期集合")
+    void rolloverMovesNewlyOverdueTasks() {
+        Task dueToday = service.createTask(new TaskRequest("今天到期", "", TODAY.toString()));
+        service.createTask(new TaskRequest("明天到期", "", TODAY.plusDays(1).toString()));
+        assertTrue(service.findOverdue().isEmpty());
+
+        clock.advanceDays(1);
+        scheduler.tick();
+
+        assertEquals(List.of(dueToday.getId()), ids(service.findOverdue()));
+        assertEquals(1L, service.getStats().get("overdue"));
+
+        clock.advanceDays(1);
+        scheduler.tick();
+
+        assertEquals(2L, service.getStats().get("overdue"));
+    }
+
+    @Test
+    @DisplayName("调度器没来得及运行时，读取也会顺带完成翻转")
+    void readTriggersRolloverWhenSchedulerIsLate() {
+        service.createTask(new TaskRequest("今天到期", "", TODAY.toString()));
+
+        clock.advanceDays(3);
+
+        assertEquals(1, repository.countOverdue());
+    }
+
+    @Test
+    @DisplayName("完成、改期、删除都会把任务移出逾期集合")
+    void completeRescheduleAndDeleteLeaveOverdueSet() {
+        Task a = service.createTask(new TaskRequest("A", "", TODAY.minusDays(1).toString()));
+        Task b = service.createTask(new TaskRequest("B", "", TODAY.minusDays(1).toString()));
+        Task c = service.createTask(new TaskRequest("C", "", TODAY.minusDays(1).toString()));
+        assertEquals(3, repository.countOverdue());
+
+        service.completeTask(a.getId());
+        service.updateTask(b.getId(), new TaskRequest(null, null, TODAY.plusDays(5).toString()));
+        service.deleteTask(c.getId());
+
+        assertEquals(0, repository.countOverdue());
+        Map<String, Object> stats = service.getStats();
+        assertEquals(2L, stats.get("total"));
+        assertEquals(1L, stats.get("completed"));
+        assertEquals(1L, stats.get("pending"));
+    }
+
+    @Test
+    @DisplayName("逾期费用按注入的 Clock 计算天数")
+    void overdueFeeUsesInjectedClock() {
+        Task task = service.createTask(new TaskRequest("逾期 2 天", "", TODAY.minusDays(2).toString()));
+        assertEquals(20.0, service.calculateOverdueFee(task.getId()));
+
+        clock.advanceDays(3);
+        assertEquals(70.0, service.calculateOverdueFee(task.getId()));
+    }
+
+    @Test
+    @DisplayName("批量逾期费用：逐任务明细与合计一致，并行路径结果与顺序路径相同")
+    void bulkOverdueFeesMatchSingleQuotes() {
+        int count = TaskService.PARALLEL_FEE_THRESHOLD + 1;
+        double expectedTotal = 0;
+        for (int i = 0; i < count; i++) {
+            int days = i % 10;  // 0 天表示今天到期，不计费
+            service.createTask(new TaskRequest("T" + i, "", TODAY.minusDays(days).toString()));
+            expectedTotal += days == 0 ? 0 : service.quoteOverdueFee(String.valueOf(i + 1)).getFee();
+        }
+
+        OverdueFeeReport report = service.calculateAllOverdueFees();
+
+        assertEquals(TODAY, report.getAsOf());
+        assertEquals(count - (count + 9) / 10, report.getCount());
+        assertEquals(expectedTotal, report.getTotalFee(), 0.001);
+        for (OverdueFeeResponse item : report.getItems()) {
+            assertEquals(service.quoteOverdueFee(item.getTaskId()).getFee(), item.getFee());
+        }
+    }
+
+    @Test
+    @DisplayName("费用查找表在 horizon 内外都与策略公式一致")
+    void feeTableMatchesStrategiesInsideAndBeyondHorizon() {
+        FeeTable table = new FeeTable(5);
+        for (long day = 1; day <= 30; day++) {
+            FeeCalculationStrategy strategy = FeeStrategies.forOverdueDays(day);
+            assertSame(strategy, table.strategyFor(day));
+            assertEquals(strategy.calculate(day), table.fee(day));
+        }
+        assertEquals(0.0, table.fee(0));
+    }
+
+    @Test
+    @DisplayName("过期的 If-Match 版本返回冲突，已发布的旧版本对象不被修改")
+    void staleVersionIsRejected() {
+        Task v1 = service.createTask(new TaskRequest("原标题", "", TODAY.plusDays(1).toString()));
+        Task v2 = service.updateTask(v1.getId(), new TaskRequest("新标题", null, null), 1L);
+
+        assertEquals(2, v2.getVersion());
+        assertEquals("原标题", v1.getTitle());
+        assertThrows(ConflictException.class,
+            () -> service.updateTask(v1.getId(), new TaskRequest("冲突", null, null), 1L));
+        assertThrows(ConflictException.class, () -> service.completeTask(v1.getId(), 1L));
+        assertThrows(ConflictException.class, () -> service.deleteTask(v1.getId(), 1L));
+        assertEquals("新标题", service.findById(v1.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    @DisplayName("并发更新与完成不会丢失写入，统计只计一次状态变化")
+    void concurrentWritesAreNotLost() throws Exception {
+        Task task = service.createTask(new TaskRequest("热点任务", "", TODAY.minusDays(1).toString()));
+        int threads = 8;
+        int updatesPerThread = 500;
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < updatesPerThread; i++) {
+                    if (worker == 0 && i == updatesPerThread / 2) {
+                        service.completeTask(task.getId());
+                    } else {
+                        service.updateTask(task.getId(), new TaskRequest("t" + worker + "-" + i, null, null));
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        Task result = service.findById(task.getId()).orElseThrow();
+        assertEquals(1 + threads * updatesPerThread, result.getVersion());
+        assertEquals("completed", result.getStatus());
+        Map<String, Object> stats = service.getStats();
+        assertEquals(1L, stats.get("completed"));
+        assertEquals(0L, stats.get("pending"));
+        assertEquals(0L, stats.get("overdue"));
+    }
+
+    @Test
+    @DisplayName("快照模式：无写入时复用同一快照，写入后下一次读能看到新数据")
+    void snapshotModePublishesAfterWrites() {
+        InMemoryTaskRepository snapshots = new InMemoryTaskRepository(clock, true);
+        TaskService snapshotService = new TaskService(snapshots, clock);
+        Task task = snapshotService.createTask(new TaskRequest("A", "", TODAY.toString()));
+
+        List<Task> first = snapshotService.findAll();
+        assertSame(first, snapshotService.findAll());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(task));
+
+        snapshotService.createTask(new TaskRequest("B", "", TODAY.toString()));
+        snapshotService.completeTask(task.getId());
+        List<Task> second = snapshotService.findAll();
+
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+        assertTrue(second.stream().anyMatch(t -> t.getId().equals(task.getId()) && t.getVersion() == 2));
+    }
+
+    @Test
+    @DisplayName("查询：状态、截止日期范围、标题前缀组合过滤，并按指定键排序")
+    void queryFiltersAndSorts() {
+        Task a = service.createTask(new TaskRequest("Report draft", "", TODAY.plusDays(3).toString()));
+        Task b = service.createTask(new TaskRequest("report review", "", TODAY.plusDays(1).toString()));
+        Task c = service.createTask(new TaskRequest("Reading", "", TODAY.plusDays(2).toString()));
+        service.createTask(new TaskRequest("Report final", "", TODAY.plusDays(10).toString()));
+        service.completeTask(c.getId());
+
+        TaskQuery query = new TaskQuery();
+        query.setStatus("pending");
+        query.setDueFrom(TODAY);
+        query.setDueTo(TODAY.plusDays(5));
+        query.setTitlePrefix("REPORT");
+        query.setSortBy(TaskSortKey.DUE_DATE);
+        TaskPage page = service.findTasks(query);
+
+        assertEquals(List.of(b.getId(), a.getId()), page.getItems().stream().map(Task::getId).toList());
+        assertEquals(2L, page.getTotal());
+        assertNull(page.getNextCursor());
+
+        query.setSortBy(TaskSortKey.TITLE);
+        assertEquals(List.of(a.getId(), b.getId()),
+            service.findTasks(query).getItems().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("查询：游标分页不重不漏，分页期间的写入不会让已翻过的任务重复出现")
+    void cursorPagingVisitsEveryTaskOnce() {
+        for (int i = 0; i < 25; i++) {
+            service.createTask(new TaskRequest("T" + i, "", TODAY.plusDays(i % 4).toString()));
+        }
+
+        TaskQuery query = new TaskQuery();
+        query.setSortBy(TaskSortKey.DUE_DATE);
+        query.setLimit(10);
+        List<String> seen = new java.util.ArrayList<>();
+        TaskPage page = service.findTasks(query);
+        seen.addAll(page.getItems().stream().map(Task::getId).toList());
+        // 翻页途中新增一个排在最前面的任务：keyset 游标不受影响
+        service.createTask(new TaskRequest("插队", "", TODAY.minusDays(1).toString()));
+        while (page.getNextCursor() != null) {
+            query.setCursor(page.getNextCursor());
+            page = service.findTasks(query);
+            seen.addAll(page.getItems().stream().map(Task::getId).toList());
+        }
+
+        assertEquals(25, seen.size());
+        assertEquals(25, new java.util.HashSet<>(seen).size());
+        List<Long> dueDays = seen.stream()
+            .map(id -> service.findById(id).orElseThrow().getDueDate().toEpochDay())
+            .toList();
+        assertEquals(dueDays.stream().sorted().toList(), dueDays);
+    }
+
+    @Test
+    @DisplayName("查询：按标题排序时，页尾任务的标题含换行也能正确翻页")
+    void cursorPagingHandlesMultiLineTitles() {
+        List<String> titles = List.of("a 第一行\nb 第二行", "a 第一行\nc 第二行", "a 第一行", "b", "c\n\nd");
+        for (String title : titles) {
+            service.createTask(new TaskRequest(title, "", TODAY.toString()));
+        }
+
+        TaskQuery query = new TaskQuery();
+        query.setSortBy(TaskSortKey.TITLE);
+        query.setLimit(1);
+        List<String> seen = new java.util.ArrayList<>();
+        TaskPage page = service.findTasks(query);
+        seen.addAll(page.getItems().stream().map(Task::getTitle).toList());
+        // 游标解析错误时可能反复停在同一页，翻页次数设上限避免死循环
+        while (page.getNextCursor() != null && seen.size() <= titles.size()) {
+            query.setCursor(page.getNextCursor());
+            page = service.findTasks(query);
+            seen.addAll(page.getItems().stream().map(Task::getTitle).toList());
+        }
+
+        assertEquals(List.of("a 第一行", "a 第一行\nb 第二行", "a 第一行\nc 第二行", "b", "c\n\nd"), seen);
+    }
+
+    @Test
+    @DisplayName("查询规划器选择命中最少的索引，改期后旧索引条目不会被查到")
+    void plannerPicksMostSelectiveIndex() {
+        for (int i = 0; i < 200; i++) {
+            service.createTask(new TaskRequest("bulk " + i, "", TODAY.plusDays(30).toString()));
+        }
+        Task rare = service.createTask(new TaskRequest("rare", "", TODAY.plusDays(1).toString()));
+
+        TaskQuery byDue = new TaskQuery();
+        byDue.setStatus("pending");
+        byDue.setDueTo(TODAY.plusDays(7));
+        byDue.setSortBy(TaskSortKey.DUE_DATE);
+        TaskPage page = service.findTasks(byDue);
+        assertEquals("due_date-ordered", page.getPlan());
+        assertEquals(List.of(rare.getId()), page.getItems().stream().map(Task::getId).toList());
+
+        service.completeTask(rare.getId());
+        TaskQuery byStatus = new TaskQuery();
+        byStatus.setStatus("completed");
+        byStatus.setTitlePrefix("r");
+        page = service.findTasks(byStatus);
+        assertEquals("status-then-sort", page.getPlan());
+        assertEquals(1L, page.getTotal());
+
+        service.updateTask(rare.getId(), new TaskRequest("moved", null, TODAY.plusDays(60).toString()));
+        assertTrue(service.findTasks(byDue).getItems().isEmpty());
+    }
+
+    @Test
+    @DisplayName("查询：非法的分页参数和不匹配的游标返回校验错误")
+    void invalidQueryIsRejected() {
+        service.createTask(new TaskRequest("A", "", TODAY.toString()));
+        service.createTask(new TaskRequest("B", "", TODAY.toString()));
+
+        TaskQuery negative = new TaskQuery();
+        negative.setLimit(-1);
+        assertThrows(ValidationException.class, () -> service.findTasks(negative));
+
+        TaskQuery byTitle = new TaskQuery();
+        byTitle.setSortBy(TaskSortKey.TITLE);
+        byTitle.setLimit(1);
+        String cursor = service.findTasks(byTitle).getNextCursor();
+        assertNotNull(cursor);
+
+        TaskQuery byCreated = new TaskQuery();
+        byCreated.setCursor(cursor);
+        assertThrows(ValidationException.class, () -> service.findTasks(byCreated));
+        byCreated.setCursor("not-a-cursor!");
+        assertThrows(ValidationException.class, () -> service.findTasks(byCreated));
+    }
+
+    @Test
+    @DisplayName("持久化：重启后从日志恢复全部写入，新 id 不与已删除的任务重复")
+    void journalRestoresStateAfterRestart(@TempDir Path dir) throws IOException {
+        Task kept;
+        Task deleted;
+        try (JournaledTaskRepository journaled = openJournal(dir)) {
+            TaskService writer = new TaskService(journaled, clock);
+            kept = writer.createTask(new TaskRequest("保留", "多行\n描述", TODAY.minusDays(1).toString()));
+            writer.createTask(new TaskRequest("完成", null, TODAY.plusDays(1).toString()));
+            deleted = writer.createTask(new TaskRequest("删除", "", TODAY.toString()));
+            writer.updateTask(kept.getId(), new TaskRequest("保留（改）", null, null));
+            writer.completeTask("2");
+            writer.deleteTask(deleted.getId());
+        }
+
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            TaskService reader = new TaskService(reopened, clock);
+            Task restored = reader.findById(kept.getId()).orElseThrow();
+            assertEquals("保留（改）", restored.getTitle());
+            assertEquals("多行\n描述", restored.getDescription());
+            assertEquals(2, restored.getVersion());
+            assertEquals("completed", reader.findById("2").orElseThrow().getStatus());
+            assertTrue(reader.findById(deleted.getId()).isEmpty());
+
+            Map<String, Object> stats = reader.getStats();
+            assertEquals(2L, stats.get("total"));
+            assertEquals(1L, stats.get("completed"));
+            assertEquals(1L, stats.get("overdue"));
+
+            assertEquals("4", reader.createTask(new TaskRequest("新任务", "", TODAY.toString())).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("持久化：BATCHED 后台 fsync / 快照运行时关闭，最后一批写入也已落盘")
+    void closeWhileBatchedSyncIsRunning(@TempDir Path dir) throws IOException {
+        int written = 0;
+        for (int round = 0; round < 30; round++) {
+            JournaledTaskRepository journaled = new JournaledTaskRepository(dir, new InMemoryTaskRepository(clock),
+                FsyncPolicy.BATCHED, Duration.ofMillis(1), Duration.ofMillis(1));
+            TaskService writer = new TaskService(journaled, clock);
+            // 持续写入，让后台线程在 close 时大概率正处于 force 中
+            long until = System.nanoTime() + 5_000_000;
+            while (System.nanoTime() < until) {
+                writer.createTask(new TaskRequest("t" + written++, "", TODAY.toString()));
+            }
+            assertDoesNotThrow(journaled::close, "第 " + round + " 轮关闭失败");
+            assertFalse(Thread.currentThread().isInterrupted());
+        }
+
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(written, reopened.findAll().size());
+        }
+    }
+
+    @Test
+    @DisplayName("持久化：关闭前调用线程已被中断，仍然完成最后的 fsync 并保留中断标记")
+    void closeKeepsInterruptFlag(@TempDir Path dir) throws IOException {
+        JournaledTaskRepository journaled = new JournaledTaskRepository(dir, new InMemoryTaskRepository(clock),
+            FsyncPolicy.BATCHED, Duration.ofMillis(1), Duration.ZERO);
+        new TaskService(journaled, clock).createTask(new TaskRequest("中断", "", TODAY.toString()));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertDoesNotThrow(journaled::close);
+            assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(1, reopened.findAll().size());
+        }
+    }
+
+    @Test
+    @DisplayName("持久化：末尾写了一半的记录在恢复时被截掉，之后的写入正常续写")
+    void tornTailRecordIsTruncated(@TempDir Path dir) throws IOException {
+        try (JournaledTaskRepository journaled = openJournal(dir)) {
+            TaskService writer = new TaskService(journaled, clock);
+            for (int i = 0; i < 3; i++) {
+                writer.createTask(new TaskRequest("T" + i, "", TODAY.toString()));
+            }
+        }
+        Path segment = onlyFile(dir, "journal-");
+        long intactSize = Files.size(segment);
+        // 模拟崩溃：记录头声明 100 字节，实际只写了 5 字节
+        Files.write(segment, ByteBuffer.allocate(13).putInt(100).putInt(0).put(new byte[5]).array(),
+            StandardOpenOption.APPEND);
+
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(3, reopened.count());
+            assertEquals(intactSize, Files.size(segment));
+            new TaskService(reopened, clock).createTask(new TaskRequest("T3", "", TODAY.toString()));
+        }
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(4, reopened.count());
+        }
+    }
+
+    @Test
+    @DisplayName("持久化：最后一条记录校验和不对时丢弃它，之前的记录保留")
+    void checksumMismatchDropsLastRecord(@TempDir Path dir) throws IOException {
+        try (JournaledTaskRepository journaled = openJournal(dir)) {
+            TaskService writer = new TaskService(journaled, clock);
+            writer.createTask(new TaskRequest("A", "", TODAY.toString()));
+            writer.createTask(new TaskRequest("B", "", TODAY.toString()));
+        }
+        Path segment = onlyFile(dir, "journal-");
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x7f;  // 最后一条记录的 payload 被写坏
+        Files.write(segment, bytes);
+
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(List.of("1"), ids(reopened.findAll()));
+        }
+    }
+
+    @Test
+    @DisplayName("持久化：快照后删除旧日志段，恢复 = 快照 + 之后的日志")
+    void snapshotPlusJournalTailRestoresState(@TempDir Path dir) throws IOException {
+        try (JournaledTaskRepository journaled = openJournal(dir)) {
+            TaskService writer = new TaskService(journaled, clock);
+            for (int i = 0; i < 10; i++) {
+                writer.createTask(new TaskRequest("T" + i, "", TODAY.plusDays(i).toString()));
+            }
+            journaled.compact();
+            writer.updateTask("1", new TaskRequest("快照之后改的", null, null));
+            writer.deleteTask("10");
+            journaled.compact();
+            writer.completeTask("2");
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of("journal-00000002.log", "snapshot-00000002.bin"),
+                files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+
+        try (JournaledTaskRepository reopened = openJournal(dir)) {
+            assertEquals(9, reopened.count());
+            assertEquals("快照之后改的", reopened.findById("1").orElseThrow().getTitle());
+            assertEquals("completed", reopened.findById("2").orElseThrow().getStatus());
+            assertTrue(reopened.findById("10").isEmpty());
+            assertEquals("11", new TaskService(reopened, clock)
+                .createTask(new TaskRequest("新任务", "", TODAY.toString())).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("列式仓库：同样的操作序列与内存仓库结果一致")
+    void columnarRepositoryMatchesMapRepository() {
+        ColumnarTaskRepository columnar = new ColumnarTaskRepository(clock);
+        TaskService columnarService = new TaskService(columnar, clock);
+        for (TaskService target : List.of(service, columnarService)) {
+            for (int i = 0; i < 30; i++) {
+                target.createTask(new TaskRequest("Task " + (i % 7), i % 3 == 0 ? null : "描述 " + (i % 2),
+                    TODAY.plusDays(i % 5 - 2).toString()));
+            }
+            target.completeTask("3");
+            target.updateTask("4", new TaskRequest("改过的标题", null, TODAY.plusDays(9).toString()));
+            target.deleteTask("5");
+        }
+
+        assertEquals(repository.count(), columnar.count());
+        assertEquals(repository.countOverdue(), columnar.countOverdue());
+        assertEquals(describe(repository.findOverdue()), describe(columnar.findOverdue()));
+        assertEquals(describe(repository.findByStatus("completed")), describe(columnar.findByStatus("completed")));
+        assertEquals(describe(repository.findAll()), describe(columnar.findAll()));
+        assertEquals(service.getStats(), columnarService.getStats());
+
+        TaskQuery query = new TaskQuery();
+        query.setStatus("pending");
+        query.setDueFrom(TODAY.minusDays(1));
+        query.setTitlePrefix("task");
+        query.setSortBy(TaskSortKey.DUE_DATE);
+        query.setLimit(4);
+        TaskPage expected = service.findTasks(query);
+        TaskPage actual = columnarService.findTasks(query);
+        assertEquals(describe(expected.getItems()), describe(actual.getItems()));
+        assertEquals(expected.getNextCursor(), actual.getNextCursor());
+        // 内存仓库按索引顺序扫描、凑够一页就停，不知道总数；列式仓库全表扫描，总数是精确的
+        assertEquals(repository.findByStatus("pending").stream()
+            .filter(t -> !t.getDueDate().isBefore(TODAY.minusDays(1)) && t.getTitle().startsWith("Task"))
+            .count(), actual.getTotal());
+        assertEquals("columnar-scan", actual.getPlan());
+
+        // 7 种标题 + 1 个改过的标题 + 2 种描述
+        assertEquals(10, columnar.pooledStrings());
+    }
+
+    @Test
+    @DisplayName("列式仓库：返回的是组装出的副本，并发修改按版本号检测冲突")
+    void columnarRepositoryMaterializesCopies() {
+        ColumnarTaskRepository columnar = new ColumnarTaskRepository(clock);
+        TaskService columnarService = new TaskService(columnar, clock);
+        Task created = columnarService.createTask(new TaskRequest("A", "", TODAY.toString()));
+
+        Task copy = columnar.findById(created.getId()).orElseThrow();
+        copy.setTitle("只改了副本");
+        assertEquals("A", columnar.findById(created.getId()).orElseThrow().getTitle());
+
+        columnarService.updateTask(created.getId(), new TaskRequest("B", null, null), 1L);
+        assertFalse(columnar.compareAndSet(copy, copy));
+        assertThrows(ConflictException.class, () -> columnarService.deleteTask(created.getId(), 1L));
+        assertTrue(columnar.findById("not-a-number").isEmpty());
+        assertTrue(columnar.findByStatus("archived").isEmpty());
+    }
+
+    private JournaledTaskRepository openJournal(Path dir) throws IOException {
+        return new JournaledTaskRepository(dir, new InMemoryTaskRepository(clock), FsyncPolicy.ALWAYS,
+            JournaledTaskRepository.DEFAULT_FSYNC_INTERVAL, Duration.ZERO);
+    }
+
+    private static Path onlyFile(Path dir, String prefix) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(prefix)).findFirst().orElseThrow();
+        }
+    }
+
+    // createdAt / completedAt 取的是系统时间，两个仓库里的值不同，只比较是否为空
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream()
+            .map(t -> String.join("|", t.getId(), t.getTitle(), String.valueOf(t.getDescription()),
+                String.valueOf(t.getDueDate()), t.getStatus(), String.valueOf(t.getCreatedAt() != null),
+                String.valueOf(t.getCompletedAt() != null), String.valueOf(t.getVersion())))
+            .sorted()
+            .toList();
+    }
+
+    private static List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).sorted().toList();
+    }
+
+    /**
+     * 测试用时钟：固定在某一时刻，可以手动向前拨。
+     */
+    static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(LocalDate date) {
+            this.instant = date.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        void advanceDays(long days) {
+            instant = instant.plusSeconds(days * 86_400);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException("测试时钟固定使用 UTC");
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
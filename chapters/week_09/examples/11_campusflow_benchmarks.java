@@ -0,0 +1,412 @@
+/*
+ * 示例：CampusFlow Web 版的性能基准。
+ * 本例演示：用 System.nanoTime 测吞吐、用 ThreadMXBean 测分配量，对比优化前后的实现。
+ * 运行方式：与 09_campusflow_api.java 一起放进 Maven 项目的 examples 包，然后执行
+ *          mvn -q compile exec:java -Dexec.mainClass="examples._11_campusflow_benchmarks" \
+ *            -Dexec.args="fee contention snapshot journal columnar"
+ *          不带参数时运行全部基准。
+ * 预期输出：每个基准打印一张小表，包含每次操作耗时、吞吐和分配字节数
+ *
+ * 注意：这是教学用的简易基准（有预热，但没有 JMH 的多次 fork 和统计检验），
+ *       只适合看数量级差异；要写进报告的数据请用 JMH 复测。
+ */
+package examples;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准入口：按名字选择要跑的基准。
+ */
+class _11_campusflow_benchmarks {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Set<String> selected = args.length == 0 ? Set.of("all") : Set.of(args);
+
+        if (selected.contains("all") || selected.contains("fee")) {
+            feeBenchmark();
+        }
+        if (selected.contains("all") || selected.contains("contention")) {
+            contentionBenchmark();
+        }
+        if (selected.contains("all") || selected.contains("snapshot")) {
+            snapshotBenchmark();
+        }
+        if (selected.contains("all") || selected.contains("journal")) {
+            journalBenchmark();
+        }
+        if (selected.contains("all") || selected.contains("columnar")) {
+            columnarBenchmark();
+        }
+    }
+
+    // ===== 逾期费用：每次 new 策略 vs 共享策略 + 查表 =====
+
+    private static final int FEE_EVALUATIONS = 10_000_000;
+    // 覆盖 0..399 天，其中 366..399 天超出默认 horizon，会走闭式公式回退
+    private static final int FEE_DAY_RANGE = 400;
+
+    static void feeBenchmark() {
+        System.out.println("=== 逾期费用计算（" + FEE_EVALUATIONS + " 次）===");
+        FeeTable table = new FeeTable(FeeTable.DEFAULT_HORIZON_DAYS);
+
+        // 两种实现结果必须一致，否则比较速度没有意义
+        for (int day = 0; day < FEE_DAY_RANGE; day++) {
+            if (legacyFee(day) != table.fee(day)) {
+                throw new IllegalStateException("查表结果与原实现不一致，day=" + day);
+            }
+        }
+
+        for (int round = 0; round < 3; round++) {
+            runLegacyFees();
+            runTableFees(table);
+        }
+
+        printHeader();
+        measure("每次 new 策略", FEE_EVALUATIONS, () -> runLegacyFees());
+        measure("共享策略 + 查表", FEE_EVALUATIONS, () -> runTableFees(table));
+        System.out.println();
+    }
+
+    private static double runLegacyFees() {
+        double sum = 0;
+        for (int i = 0; i < FEE_EVALUATIONS; i++) {
+            sum += legacyFee(i % FEE_DAY_RANGE);
+        }
+        return sum;
+    }
+
+    private static double runTableFees(FeeTable table) {
+        double sum = 0;
+        for (int i = 0; i < FEE_EVALUATIONS; i++) {
+            sum += table.fee(i % FEE_DAY_RANGE);
+        }
+        return sum;
+    }
+
+    /**
+     * 优化前 TaskService.selectStrategy 的写法：每次计费都创建一个新的策略对象。
+     */
+    private static double legacyFee(long overdueDays) {
+        if (overdueDays <= 0) {
+            return 0.0;
+        }
+        FeeCalculationStrategy strategy;
+        if (overdueDays <= 3) {
+            strategy = new StandardFeeStrategy();
+        } else if (overdueDays <= 7) {
+            strategy = new EscalatingFeeStrategy();
+        } else {
+            strategy = new SevereFeeStrategy();
+        }
+        return strategy.calculate(overdueDays);
+    }
+
+    // ===== 并发更新：乐观并发（复制 + CAS 重试）vs 锁住共享 Task 原地修改 =====
+
+    private static final int[] CONTENTION_THREADS = {1, 2, 4, 8, 16};
+    private static final int[] CONTENTION_HOT_TASKS = {1, 64};
+    private static final long CONTENTION_MILLIS = 1_000;
+
+    interface TaskUpdater {
+        void update(String id, String title);
+    }
+
+    static void contentionBenchmark() {
+        System.out.println("=== 并发更新吞吐（每组 " + CONTENTION_MILLIS + " ms）===");
+        System.out.printf("%8s %8s %16s %16s %8s%n", "线程", "热点任务", "锁 ops/s", "CAS ops/s", "CAS/锁");
+
+        for (int hotTasks : CONTENTION_HOT_TASKS) {
+            for (int threads : CONTENTION_THREADS) {
+                double locked = runContention(threads, hotTasks, false);
+                double optimistic = runContention(threads, hotTasks, true);
+                System.out.printf("%8d %8d %16.0f %16.0f %8.2f%n",
+                    threads, hotTasks, locked, optimistic, optimistic / locked);
+            }
+        }
+        System.out.println();
+    }
+
+    private static double runContention(int threads, int hotTasks, boolean optimistic) {
+        InMemoryTaskRepository repository = new InMemoryTaskRepository();
+        TaskService service = new TaskService(repository);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < hotTasks; i++) {
+            ids.add(service.createTask(new TaskRequest("task-" + i, "", LocalDate.now().plusDays(7).toString())).getId());
+        }
+
+        TaskUpdater updater = optimistic
+            ? (id, title) -> service.updateTask(id, titleOnly(title))
+            : (id, title) -> lockedUpdate(repository, id, title);
+
+        // 预热
+        runFor(threads, ids, updater, CONTENTION_MILLIS / 4);
+        return runFor(threads, ids, updater, CONTENTION_MILLIS) * 1000.0 / CONTENTION_MILLIS;
+    }
+
+    private static long runFor(int threads, List<String> ids, TaskUpdater updater, long millis) {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    updater.update(ids.get(random.nextInt(ids.size())), "title-" + (done & 7));
+                    done++;
+                }
+                operations.add(done);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return operations.sum();
+    }
+
+    private static TaskRequest titleOnly(String title) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        return request;
+    }
+
+    /**
+     * 对照组：优化前 TaskService 的写法，锁住共享 Task 后原地修改再保存。
+     */
+    private static void lockedUpdate(InMemoryTaskRepository repository, String id, String title) {
+        Task task = repository.findById(id).orElseThrow();
+        synchronized (task) {
+            task.setTitle(title);
+            task.setVersion(task.getVersion() + 1);
+            repository.save(task);
+        }
+    }
+
+    // ===== 读多写少（99% findAll）：每次复制 vs 发布不可变快照 =====
+
+    private static final int[] SNAPSHOT_TASK_COUNTS = {1_000, 10_000, 100_000};
+    // 复制模式每次读都要拷贝全部任务，总拷贝量按任务数缩放操作次数，避免大数据量时跑太久
+    private static final long SNAPSHOT_COPY_BUDGET = 50_000_000;
+    private static final int SNAPSHOT_WRITE_EVERY = 100;  // 每 100 次操作 1 次写入
+
+    static void snapshotBenchmark() {
+        System.out.println("=== 读多写少：99% findAll + 1% updateTask ===");
+        for (int taskCount : SNAPSHOT_TASK_COUNTS) {
+            int operations = (int) (SNAPSHOT_COPY_BUDGET / taskCount);
+            TaskService copying = seededService(new InMemoryTaskRepository(java.time.Clock.systemDefaultZone(), false), taskCount);
+            TaskService snapshotting = seededService(new InMemoryTaskRepository(java.time.Clock.systemDefaultZone(), true), taskCount);
+
+            for (int round = 0; round < 3; round++) {
+                runReadHeavy(copying, taskCount, operations);
+                runReadHeavy(snapshotting, taskCount, operations);
+            }
+
+            System.out.println("任务数 " + taskCount + "，操作 " + operations + " 次：");
+            printHeader();
+            measure("每次复制", operations, () -> runReadHeavy(copying, taskCount, operations));
+            measure("不可变快照", operations, () -> runReadHeavy(snapshotting, taskCount, operations));
+        }
+        System.out.println();
+    }
+
+    private static TaskService seededService(InMemoryTaskRepository repository, int taskCount) {
+        TaskService service = new TaskService(repository);
+        String dueDate = LocalDate.now().plusDays(7).toString();
+        for (int i = 0; i < taskCount; i++) {
+            service.createTask(new TaskRequest("task-" + i, "", dueDate));
+        }
+        return service;
+    }
+
+    private static double runReadHeavy(TaskService service, int taskCount, int operations) {
+        long checksum = 0;
+        for (int i = 0; i < operations; i++) {
+            if (i % SNAPSHOT_WRITE_EVERY == 0) {
+                String id = String.valueOf(1 + (i / SNAPSHOT_WRITE_EVERY) % taskCount);
+                service.updateTask(id, titleOnly("t" + (i & 7)));
+            } else {
+                List<Task> tasks = service.findAll();
+                checksum += tasks.size() + tasks.get(i % tasks.size()).getVersion();
+            }
+        }
+        return checksum;
+    }
+
+    // ===== 持久化：不同刷盘策略下的写入吞吐 =====
+
+    private static final int[] JOURNAL_THREADS = {1, 4, 16};
+    private static final int JOURNAL_TASKS = 1_000;
+    private static final long JOURNAL_MILLIS = 1_000;
+
+    static void journalBenchmark() {
+        System.out.println("=== 日志持久化写入吞吐（updateTask，每组 " + JOURNAL_MILLIS + " ms）===");
+        System.out.printf("%-10s %8s %16s%n", "策略", "线程", "ops/s");
+        runJournal(null, 1);  // 先让 JIT 编译好写路径，避免第一组数据偏低
+
+        for (int threads : JOURNAL_THREADS) {
+            double baseline = runJournal(null, threads);
+            System.out.printf("%-10s %8d %16.0f%n", "纯内存", threads, baseline);
+            for (FsyncPolicy policy : FsyncPolicy.values()) {
+                System.out.printf("%-10s %8d %16.0f%n", policy, threads, runJournal(policy, threads));
+            }
+        }
+        System.out.println("（ALWAYS 的吞吐取决于磁盘 fsync 延迟；线程越多，组提交合并的写入越多）");
+        System.out.println();
+    }
+
+    private static double runJournal(FsyncPolicy policy, int threads) {
+        Path dir = null;
+        JournaledTaskRepository journaled = null;
+        try {
+            InMemoryTaskRepository memory = new InMemoryTaskRepository();
+            TaskRepository repository = memory;
+            if (policy != null) {
+                dir = Files.createTempDirectory("campusflow-journal");
+                journaled = new JournaledTaskRepository(dir, memory, policy,
+                    JournaledTaskRepository.DEFAULT_FSYNC_INTERVAL, Duration.ZERO);
+                repository = journaled;
+            }
+            TaskService service = new TaskService(repository);
+            List<String> ids = new ArrayList<>();
+            String dueDate = LocalDate.now().plusDays(7).toString();
+            for (int i = 0; i < JOURNAL_TASKS; i++) {
+                ids.add(service.createTask(new TaskRequest("task-" + i, "", dueDate)).getId());
+            }
+
+            TaskUpdater updater = (id, title) -> service.updateTask(id, titleOnly(title));
+            runFor(threads, ids, updater, JOURNAL_MILLIS / 4);
+            return runFor(threads, ids, updater, JOURNAL_MILLIS) * 1000.0 / JOURNAL_MILLIS;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteQuietly(journaled, dir);
+        }
+    }
+
+    private static void deleteQuietly(JournaledTaskRepository journaled, Path dir) {
+        try {
+            if (journaled != null) {
+                journaled.close();
+            }
+            if (dir != null) {
+                try (var files = Files.list(dir)) {
+                    for (Path file : files.toList()) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(dir);
+            }
+        } catch (IOException e) {
+            System.err.println("清理临时目录失败: " + e.getMessage());
+        }
+    }
+
+    // ===== 列式存储：每任务内存占用与扫描吞吐 =====
+
+    private static final int COLUMNAR_TASKS = 500_000;
+    private static final int COLUMNAR_DISTINCT_TITLES = 1_000;
+    private static final int COLUMNAR_SCANS = 20;
+
+    static void columnarBenchmark() {
+        System.out.println("=== 列式存储 vs Map 存储（" + COLUMNAR_TASKS + " 个任务）===");
+        System.out.printf("%-20s %12s %16s %12s%n", "实现", "B/task", "扫描 tasks/s", "命中");
+
+        // 分开构建、分开测量，避免两份数据同时在堆上互相干扰
+        reportFootprint("Map（含全部索引）", () -> new InMemoryTaskRepository());
+        reportFootprint("列式 + 字符串池", () -> new ColumnarTaskRepository());
+        System.out.println("（扫描 = findByStatus(\"completed\")，约 1% 命中，测的是遍历全部任务的速度）");
+        System.out.println();
+    }
+
+    private static void reportFootprint(String label, java.util.function.Supplier<TaskRepository> factory) {
+        long before = usedHeapAfterGc();
+        TaskRepository repository = factory.get();
+        TaskService service = new TaskService(repository);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < COLUMNAR_TASKS; i++) {
+            // new String：模拟每个请求从 JSON 解析出独立的字符串对象，而不是共享同一个常量
+            Task task = service.createTask(new TaskRequest(
+                new String("作业 " + (i % COLUMNAR_DISTINCT_TITLES)),
+                new String("第 " + (i % 10) + " 周课程任务"),
+                today.plusDays(i % 60 - 30).toString()));
+            if (i % 100 == 0) {
+                service.completeTask(task.getId());
+            }
+        }
+        long bytesPerTask = (usedHeapAfterGc() - before) / COLUMNAR_TASKS;
+
+        for (int round = 0; round < 3; round++) {
+            repository.findByStatus("completed");
+        }
+        long start = System.nanoTime();
+        long hits = 0;
+        for (int round = 0; round < COLUMNAR_SCANS; round++) {
+            hits += repository.findByStatus("completed").size();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-20s %12d %16.0f %12d%n",
+            label, bytesPerTask, (double) COLUMNAR_TASKS * COLUMNAR_SCANS / seconds, hits / COLUMNAR_SCANS);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // ===== 测量工具 =====
+
+    interface Workload {
+        double run();
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-20s %12s %14s %14s%n", "实现", "ns/op", "ops/s", "B/op");
+    }
+
+    private static void measure(String label, long operations, Workload workload) {
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        double blackhole = workload.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        double nsPerOp = (double) elapsed / operations;
+        System.out.printf("%-20s %12.2f %14.0f %14.3f   (checksum %.0f)%n",
+            label, nsPerOp, 1e9 / nsPerOp, (double) allocated / operations, blackhole);
+    }
+}
@@ -7,10 +7,15 @@
 package com.campusflow;
 
 import com.campusflow.config.Config;
+import com.campusflow.api.AdminApi;
 import com.campusflow.api.TaskApi;
+import com.campusflow.metrics.InstrumentedDataSource;
+import com.campusflow.metrics.SqlMetrics;
 import com.campusflow.repository.TaskRepository;
 import io.javalin.Javalin;
 
+import java.time.Duration;
+
 /**
  * CampusFlow 主类
  *
@@ -19,6 +24,7 @@ import io.javalin.Javalin;
  * 2. 启动 Javalin Web 服务器
  * 3. 注册 REST API 端点
  * 4. 支持开发和生产环境配置
+ * 5. 记录 SQL 执行统计，通过 /admin/sql-stats 查看
  *
  * 运行方式：
  * - 开发环境：java -jar campusflow-1.0.0.jar
@@ -33,8 +39,11 @@ public class Main {
         // 加载配置
         Config config = new Config();
 
-        // 初始化 Repository
-        TaskRepository taskRepository = new TaskRepository(config.getDbPath());
+        // 初始化 Repository：连接经过 InstrumentedDataSource，记录每条 SQL 的耗时
+        SqlMetrics sqlMetrics = new SqlMetrics(config.getSlowQueryLogSize(),
+            Duration.ofMillis(config.getSlowQueryThresholdMillis()));
+        TaskRepository taskRepository = new TaskRepository(
+            new InstrumentedDataSource(TaskRepository.sqliteDataSource(config.getDbPath()), sqlMetrics));
 
         // 创建 Javalin 应用
         Javalin app = Javalin.create(javalinConfig -> {
@@ -61,6 +70,14 @@ public class Main {
             ctx.result("{\"status\":\"ok\",\"version\":\"1.0.0\",\"env\":\"" + config.getEnv() + "\"}");
         });
 
+        // 管理端点：默认要求令牌，只有明确声明 CAMPUSFLOW_ENV=dev/test 时才允许不设令牌
+        if (!config.getAdminToken().isEmpty() || config.isLocalEnv()) {
+            new AdminApi(sqlMetrics, config.getAdminToken()).registerRoutes(app);
+        } else {
+            System.out.println("CAMPUSFLOW_ADMIN_TOKEN 未设置，/admin 端点未开放"
+                + "（本机调试可设置 CAMPUSFLOW_ENV=dev）");
+        }
+
         System.out.println("Server started on port " + config.getPort());
         System.out.println("Environment: " + config.getEnv());
         System.out.println("API base path: " + config.getApiBasePath());
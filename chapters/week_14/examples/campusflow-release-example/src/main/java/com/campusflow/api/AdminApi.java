@@ -0,0 +1,112 @@
+/*
+ * 示例：管理端点
+ * 功能：查看 SQL 执行统计和慢查询日志，或清空统计
+ * 运行方式：被 Main 类注册到 Javalin 服务器
+ * 预期输出：GET /admin/sql-stats 返回 JSON
+ */
+package com.campusflow.api;
+
+import com.campusflow.metrics.Histogram;
+import com.campusflow.metrics.SlowQuery;
+import com.campusflow.metrics.SqlMetrics;
+import com.campusflow.metrics.StatementStats;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.UnauthorizedResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理端点
+ *
+ * 端点：
+ * - GET  /admin/sql-stats        各语句的耗时/行数分布、获取连接耗时、慢查询日志
+ * - POST /admin/sql-stats/reset  清空统计，例如发布新版本后重新观察
+ *
+ * 设置了令牌时，请求需带请求头 X-Admin-Token。
+ * 慢查询日志中的绑定参数已脱敏，只有类型和长度。
+ */
+public class AdminApi {
+    private final SqlMetrics sqlMetrics;
+    private final String adminToken;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    public AdminApi(SqlMetrics sqlMetrics, String adminToken) {
+        this.sqlMetrics = sqlMetrics;
+        this.adminToken = adminToken;
+    }
+
+    public void registerRoutes(Javalin app) {
+        app.before("/admin/*", this::checkToken);
+        app.get("/admin/sql-stats", this::getSqlStats);
+        app.post("/admin/sql-stats/reset", this::resetSqlStats);
+    }
+
+    private void checkToken(Context ctx) {
+        if (adminToken.isEmpty()) {
+            return;
+        }
+        String provided = ctx.header("X-Admin-Token");
+        // 定长比较，避免按响应时间逐字符猜出令牌
+        if (provided == null || !MessageDigest.isEqual(
+                provided.getBytes(StandardCharsets.UTF_8), adminToken.getBytes(StandardCharsets.UTF_8))) {
+            throw new UnauthorizedResponse();
+        }
+    }
+
+    private void getSqlStats(Context ctx) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("connectionAcquireMicros", histogram(sqlMetrics.connectionAcquireMicros()));
+        body.put("statements", sqlMetrics.statements().stream().map(AdminApi::statement).toList());
+        body.put("slowQueries", sqlMetrics.slowQueries().stream().map(AdminApi::slowQuery).toList());
+        ctx.contentType("application/json");
+        ctx.result(gson.toJson(body));
+    }
+
+    private void resetSqlStats(Context ctx) {
+        sqlMetrics.reset();
+        ctx.status(204);
+    }
+
+    // Gson 不能反射 java.time 类型，这里转换成基本类型组成的 Map
+
+    private static Map<String, Object> statement(StatementStats stats) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("sql", stats.shape());
+        json.put("executions", stats.executions());
+        json.put("errors", stats.errors());
+        json.put("totalMicros", stats.totalMicros());
+        json.put("latencyMicros", histogram(stats.latencyMicros()));
+        json.put("rows", histogram(stats.rows()));
+        return json;
+    }
+
+    private static Map<String, Object> slowQuery(SlowQuery query) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("sql", query.shape());
+        json.put("parameters", List.copyOf(query.parameters()));
+        json.put("micros", query.duration().toNanos() / 1_000);
+        json.put("rows", query.rows());
+        json.put("failed", query.failed());
+        json.put("finishedAt", query.finishedAt().toString());
+        json.put("thread", query.thread());
+        return json;
+    }
+
+    private static Map<String, Object> histogram(Histogram.Snapshot snapshot) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("count", snapshot.count());
+        json.put("mean", Math.round(snapshot.mean() * 10) / 10.0);
+        json.put("p50", snapshot.p50());
+        json.put("p95", snapshot.p95());
+        json.put("p99", snapshot.p99());
+        json.put("max", snapshot.max());
+        return json;
+    }
+}
@@ -30,12 +30,13 @@ import java.util.Properties;
 public class Config {
     private final Properties props;
     private final String env;
+    private final boolean localEnv;
 
     public Config() {
         // 从环境变量读取环境名称（dev/test/prod）
-        this.env = System.getenv("CAMPUSFLOW_ENV") != null
-            ? System.getenv("CAMPUSFLOW_ENV")
-            : "dev";  // 默认开发环境
+        String declaredEnv = System.getenv("CAMPUSFLOW_ENV");
+        this.env = declaredEnv != null ? declaredEnv : "dev";  // 默认开发环境
+        this.localEnv = isLocalEnv(declaredEnv);
 
         this.props = loadConfig();
 
@@ -75,7 +76,42 @@ public class Config {
         return props.getProperty("api.base_path", "/api");
     }
 
+    /**
+     * 耗时达到多少毫秒的 SQL 记入慢查询日志
+     */
+    public long getSlowQueryThresholdMillis() {
+        return Long.parseLong(props.getProperty("sql.slow_threshold_ms", "50"));
+    }
+
+    /**
+     * 慢查询日志最多保留的条数
+     */
+    public int getSlowQueryLogSize() {
+        return Integer.parseInt(props.getProperty("sql.slow_log_size", "20"));
+    }
+
+    /**
+     * 访问 /admin 端点所需的令牌：优先读环境变量 CAMPUSFLOW_ADMIN_TOKEN，不要把生产令牌写进配置文件
+     */
+    public String getAdminToken() {
+        String token = System.getenv("CAMPUSFLOW_ADMIN_TOKEN");
+        return token != null ? token : props.getProperty("admin.token", "");
+    }
+
     public String getEnv() {
         return env;
     }
+
+    /**
+     * 是否明确声明为本机环境（CAMPUSFLOW_ENV=dev 或 test）。
+     * 没有设置 CAMPUSFLOW_ENV 时虽然按 dev 加载配置，这里仍返回 false：
+     * 忘了设置环境变量的生产部署不能因此开放无需令牌的管理端点。
+     */
+    public boolean isLocalEnv() {
+        return localEnv;
+    }
+
+    static boolean isLocalEnv(String declaredEnv) {
+        return "dev".equals(declaredEnv) || "test".equals(declaredEnv);
+    }
 }
@@ -0,0 +1,38 @@
+package com.campusflow.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 慢查询日志中的一条记录。
+ *
+ * @param shape      归一化后的 SQL，字面量已替换为 ?
+ * @param parameters 绑定参数的脱敏描述，只保留类型和长度，例如 {@code String(12)}、{@code Long}、{@code NULL}
+ * @param duration   执行耗时；查询包括逐行读取结果所花的时间
+ * @param rows       查询读到的行数，或更新影响的行数
+ * @param failed     执行是否抛出了 SQLException
+ */
+public record SlowQuery(String shape, List<String> parameters, Duration duration, long rows, boolean failed,
+                        Instant finishedAt, String thread) {
+
+    /**
+     * 把绑定参数替换成不含业务数据的描述：慢查询日志会通过管理端点暴露，不能泄露标题、用户信息等内容。
+     */
+    static List<String> redact(Object[] parameters, int count) {
+        String[] redacted = new String[count];
+        for (int i = 0; i < count; i++) {
+            Object value = parameters[i];
+            if (value == null) {
+                redacted[i] = "NULL";
+            } else if (value instanceof CharSequence text) {
+                redacted[i] = "String(" + text.length() + ")";
+            } else if (value instanceof byte[] bytes) {
+                redacted[i] = "byte[" + bytes.length + "]";
+            } else {
+                redacted[i] = value.getClass().getSimpleName();
+            }
+        }
+        return List.of(redacted);
+    }
+}
@@ -0,0 +1,59 @@
+package com.campusflow.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 只保留耗时最长的 capacity 条慢查询。
+ *
+ * <p>用最小堆保存，堆顶是目前保留的最快的一条。floor 是进入日志的最低耗时：
+ * 日志未满时是阈值，满了之后是堆顶的耗时。绝大多数语句达不到 floor，
+ * 只读一个 volatile 就返回，不加锁，也不做参数脱敏。
+ */
+final class SlowQueryLog {
+    private static final Comparator<SlowQuery> FASTEST_FIRST = Comparator.comparing(SlowQuery::duration);
+
+    private final int capacity;
+    private final long thresholdNanos;
+    private final PriorityQueue<SlowQuery> heap = new PriorityQueue<>(FASTEST_FIRST);
+    private volatile long floor;
+
+    SlowQueryLog(int capacity, long thresholdNanos) {
+        this.capacity = capacity;
+        this.thresholdNanos = thresholdNanos;
+        this.floor = capacity == 0 ? Long.MAX_VALUE : thresholdNanos;
+    }
+
+    boolean qualifies(long nanos) {
+        return nanos >= floor;
+    }
+
+    synchronized void add(SlowQuery query) {
+        if (query.duration().toNanos() < floor) {
+            return;
+        }
+        heap.add(query);
+        if (heap.size() > capacity) {
+            heap.poll();
+        }
+        if (heap.size() == capacity) {
+            floor = Math.max(thresholdNanos, heap.peek().duration().toNanos());
+        }
+    }
+
+    /**
+     * 按耗时从长到短返回。
+     */
+    synchronized List<SlowQuery> snapshot() {
+        List<SlowQuery> queries = new ArrayList<>(heap);
+        queries.sort(FASTEST_FIRST.reversed());
+        return queries;
+    }
+
+    synchronized void clear() {
+        heap.clear();
+        floor = capacity == 0 ? Long.MAX_VALUE : thresholdNanos;
+    }
+}
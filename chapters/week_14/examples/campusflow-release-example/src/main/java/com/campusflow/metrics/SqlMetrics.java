@@ -0,0 +1,118 @@
+package com.campusflow.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL 执行统计：按语句形状分组的耗时和行数直方图、获取连接的耗时直方图，以及慢查询日志。
+ *
+ * <p>由 {@link InstrumentedDataSource} 写入；管理端点通过 {@link #statements()}、
+ * {@link #connectionAcquireMicros()} 和 {@link #slowQueries()} 读取。
+ * 所有方法都是线程安全的，一个应用通常只创建一个实例。
+ */
+public class SqlMetrics {
+    public static final int DEFAULT_SLOW_LOG_SIZE = 20;
+    public static final Duration DEFAULT_SLOW_THRESHOLD = Duration.ofMillis(50);
+    // 语句形状数量的上限；超过后新形状归入 OTHER_SHAPE，防止拼接 SQL 让统计无限增长
+    static final int MAX_SHAPES = 512;
+    static final String OTHER_SHAPE = "(其他语句)";
+
+    private final Map<String, Accumulator> byShape = new ConcurrentHashMap<>();
+    private final Histogram connectionAcquire = new Histogram();
+    private final SlowQueryLog slowLog;
+
+    public SqlMetrics() {
+        this(DEFAULT_SLOW_LOG_SIZE, DEFAULT_SLOW_THRESHOLD);
+    }
+
+    /**
+     * @param slowLogSize   慢查询日志最多保留多少条，0 表示不记录
+     * @param slowThreshold 耗时达到多少才算慢查询
+     */
+    public SqlMetrics(int slowLogSize, Duration slowThreshold) {
+        if (slowLogSize < 0) {
+            throw new IllegalArgumentException("慢查询日志大小不能为负数");
+        }
+        if (slowThreshold == null || slowThreshold.isNegative()) {
+            throw new IllegalArgumentException("慢查询阈值不能为空或负数");
+        }
+        this.slowLog = new SlowQueryLog(slowLogSize, slowThreshold.toNanos());
+    }
+
+    void recordAcquire(long nanos) {
+        connectionAcquire.record(nanos / 1_000);
+    }
+
+    /**
+     * 记录一次语句执行。parameters 只在这次执行进入慢查询日志时才会被读取并脱敏。
+     */
+    void recordExecution(String sql, long nanos, long rows, boolean failed, Object[] parameters, int parameterCount) {
+        String shape = SqlShape.of(sql);
+        Accumulator accumulator = byShape.get(shape);
+        if (accumulator == null) {
+            if (byShape.size() >= MAX_SHAPES) {
+                shape = OTHER_SHAPE;
+            }
+            accumulator = byShape.computeIfAbsent(shape, key -> new Accumulator());
+        }
+        accumulator.latency.record(nanos / 1_000);
+        accumulator.rows.record(rows);
+        if (failed) {
+            accumulator.errors.increment();
+        }
+
+        if (slowLog.qualifies(nanos)) {
+            slowLog.add(new SlowQuery(shape, SlowQuery.redact(parameters, parameterCount), Duration.ofNanos(nanos),
+                rows, failed, Instant.now(), Thread.currentThread().getName()));
+        }
+    }
+
+    /**
+     * 各语句形状的统计，按累计耗时从高到低排序。
+     */
+    public List<StatementStats> statements() {
+        List<StatementStats> stats = new ArrayList<>(byShape.size());
+        byShape.forEach((shape, accumulator) -> {
+            Histogram.Snapshot latency = accumulator.latency.snapshot();
+            stats.add(new StatementStats(shape, latency.count(), accumulator.errors.sum(),
+                Math.round(latency.mean() * latency.count()), latency, accumulator.rows.snapshot()));
+        });
+        stats.sort(Comparator.comparingLong(StatementStats::totalMicros).reversed());
+        return stats;
+    }
+
+    /**
+     * 从 DataSource 获取连接的耗时分布（微秒）；连接池耗尽时这里的 p99 会先升高。
+     */
+    public Histogram.Snapshot connectionAcquireMicros() {
+        return connectionAcquire.snapshot();
+    }
+
+    /**
+     * 慢查询日志，按耗时从长到短排序。
+     */
+    public List<SlowQuery> slowQueries() {
+        return slowLog.snapshot();
+    }
+
+    /**
+     * 清空全部统计，例如压测前或部署后重新开始观察。
+     */
+    public void reset() {
+        byShape.clear();
+        connectionAcquire.reset();
+        slowLog.clear();
+    }
+
+    private static final class Accumulator {
+        private final Histogram latency = new Histogram();
+        private final Histogram rows = new Histogram();
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,112 @@
+package com.campusflow.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 把 SQL 归一化为"语句形状"，作为统计的分组键。
+ *
+ * <p>规则：
+ * <ul>
+ *   <li>去掉注释，连续空白合并为一个空格</li>
+ *   <li>字符串和数字字面量替换为 ?，拼接了字面量的 SQL 与对应的 PreparedStatement 归为一组，
+ *       同时字面量里的业务数据不会出现在统计结果中</li>
+ *   <li>{@code IN (?, ?, ?)} 合并为 {@code IN (?)}，deleteAll 等按 id 列表拼接的语句不会因为个数不同而分组</li>
+ * </ul>
+ */
+public final class SqlShape {
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN ?\\(\\?(?:, ?\\?)+\\)");
+    // PreparedStatement 的 SQL 通常是常量，缓存后每次执行只是一次哈希查找；设上限防止拼接字面量的 SQL 撑爆缓存
+    private static final int CACHE_LIMIT = 1_024;
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlShape() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = CACHE.get(sql);
+        if (shape == null) {
+            shape = normalize(sql);
+            if (CACHE.size() < CACHE_LIMIT) {
+                CACHE.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                // '' 是字符串内的转义引号
+                i++;
+                while (i < n) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                while (i < n && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                appendSpace(out);
+            } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+                appendSpace(out);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(out);
+                i++;
+            } else if (Character.isDigit(c) && !partOfIdentifier(out)) {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    out.append(sql.charAt(i));
+                    i++;
+                }
+            } else {
+                // "( ?"、"? )"、"? ," 与不带空格的写法视为相同
+                if ((c == ')' || c == ',') && !out.isEmpty() && out.charAt(out.length() - 1) == ' ') {
+                    out.setLength(out.length() - 1);
+                }
+                out.append(c);
+                i++;
+                if (c == ',') {
+                    out.append(' ');
+                }
+            }
+        }
+        return IN_LIST.matcher(out.toString().strip()).replaceAll("IN (?)");
+    }
+
+    private static void appendSpace(StringBuilder out) {
+        if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ' && out.charAt(out.length() - 1) != '(') {
+            out.append(' ');
+        }
+    }
+
+    private static boolean partOfIdentifier(StringBuilder out) {
+        if (out.isEmpty()) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_';
+    }
+}
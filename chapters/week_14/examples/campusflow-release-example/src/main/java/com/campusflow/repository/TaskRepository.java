@@ -7,7 +7,9 @@
 package com.campusflow.repository;
 
 import com.campusflow.model.Task;
+import org.sqlite.SQLiteDataSource;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -17,15 +19,28 @@ import java.util.Optional;
 /**
  * 任务数据访问层
  * 使用 SQLite 持久化存储
+ *
+ * 连接从注入的 DataSource 获取；Main 传入的是 InstrumentedDataSource，
+ * 每条 SQL 的耗时和行数会记录到 SqlMetrics，由 /admin/sql-stats 查看
  */
 public class TaskRepository {
-    private final String dbPath;
+    private final DataSource dataSource;
 
     public TaskRepository(String dbPath) {
-        this.dbPath = dbPath;
+        this(sqliteDataSource(dbPath));
+    }
+
+    public TaskRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
         initDatabase();
     }
 
+    public static DataSource sqliteDataSource(String dbPath) {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dbPath);
+        return dataSource;
+    }
+
     private void initDatabase() {
         String sql = """
             CREATE TABLE IF NOT EXISTS tasks (
@@ -38,7 +53,7 @@ public class TaskRepository {
             )
             """;
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
         } catch (SQLException e) {
@@ -50,7 +65,7 @@ public class TaskRepository {
         List<Task> tasks = new ArrayList<>();
         String sql = "SELECT * FROM tasks ORDER BY created_at DESC";
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
@@ -66,7 +81,7 @@ public class TaskRepository {
     public Optional<Task> findById(Long id) {
         String sql = "SELECT * FROM tasks WHERE id = ?";
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, id);
@@ -95,7 +110,7 @@ public class TaskRepository {
             VALUES (?, ?, ?, ?, ?)
             """;
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             pstmt.setString(1, task.getTitle());
@@ -123,7 +138,7 @@ public class TaskRepository {
             WHERE id = ?
             """;
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setString(1, task.getTitle());
@@ -142,7 +157,7 @@ public class TaskRepository {
     public void deleteById(Long id) {
         String sql = "DELETE FROM tasks WHERE id = ?";
 
-        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbPath);
+        try (Connection conn = dataSource.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
 
             pstmt.setLong(1, id);
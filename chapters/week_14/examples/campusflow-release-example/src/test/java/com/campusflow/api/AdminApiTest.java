@@ -0,0 +1,124 @@
+package com.campusflow.api;
+
+import com.campusflow.metrics.InstrumentedDataSource;
+import com.campusflow.metrics.SqlMetrics;
+import com.campusflow.model.Task;
+import com.campusflow.repository.TaskRepository;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdminApiTest {
+
+    private static final String TOKEN = "s3cret-token";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private SqlMetrics metrics;
+    private TaskRepository repository;
+    private Javalin app;
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        // 阈值为 0：每条语句都进入慢查询日志
+        metrics = new SqlMetrics(5, Duration.ZERO);
+        repository = new TaskRepository(new InstrumentedDataSource(
+            TaskRepository.sqliteDataSource(dir.resolve("admin.db").toString()), metrics));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (app != null) {
+            app.stop();
+        }
+    }
+
+    private void start(String token) {
+        app = Javalin.create();
+        new AdminApi(metrics, token).registerRoutes(app);
+        app.start(0);
+    }
+
+    private HttpResponse<String> send(String method, String path, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path))
+            .method(method, HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            request.header("X-Admin-Token", token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void tokenShouldBeRequiredWhenConfigured() throws Exception {
+        start(TOKEN);
+
+        assertEquals(401, send("GET", "/admin/sql-stats", null).statusCode());
+        assertEquals(401, send("GET", "/admin/sql-stats", "wrong").statusCode());
+        assertEquals(401, send("POST", "/admin/sql-stats/reset", "").statusCode());
+        assertEquals(200, send("GET", "/admin/sql-stats", TOKEN).statusCode());
+    }
+
+    @Test
+    void slowQueriesShouldNotExposeBoundValues() throws Exception {
+        start(TOKEN);
+        // 有 id 时 save 执行 UPDATE，标题和描述作为绑定参数
+        repository.save(new Task(1L, "机密标题", "不应出现在管理端点中"));
+        repository.findAll();
+
+        HttpResponse<String> response = send("GET", "/admin/sql-stats", TOKEN);
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.body().contains("机密"), response.body());
+        assertFalse(response.body().contains("不应出现"), response.body());
+        JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+        JsonArray slowQueries = body.getAsJsonArray("slowQueries");
+        JsonObject update = slowQueries.asList().stream()
+            .map(element -> element.getAsJsonObject())
+            .filter(query -> query.get("sql").getAsString().startsWith("UPDATE tasks"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals("String(4)", update.getAsJsonArray("parameters").get(0).getAsString());
+        assertEquals("String(10)", update.getAsJsonArray("parameters").get(1).getAsString());
+        assertTrue(body.getAsJsonArray("statements").size() >= 2);
+    }
+
+    @Test
+    void resetShouldClearStatistics() throws Exception {
+        start(TOKEN);
+        repository.findAll();
+
+        assertEquals(204, send("POST", "/admin/sql-stats/reset", TOKEN).statusCode());
+
+        JsonObject body = JsonParser.parseString(send("GET", "/admin/sql-stats", TOKEN).body()).getAsJsonObject();
+        assertEquals(0, body.getAsJsonArray("statements").size());
+        assertEquals(0, body.getAsJsonArray("slowQueries").size());
+    }
+
+    @Test
+    void emptyTokenShouldLeaveEndpointsOpen() throws Exception {
+        // 只有 Main 判断为本机环境时才会这样注册
+        start("");
+
+        assertEquals(200, send("GET", "/admin/sql-stats", null).statusCode());
+    }
+}
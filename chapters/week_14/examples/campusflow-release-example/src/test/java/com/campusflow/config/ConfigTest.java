@@ -0,0 +1,20 @@
+package com.campusflow.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigTest {
+
+    @Test
+    void onlyExplicitDevOrTestCountsAsLocal() {
+        assertTrue(Config.isLocalEnv("dev"));
+        assertTrue(Config.isLocalEnv("test"));
+        // 没有设置 CAMPUSFLOW_ENV 时按 dev 加载配置，但不能因此免去管理端点的令牌
+        assertFalse(Config.isLocalEnv(null));
+        assertFalse(Config.isLocalEnv("prod"));
+        assertFalse(Config.isLocalEnv("staging"));
+        assertFalse(Config.isLocalEnv("DEV "));
+    }
+}
@@ -0,0 +1,74 @@
+package com.campusflow.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlMetricsTest {
+
+    @Test
+    void redactShouldKeepOnlyTypesAndLengths() {
+        Object[] parameters = {"张三的密码", null, 42L, new byte[16], new StringBuilder("abc"), new BigDecimal("9.99"),
+            "多余的参数"};
+
+        List<String> redacted = SlowQuery.redact(parameters, 6);
+
+        assertEquals(List.of("String(5)", "NULL", "Long", "byte[16]", "String(3)", "BigDecimal"), redacted);
+        assertFalse(redacted.toString().contains("张三"));
+    }
+
+    @Test
+    void slowQueryLogShouldKeepTheSlowestAndRedactParameters() {
+        SqlMetrics metrics = new SqlMetrics(2, Duration.ofMillis(1));
+        String sql = "SELECT * FROM tasks WHERE title = ?";
+        Object[] secret = {"机密标题"};
+        metrics.recordExecution(sql, 2_000_000, 1, false, secret, 1);
+        metrics.recordExecution(sql, 5_000_000, 1, false, secret, 1);
+        metrics.recordExecution(sql, 3_000_000, 0, true, secret, 1);
+        metrics.recordExecution(sql, 500_000, 1, false, secret, 1);
+
+        List<SlowQuery> slow = metrics.slowQueries();
+        assertEquals(2, slow.size());
+        assertEquals(Duration.ofMillis(5), slow.get(0).duration());
+        assertEquals(Duration.ofMillis(3), slow.get(1).duration());
+        assertTrue(slow.get(1).failed());
+        for (SlowQuery query : slow) {
+            assertEquals(List.of("String(4)"), query.parameters());
+        }
+
+        StatementStats stats = metrics.statements().get(0);
+        assertEquals(sql, stats.shape());
+        assertEquals(4, stats.executions());
+        assertEquals(1, stats.errors());
+    }
+
+    @Test
+    void shapeShouldCollapseLiteralsInListsAndWhitespace() {
+        assertEquals("DELETE FROM tasks WHERE id IN (?)",
+            SqlShape.normalize("DELETE FROM tasks\n  WHERE id IN ( ?, ?,? )"));
+        assertEquals("DELETE FROM tasks WHERE id IN (?)",
+            SqlShape.normalize("DELETE FROM tasks WHERE id IN ('a', 'b') -- 清理"));
+        assertEquals("SELECT t1.id FROM t1 LIMIT ?", SqlShape.normalize("SELECT t1.id FROM t1 /* x */ LIMIT 50"));
+        assertEquals("SELECT * FROM tasks WHERE title = ?", SqlShape.normalize("SELECT * FROM tasks WHERE title = 'a''b'"));
+    }
+
+    @Test
+    void histogramPercentilesShouldStayWithinBucketError() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_000, snapshot.count());
+        assertEquals(500.5, snapshot.mean(), 1e-9);
+        assertEquals(1_000, snapshot.max());
+        assertTrue(snapshot.p50() >= 500 && snapshot.p50() <= 625, "p50=" + snapshot.p50());
+        assertTrue(snapshot.p99() >= 990 && snapshot.p99() <= 1_000, "p99=" + snapshot.p99());
+    }
+}